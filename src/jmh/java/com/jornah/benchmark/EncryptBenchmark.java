@@ -0,0 +1,102 @@
+package com.jornah.benchmark;
+
+import com.jornah.utils.EncryptUtil;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.util.Base64Utils;
+
+import javax.crypto.Cipher;
+import javax.crypto.KeyGenerator;
+import javax.crypto.SecretKey;
+import java.nio.charset.StandardCharsets;
+import java.security.SecureRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 加密文章解密耗时: 旧实现(每次重新生成密钥和 Cipher) 与 EncryptUtil(缓存密钥、线程复用 Cipher)对比
+ *
+ * @author licong
+ * @date 2026/10/18 18:20
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class EncryptBenchmark {
+    private static final String PASSPHRASE = "benchmark-passphrase";
+
+    @Param({"10240", "102400"})
+    private int size;
+
+    private String plainText;
+    private String legacyCipherText;
+    private String v2CipherText;
+
+    @Setup
+    public void setup() throws Exception {
+        plainText = MarkdownSamples.markdown(size);
+        legacyCipherText = oldEncrypt(plainText, PASSPHRASE);
+        v2CipherText = EncryptUtil.encrypt(plainText, PASSPHRASE);
+    }
+
+    @Benchmark
+    public String oldDecrypt() throws Exception {
+        return oldDecrypt(legacyCipherText, PASSPHRASE);
+    }
+
+    @Benchmark
+    public String legacyDecrypt() throws Exception {
+        return EncryptUtil.decrypt(legacyCipherText, PASSPHRASE);
+    }
+
+    @Benchmark
+    public String v2Decrypt() throws Exception {
+        return EncryptUtil.decrypt(v2CipherText, PASSPHRASE);
+    }
+
+    @Benchmark
+    public String oldEncrypt() throws Exception {
+        return oldEncrypt(plainText, PASSPHRASE);
+    }
+
+    /**
+     * 每次加密都用新 salt，密钥缓存不会命中，主要是 PBKDF2 的开销
+     */
+    @Benchmark
+    public String v2Encrypt() throws Exception {
+        return EncryptUtil.encrypt(plainText, PASSPHRASE);
+    }
+
+    private static String oldEncrypt(String plainText, String key) throws Exception {
+        Cipher cipher = Cipher.getInstance("AES");
+        cipher.init(Cipher.ENCRYPT_MODE, oldGenerateKey(key.getBytes()));
+        return Base64Utils.encodeToString(cipher.doFinal(plainText.getBytes()));
+    }
+
+    private static String oldDecrypt(String encryptText, String key) throws Exception {
+        SecretKey secKey = oldGenerateKey(key.getBytes());
+        byte[] cipherBytes = Base64Utils.decodeFromString(encryptText);
+        Cipher cipher = Cipher.getInstance("AES");
+        cipher.init(Cipher.DECRYPT_MODE, secKey);
+        return new String(cipher.doFinal(cipherBytes), StandardCharsets.UTF_8);
+    }
+
+    private static SecretKey oldGenerateKey(byte[] key) throws Exception {
+        SecureRandom random = SecureRandom.getInstance("SHA1PRNG");
+        random.setSeed(key);
+        KeyGenerator gen = KeyGenerator.getInstance("AES");
+        gen.init(128, random);
+        return gen.generateKey();
+    }
+}
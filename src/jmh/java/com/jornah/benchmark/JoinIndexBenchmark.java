@@ -0,0 +1,193 @@
+package com.jornah.benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.sql.Timestamp;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 关联表和列表查询在加索引前后的耗时，用 MySQL 模式的 H2 内存库，数据量按个人博客放大几十倍。
+ * before 只有主键；after 加上 V3、V4、V6 迁移里的索引(H2 的索引名全库唯一，所以这里的名字和迁移里的不同)。
+ * H2 的优化器和 MySQL 不同，结果只用来看量级
+ *
+ * @author licong
+ * @date 2026/10/18 23:40
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 2, time = 1)
+@Measurement(iterations = 3, time = 2)
+@Fork(1)
+public class JoinIndexBenchmark {
+    private static final int ARTICLES = 20000;
+    private static final int TAGS = 50;
+    private static final int CATEGORIES = 20;
+    private static final int TAGS_PER_ARTICLE = 3;
+    private static final String[] STATUS = {"publish", "publish", "publish", "draft", "deleted"};
+
+    @Param({"before", "after"})
+    private String schema;
+
+    private Connection connection;
+    private long seedStart;
+    private PreparedStatement findTagBy;
+    private PreparedStatement findCategoryBy;
+    private PreparedStatement findArIdsByTag;
+    private PreparedStatement countMapByArticle;
+    private PreparedStatement listByTagAfterCursor;
+
+    @Setup(Level.Trial)
+    public void setup() throws SQLException {
+        connection = DriverManager.getConnection("jdbc:h2:mem:join_" + schema + ";MODE=MySQL;DB_CLOSE_DELAY=-1");
+        try (Statement st = connection.createStatement()) {
+            st.execute("create table article (id bigint auto_increment primary key, title varchar(200), " +
+                    "updated datetime, created datetime, list_time datetime as coalesce(updated, created), " +
+                    "status varchar(16), encrypt_enable tinyint default 0)");
+            st.execute("create table tag (id bigint auto_increment primary key, tag_name varchar(64))");
+            st.execute("create table category (id bigint auto_increment primary key, cate_name varchar(64))");
+            st.execute("create table article_tag (id bigint auto_increment primary key, article_id bigint, tag_id bigint)");
+            st.execute("create table article_category (id bigint auto_increment primary key, article_id bigint, category_id bigint)");
+        }
+        seed();
+        if ("after".equals(schema)) {
+            try (Statement st = connection.createStatement()) {
+                st.execute("create index status_encrypt_list_time on article (status, encrypt_enable, list_time, id)");
+                st.execute("create index tag_article on article_tag (tag_id, article_id)");
+                st.execute("create index category_article on article_category (category_id, article_id)");
+                st.execute("create unique index article_tag_unique on article_tag (article_id, tag_id)");
+                st.execute("create unique index article_category_unique on article_category (article_id, category_id)");
+                st.execute("analyze");
+            }
+        }
+        findTagBy = connection.prepareStatement(
+                "select t.* from article_tag a join tag t on a.tag_id=t.id where a.article_id=?");
+        findCategoryBy = connection.prepareStatement(
+                "select c.* from article_category a join category c on a.category_id=c.id where a.article_id=? limit 1");
+        findArIdsByTag = connection.prepareStatement("select article_id from article_tag where tag_id=?");
+        // deleteMapBy 的查找部分
+        countMapByArticle = connection.prepareStatement("select count(*) from article_tag where article_id=?");
+        listByTagAfterCursor = connection.prepareStatement("select a.id, a.title, a.updated from article a " +
+                "join article_tag art on a.id=art.article_id and art.tag_id=? " +
+                "where a.status in ('publish') and a.encrypt_enable=0 " +
+                "and (a.list_time < ? or (a.list_time = ? and a.id < ?)) order by a.list_time desc, a.id desc limit 10");
+    }
+
+    private void seed() throws SQLException {
+        connection.setAutoCommit(false);
+        try (PreparedStatement article = connection.prepareStatement(
+                "insert into article(title, updated, status) values(?, ?, ?)");
+             PreparedStatement tag = connection.prepareStatement("insert into tag(tag_name) values(?)");
+             PreparedStatement category = connection.prepareStatement("insert into category(cate_name) values(?)");
+             PreparedStatement articleTag = connection.prepareStatement(
+                     "insert into article_tag(article_id, tag_id) values(?, ?)");
+             PreparedStatement articleCategory = connection.prepareStatement(
+                     "insert into article_category(article_id, category_id) values(?, ?)")) {
+            for (int i = 1; i <= TAGS; i++) {
+                tag.setString(1, "tag" + i);
+                tag.addBatch();
+            }
+            tag.executeBatch();
+            for (int i = 1; i <= CATEGORIES; i++) {
+                category.setString(1, "cate" + i);
+                category.addBatch();
+            }
+            category.executeBatch();
+            seedStart = System.currentTimeMillis() - TimeUnit.DAYS.toMillis(3650);
+            for (int id = 1; id <= ARTICLES; id++) {
+                article.setString(1, "article" + id);
+                article.setTimestamp(2, new Timestamp(seedStart + id * 60_000L));
+                article.setString(3, STATUS[id % STATUS.length]);
+                article.addBatch();
+                for (int t = 0; t < TAGS_PER_ARTICLE; t++) {
+                    articleTag.setLong(1, id);
+                    articleTag.setLong(2, (id * 7L + t * 13L) % TAGS + 1);
+                    articleTag.addBatch();
+                }
+                articleCategory.setLong(1, id);
+                articleCategory.setLong(2, id % CATEGORIES + 1);
+                articleCategory.addBatch();
+            }
+            article.executeBatch();
+            articleTag.executeBatch();
+            articleCategory.executeBatch();
+        }
+        connection.commit();
+        connection.setAutoCommit(true);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws SQLException {
+        try (Statement st = connection.createStatement()) {
+            st.execute("drop all objects");
+        }
+        connection.close();
+    }
+
+    private static long randomArticle() {
+        return ThreadLocalRandom.current().nextLong(1, ARTICLES + 1);
+    }
+
+    private static void consume(PreparedStatement ps, Blackhole bh) throws SQLException {
+        try (ResultSet rs = ps.executeQuery()) {
+            while (rs.next()) {
+                bh.consume(rs.getObject(1));
+            }
+        }
+    }
+
+    @Benchmark
+    public void findTagBy(Blackhole bh) throws SQLException {
+        findTagBy.setLong(1, randomArticle());
+        consume(findTagBy, bh);
+    }
+
+    @Benchmark
+    public void findCategoryBy(Blackhole bh) throws SQLException {
+        findCategoryBy.setLong(1, randomArticle());
+        consume(findCategoryBy, bh);
+    }
+
+    @Benchmark
+    public void findArIdsByTag(Blackhole bh) throws SQLException {
+        findArIdsByTag.setLong(1, ThreadLocalRandom.current().nextLong(1, TAGS + 1));
+        consume(findArIdsByTag, bh);
+    }
+
+    @Benchmark
+    public void deleteMapByLookup(Blackhole bh) throws SQLException {
+        countMapByArticle.setLong(1, randomArticle());
+        consume(countMapByArticle, bh);
+    }
+
+    @Benchmark
+    public void listByTagAfterCursor(Blackhole bh) throws SQLException {
+        // 游标落在中间，相当于翻到很深的一页
+        Timestamp cursor = new Timestamp(seedStart + ARTICLES / 2 * 60_000L);
+        listByTagAfterCursor.setLong(1, ThreadLocalRandom.current().nextLong(1, TAGS + 1));
+        listByTagAfterCursor.setTimestamp(2, cursor);
+        listByTagAfterCursor.setTimestamp(3, cursor);
+        listByTagAfterCursor.setLong(4, ARTICLES / 2);
+        consume(listByTagAfterCursor, bh);
+    }
+}
@@ -0,0 +1,69 @@
+package com.jornah.benchmark;
+
+import java.util.Random;
+
+/**
+ * 生成基准测试用的 markdown 文本: 多级标题、中英文段落、列表、代码块混排，固定随机种子保证每次输入相同
+ *
+ * @author licong
+ * @date 2026/10/18 18:20
+ */
+public final class MarkdownSamples {
+    private static final String[] WORDS = {
+            "JVM", "垃圾回收", "线程池", "Redis", "缓存", "索引", "事务", "elasticsearch", "分词", "Spring",
+            "MySQL", "锁", "并发", "内存屏障", "volatile", "HashMap", "扩容", "红黑树", "网络", "epoll"
+    };
+
+    private MarkdownSamples() {
+    }
+
+    /**
+     * @param size 目标字符数，结果略大于该值
+     */
+    public static String markdown(int size) {
+        Random random = new Random(size);
+        StringBuilder sb = new StringBuilder(size + 1024);
+        int section = 0;
+        while (sb.length() < size) {
+            section++;
+            sb.append("# 第").append(section).append("章 ").append(word(random)).append('\n');
+            for (int sub = 1; sub <= 3; sub++) {
+                sb.append("## ").append(section).append('.').append(sub).append(' ').append(word(random)).append('\n');
+                paragraph(sb, random);
+                sb.append("- ").append(word(random)).append('\n')
+                        .append("- ").append(word(random)).append('\n');
+                sb.append("```java\n")
+                        .append("public void run() {\n")
+                        .append("    map.put(\"").append(word(random)).append("\", ").append(random.nextInt(1000)).append(");\n")
+                        .append("}\n")
+                        .append("```\n");
+                sb.append("### 小结\n");
+                paragraph(sb, random);
+            }
+        }
+        return sb.toString();
+    }
+
+    /**
+     * 模拟一次编辑: 每隔 every 行改写一行，用于 diff
+     */
+    public static String edited(String markdown, int every) {
+        String[] lines = markdown.split("\n", -1);
+        for (int i = 0; i < lines.length; i += every) {
+            lines[i] = lines[i] + " (已修改)";
+        }
+        return String.join("\n", lines);
+    }
+
+    private static void paragraph(StringBuilder sb, Random random) {
+        int words = 20 + random.nextInt(40);
+        for (int i = 0; i < words; i++) {
+            sb.append(word(random)).append(i % 7 == 6 ? "。" : " ");
+        }
+        sb.append('\n');
+    }
+
+    private static String word(Random random) {
+        return WORDS[random.nextInt(WORDS.length)];
+    }
+}
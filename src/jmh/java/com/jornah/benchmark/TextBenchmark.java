@@ -0,0 +1,71 @@
+package com.jornah.benchmark;
+
+import com.jornah.utils.MyStringUtil;
+import com.jornah.utils.TaleUtils;
+import com.jornah.utils.TextDifferenceChecker;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.LinkedHashMap;
+import java.util.concurrent.TimeUnit;
+
+import static com.jornah.utils.MyStringUtil.LineNoFormat;
+import static com.jornah.utils.MyStringUtil.LineNoRegex;
+
+/**
+ * 文章正文的处理: 保存时加行号/草稿 diff，展示时去行号/提取标题
+ *
+ * @author licong
+ * @date 2026/10/18 18:50
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 2, time = 1)
+@Measurement(iterations = 3, time = 2)
+@Fork(1)
+public class TextBenchmark {
+
+    @Param({"10240", "262144", "2097152"})
+    private int size;
+
+    private String markdown;
+    private String numbered;
+    private String edited;
+
+    @Setup
+    public void setup() {
+        markdown = MarkdownSamples.markdown(size);
+        numbered = MyStringUtil.generateLineNumberForText(markdown, LineNoFormat, true);
+        edited = MarkdownSamples.edited(markdown, 50);
+    }
+
+    @Benchmark
+    public String generateLineNumber() {
+        return MyStringUtil.generateLineNumberForText(markdown, LineNoFormat, true);
+    }
+
+    @Benchmark
+    public String rmLineNumber() {
+        return MyStringUtil.rmLineNumberForText(numbered, LineNoRegex);
+    }
+
+    @Benchmark
+    public LinkedHashMap<String, Integer> getHeadLineFrom() {
+        return TaleUtils.getHeadLineFrom(markdown);
+    }
+
+    @Benchmark
+    public String getDiff() {
+        return TextDifferenceChecker.getDiff(markdown, edited);
+    }
+}
@@ -0,0 +1,65 @@
+package com.jornah.benchmark;
+
+import com.jornah.utils.JwtUtil;
+import com.jornah.utils.UUID;
+import io.jsonwebtoken.Claims;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 每个请求都会走的鉴权解析，以及 id 生成
+ *
+ * @author licong
+ * @date 2026/10/18 18:50
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 2, time = 1)
+@Measurement(iterations = 3, time = 2)
+@Fork(1)
+public class TokenBenchmark {
+    private JwtUtil jwtUtil;
+    private String token;
+
+    @Setup
+    public void setup() throws Exception {
+        jwtUtil = new JwtUtil();
+        ReflectionTestUtils.setField(jwtUtil, "SECRET_KEY", "L/Udm6rF1gnCpHdY8mN4nIavHjZhsEu9SWB9pCnHuyg=");
+        jwtUtil.afterPropertiesSet();
+        Map<String, Object> payload = new HashMap<>();
+        payload.put("userId", 1L);
+        payload.put("username", "admin");
+        token = jwtUtil.generateToken(payload, Instant.now().plus(1, ChronoUnit.DAYS));
+    }
+
+    @Benchmark
+    public Claims parseToken() {
+        return jwtUtil.parseToken(token);
+    }
+
+    @Benchmark
+    public String uu64() {
+        return UUID.UU64();
+    }
+
+    @Benchmark
+    public String uu32() {
+        return UUID.UU32();
+    }
+}
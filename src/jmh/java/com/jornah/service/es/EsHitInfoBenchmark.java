@@ -0,0 +1,135 @@
+package com.jornah.service.es;
+
+import com.jornah.benchmark.MarkdownSamples;
+import com.jornah.model.dto.ArticleBodyHitInfo;
+import com.jornah.model.dto.HeadingEsDTO;
+import com.jornah.utils.MyStringUtil;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
+
+import static com.jornah.utils.MyStringUtil.LineNoFormat;
+import static com.jornah.utils.MyStringUtil.LineNoRegex;
+
+/**
+ * v2 搜索每条命中的后处理。
+ * legacy: 取回整篇正文，正则提取标题，每个片段排序全部标题找所在标题；
+ * outline: 标题大纲在建索引时生成，每个片段二分查找
+ *
+ * @author licong
+ * @date 2026/10/18 18:50
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 2, time = 1)
+@Measurement(iterations = 3, time = 2)
+@Fork(1)
+public class EsHitInfoBenchmark {
+    private static final Pattern LEGACY_LINE_NO = Pattern.compile("(?<=:)\\d+(?=:)");
+    private static final Pattern LEGACY_HEADER = Pattern.compile("(" + LineNoRegex + ")( *#|#).+");
+
+    @Param({"10240", "262144", "2097152"})
+    private int size;
+
+    private String numbered;
+    private List<HeadingEsDTO> headings;
+    /**
+     * 模拟 es 返回的高亮片段，每隔 100 行取一段
+     */
+    private List<String> highlights;
+
+    @Setup
+    public void setup() {
+        numbered = MyStringUtil.generateLineNumberForText(MarkdownSamples.markdown(size), LineNoFormat, true);
+        headings = EsContentService.outline(numbered);
+        highlights = new ArrayList<>();
+        String[] lines = numbered.split("\n");
+        for (int i = 0; i < lines.length && highlights.size() < 10; i += 100) {
+            String line = lines[i];
+            highlights.add(line.substring(0, Math.min(line.length(), 100)).replace("缓存", "<em>缓存</em>"));
+        }
+    }
+
+    /**
+     * 建索引时的开销
+     */
+    @Benchmark
+    public List<HeadingEsDTO> outline() {
+        return EsContentService.outline(numbered);
+    }
+
+    @Benchmark
+    public List<ArticleBodyHitInfo> hitInfoWithOutline() {
+        return EsContentService.generateBodyHitInfo(highlights, headings);
+    }
+
+    @Benchmark
+    public List<ArticleBodyHitInfo> hitInfoLegacy() {
+        return legacyGenerateBodyHitInfo(highlights, legacyGetHeadFromContent(numbered));
+    }
+
+    private static Map<Integer, String> legacyGetHeadFromContent(String content) {
+        List<String> headLines = new ArrayList<>();
+        Matcher matcher = LEGACY_HEADER.matcher(content);
+        while (matcher.find()) {
+            headLines.add(matcher.group());
+        }
+        HashMap<Integer, String> headWithLineNo = new HashMap<>();
+        for (String headLine : headLines) {
+            Matcher lineNo = LEGACY_LINE_NO.matcher(headLine);
+            if (lineNo.find()) {
+                headWithLineNo.put(Integer.parseInt(lineNo.group()), headLine);
+            }
+        }
+        return headWithLineNo;
+    }
+
+    private static List<ArticleBodyHitInfo> legacyGenerateBodyHitInfo(List<String> hitsContext, Map<Integer, String> headLines) {
+        Map<Integer, String> hitWithLineNo = new HashMap<>();
+        for (String ctx : hitsContext) {
+            Matcher matcher = LEGACY_LINE_NO.matcher(ctx);
+            List<Integer> matches = new ArrayList<>();
+            while (matcher.find()) {
+                matches.add(Integer.parseInt(matcher.group()));
+            }
+            if (matches.size() > 0) {
+                hitWithLineNo.put(matches.get(matches.size() - 1), ctx);
+            }
+        }
+        return hitWithLineNo.entrySet().stream().map(entry -> {
+            ArticleBodyHitInfo info = new ArticleBodyHitInfo();
+            Integer lineNo = entry.getKey();
+            Integer underHeadLineKey = headLines.keySet().stream()
+                    .filter(key -> key <= lineNo)
+                    .sorted(Comparator.comparingInt(key -> lineNo - key))
+                    .findFirst().orElse(0);
+            String headLineStr = Optional.ofNullable(headLines.get(underHeadLineKey)).orElse("");
+            info.setUnderHeadOriginal(headLineStr);
+            String regex = LineNoRegex + "|:\\d+|\\d+:";
+            info.setHitContext(Optional.ofNullable(entry.getValue()).map(val -> val.replaceAll(regex, "")).orElse(""));
+            info.setUnderHead(headLineStr.replaceAll("#|" + LineNoRegex, "").trim().replaceAll("\\s", "-"));
+            return info;
+        }).filter(Objects::nonNull).collect(Collectors.toList());
+    }
+}
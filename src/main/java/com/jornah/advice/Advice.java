@@ -46,6 +46,9 @@ public class Advice {
             case TOKEN_EXPIRED:
                 response.setStatus(HttpStatus.UNAUTHORIZED.value());
                 break;
+            case SERVER_BUSY:
+                response.setStatus(HttpStatus.SERVICE_UNAVAILABLE.value());
+                break;
             default:
                 response.setStatus(HttpStatus.FORBIDDEN.value());
         }
@@ -5,21 +5,56 @@
  **/
 package com.jornah.api;
 
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
 import com.google.gson.Gson;
+import com.jornah.configuration.DownstreamExecutors;
 import com.qiniu.common.QiniuException;
 import com.qiniu.common.Zone;
 import com.qiniu.http.Response;
+import com.qiniu.storage.BucketManager;
 import com.qiniu.storage.Configuration;
+import com.qiniu.storage.Recorder;
 import com.qiniu.storage.UploadManager;
 import com.qiniu.storage.model.DefaultPutRet;
+import com.qiniu.storage.persistent.FileRecorder;
 import com.qiniu.util.Auth;
-import org.springframework.web.multipart.MultipartFile;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.binder.BaseUnits;
+import io.micrometer.core.instrument.binder.jvm.ExecutorServiceMetrics;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.commons.lang3.StringUtils;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
 
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.io.File;
 import java.io.IOException;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
 
 /**
  * 七牛文件上传API
+ * <p>
+ * 整个应用共用一个 UploadManager(其中的 http 客户端带连接池)，上传凭证缓存起来，快过期时才重新生成。
+ * 大于 put-threshold 的文件按 4MB 分块上传，已完成的块按文件内容的 md5 记在 recorder-path 下，
+ * 同样内容的文件再次上传时(临时文件、文件名都是新的)从断点继续；上传成功后删除记录，启动时清理超过 recorder-expire-hours 的记录。
+ * 批量上传在有界线程池中并发执行，队列满时由调用线程自己上传。
+ * 每次上传的耗时和字节数记在 upload、upload.size 上(target=qiniu)，上传线程池注册为 executor.* 指标
  */
+@Service
+@Slf4j
 public class QiNiuCloudService {
 
     /**
@@ -36,48 +71,244 @@ public class QiNiuCloudService {
      * 七牛外网访问地址
      */
     public static final String QINIU_UPLOAD_SITE = "qiniuyun.ilearn.space/";
+    private static final String TARGET = "qiniu";
+
+    @Autowired
+    private MeterRegistry meterRegistry;
 
     /**
-     * 上传文件到七牛公共方法
-     * @param file          上传的文件
-     * @param fileName      文件名
-     * @return
+     * 上传地址，为空时用华南区域；本地测试时指向对象存储的桩
      */
-    public static String upload(MultipartFile file, String fileName) {
+    @Value("${qiniu.up-host:}")
+    private String upHost;
+    @Value("${qiniu.upload.parallelism:4}")
+    private int parallelism;
+    @Value("${qiniu.upload.queue-capacity:64}")
+    private int queueCapacity;
+    @Value("${qiniu.upload.put-threshold:4194304}")
+    private int putThreshold;
+    @Value("${qiniu.upload.recorder-path:${java.io.tmpdir}/qiniu-recorder}")
+    private String recorderPath;
+    @Value("${qiniu.upload.recorder-expire-hours:24}")
+    private long recorderExpireHours;
+    @Value("${qiniu.upload.token-expire-seconds:3600}")
+    private long tokenExpireSeconds;
+    @Value("${qiniu.upload.token-renew-seconds:300}")
+    private long tokenRenewSeconds;
+
+    private final Auth auth = Auth.create(ACCESS_KEY, SECRET_KEY);
+    private UploadManager uploadManager;
+    private ContentRecorder recorder;
+    private BucketManager bucketManager;
+    private ThreadPoolExecutor uploadExecutor;
+    private final AtomicLong callerRuns = new AtomicLong();
+    private volatile UpToken upToken;
 
+    @PostConstruct
+    public void init() throws IOException {
         // 构造一个带指定Zone对象的配置类
         // 华东 Zone.zone0()
         // 华北 Zone.zone1()
         // 华南 Zone.zone2()
         // 北美 Zone.zoneNa0()
-        Configuration cfg = new Configuration(Zone.zone2());
-        // 其它参数参考类注释
-        UploadManager uploadManager = new UploadManager(cfg);
-
-        // 默认不指定key的情况下，以文件内容的hash值作为文件名
-        String key = null;
-        Auth auth = Auth.create(ACCESS_KEY, SECRET_KEY);
-        String upToken = auth.uploadToken(BUCKET);
+        Zone zone = StringUtils.isEmpty(upHost) ? Zone.zone2()
+                : new Zone.Builder().upHttp(upHost).upBackupHttp(upHost).upHttps(upHost).upBackupHttps(upHost).build();
+        Configuration cfg = new Configuration(zone);
+        cfg.putThreshold = putThreshold;
+        cfg.dispatcherMaxRequestsPerHost = Math.max(cfg.dispatcherMaxRequestsPerHost, parallelism);
+        cfg.connectionPoolMaxIdleCount = Math.max(cfg.connectionPoolMaxIdleCount, parallelism);
+        this.recorder = new ContentRecorder(new File(recorderPath));
+        recorder.purge(TimeUnit.HOURS.toMillis(recorderExpireHours));
+        this.uploadManager = new UploadManager(cfg, recorder);
+        this.bucketManager = new BucketManager(auth, cfg);
+        this.uploadExecutor = new ThreadPoolExecutor(parallelism, parallelism, 60, TimeUnit.SECONDS,
+                new ArrayBlockingQueue<>(queueCapacity),
+                new ThreadFactoryBuilder().setNameFormat("qiniu-upload-%d").setDaemon(true).build(),
+                (task, executor) -> {
+                    // 停机后不能丢掉任务，否则 future 永远不会完成，请求线程一直等着
+                    if (executor.isShutdown()) {
+                        throw new RejectedExecutionException("qiniu upload executor is shut down");
+                    }
+                    callerRuns.incrementAndGet();
+                    task.run();
+                });
+        this.uploadExecutor.allowCoreThreadTimeOut(true);
+        new ExecutorServiceMetrics(uploadExecutor, "qiniu-upload", Tags.empty()).bindTo(meterRegistry);
+        FunctionCounter.builder("executor.rejected", callerRuns, AtomicLong::get)
+                .tag("name", "qiniu-upload")
+                .register(meterRegistry);
+    }
+
+    @PreDestroy
+    public void destroy() {
+        uploadExecutor.shutdown();
+    }
+
+    /**
+     * 上传文件到七牛公共方法，sdk 按块读本地文件，不会整个读进内存
+     * @param file          上传的文件
+     * @param fileName      文件名
+     * @param md5           文件内容的 md5，分块上传按它记录断点，为空时不能续传
+     * @return 访问地址，失败时返回 null
+     */
+    public String upload(File file, String fileName, String md5) {
+        String outcome = "error";
+        long start = System.nanoTime();
+        recorder.begin(file, md5);
         try {
-            Response response = null;
-            response = uploadManager.put(file.getInputStream(), fileName, upToken,null,null);
+            Response response = uploadManager.put(file, fileName, upToken());
 
             // 解析上传成功的结果
-            DefaultPutRet putRet = new Gson().fromJson(response.bodyString(),DefaultPutRet.class);
-            System.out.println(putRet.key);
-            System.out.println(putRet.hash);
-            return  QINIU_UPLOAD_SITE + putRet.key;
+            DefaultPutRet putRet = new Gson().fromJson(response.bodyString(), DefaultPutRet.class);
+            outcome = "success";
+            return QINIU_UPLOAD_SITE + putRet.key;
+        } catch (QiniuException ex) {
+            log.error("upload {} to qiniu failed: {}", fileName, ex.response, ex);
+        } finally {
+            recorder.end(file);
+            Timer.builder("upload")
+                    .tag("target", TARGET)
+                    .tag("outcome", outcome)
+                    .register(meterRegistry)
+                    .record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+            DistributionSummary.builder("upload.size")
+                    .tag("target", TARGET)
+                    .baseUnit(BaseUnits.BYTES)
+                    .register(meterRegistry)
+                    .record(file.length());
+        }
+        return null;
+    }
+
+    /**
+     * 在上传线程池中上传，批量上传时并发执行
+     */
+    public CompletableFuture<String> uploadAsync(File file, String fileName, String md5) {
+        try {
+            return CompletableFuture.supplyAsync(() -> upload(file, fileName, md5), uploadExecutor);
+        } catch (RejectedExecutionException e) {
+            // 线程池已停止，supplyAsync 直接抛出，这里转成失败的 future，调用方统一处理
+            CompletableFuture<String> failed = new CompletableFuture<>();
+            failed.completeExceptionally(e);
+            return failed;
+        }
+    }
+
+    /**
+     * 上传线程池的状态，rejected 是队列满了由调用线程自己上传的次数
+     */
+    public DownstreamExecutors.Stats executorStats() {
+        return DownstreamExecutors.Stats.of(uploadExecutor, callerRuns.get());
+    }
+
+    /**
+     * 删除七牛上的文件
+     * @param fileName      上传时的文件名
+     * @return 删除失败时返回 false
+     */
+    public boolean delete(String fileName) {
+        try {
+            bucketManager.delete(BUCKET, fileName);
+            return true;
         } catch (QiniuException ex) {
-            Response r = ex.response;
-            System.out.println(r.toString());
-            try {
-                System.out.println(r.bodyString());
-            } catch (QiniuException ex2) {
+            log.error("delete {} from qiniu failed: {}", fileName, ex.response, ex);
+        }
+        return false;
+    }
 
+    /**
+     * 不限定 key 的上传凭证，距离过期不到 token-renew-seconds 时重新生成
+     */
+    private String upToken() {
+        UpToken current = this.upToken;
+        long now = System.currentTimeMillis();
+        if (current == null || now >= current.renewAt) {
+            synchronized (this) {
+                current = this.upToken;
+                if (current == null || now >= current.renewAt) {
+                    String token = auth.uploadToken(BUCKET, null, tokenExpireSeconds, null);
+                    current = new UpToken(token, now + TimeUnit.SECONDS.toMillis(tokenExpireSeconds - tokenRenewSeconds));
+                    this.upToken = current;
+                }
             }
-        } catch (IOException e) {
-            e.printStackTrace();
         }
-        return null;
+        return current.token;
+    }
+
+    /**
+     * 分块上传的断点记录，key 换成文件内容的 md5，不同的临时文件和文件名只要内容相同就能接着传。
+     * sdk 取记录时还要求文件修改时间一致，每次的临时文件都是新建的，所以上传前把修改时间固定下来，内容由 md5 保证
+     */
+    private static final class ContentRecorder implements Recorder {
+        private static final long FIXED_MODIFY_TIME = 0;
+
+        private final File directory;
+        private final FileRecorder records;
+        private final Map<String, String> md5ByPath = new ConcurrentHashMap<>();
+
+        private ContentRecorder(File directory) throws IOException {
+            this.directory = directory;
+            this.records = new FileRecorder(directory);
+        }
+
+        void begin(File file, String md5) {
+            if (StringUtils.isNotEmpty(md5) && file.setLastModified(FIXED_MODIFY_TIME)) {
+                md5ByPath.put(file.getAbsolutePath(), md5);
+            }
+        }
+
+        void end(File file) {
+            md5ByPath.remove(file.getAbsolutePath());
+        }
+
+        /**
+         * 删除很久没有续传的记录
+         */
+        void purge(long expireMillis) {
+            File[] files = directory.listFiles();
+            if (files == null) {
+                return;
+            }
+            long expireBefore = System.currentTimeMillis() - expireMillis;
+            for (File record : files) {
+                if (record.isFile() && record.lastModified() < expireBefore && !record.delete()) {
+                    log.warn("delete stale qiniu upload record {} failed", record);
+                }
+            }
+        }
+
+        @Override
+        public String recorderKeyGenerate(String key, File file) {
+            String md5 = md5ByPath.get(file.getAbsolutePath());
+            return md5 != null ? md5 : records.recorderKeyGenerate(key, file);
+        }
+
+        @Override
+        public void set(String key, byte[] data) {
+            records.set(key, data);
+        }
+
+        @Override
+        public byte[] get(String key) {
+            return records.get(key);
+        }
+
+        /**
+         * 上传成功后 sdk 调用，删除记录
+         */
+        @Override
+        public void del(String key) {
+            records.del(key);
+        }
+    }
+
+    private static final class UpToken {
+        private final String token;
+        private final long renewAt;
+
+        private UpToken(String token, long renewAt) {
+            this.token = token;
+            this.renewAt = renewAt;
+        }
     }
 }
@@ -0,0 +1,169 @@
+package com.jornah.configuration;
+
+import com.google.common.collect.ImmutableMap;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import com.jornah.constant.ExceptionType;
+import com.jornah.exception.BusinessException;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import io.micrometer.core.instrument.binder.jvm.ExecutorServiceMetrics;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+/**
+ * 慢的下游(数据库和 redis、搜索)各用一个有界线程池，开启 async-endpoints.enabled 后，
+ * 搜索、上传、批量元信息、博客信息这几个接口返回 CompletableFuture，在对应的线程池里执行，不占用 tomcat 的请求线程，
+ * 某个下游变慢时只会占满自己的线程池，不影响其他接口。线程池满了直接拒绝，返回 SERVER_BUSY。
+ * <p>
+ * 未开启时(默认)在请求线程里同步执行，返回已完成的 CompletableFuture。运行在 jdk8 上，没有虚拟线程可用。
+ * 线程池状态注册为 executor.* 指标(name=downstream-database/downstream-search)，拒绝数为 executor.rejected
+ *
+ * @author licong
+ * @date 2026/10/19 00:50
+ */
+@Component
+public class DownstreamExecutors implements MeterBinder {
+
+    public enum Downstream {
+        /**
+         * mysql 和 redis，线程数不要超过数据库连接池
+         */
+        DATABASE,
+        SEARCH
+    }
+
+    @Value("${async-endpoints.enabled:false}")
+    private boolean enabled;
+    @Value("${async-endpoints.database.threads:8}")
+    private int databaseThreads;
+    @Value("${async-endpoints.database.queue-capacity:200}")
+    private int databaseQueueCapacity;
+    @Value("${async-endpoints.search.threads:4}")
+    private int searchThreads;
+    @Value("${async-endpoints.search.queue-capacity:100}")
+    private int searchQueueCapacity;
+
+    private final Map<Downstream, BoundedExecutor> executors = new EnumMap<>(Downstream.class);
+
+    @PostConstruct
+    public void init() {
+        executors.put(Downstream.DATABASE, new BoundedExecutor("database", databaseThreads, databaseQueueCapacity));
+        executors.put(Downstream.SEARCH, new BoundedExecutor("search", searchThreads, searchQueueCapacity));
+    }
+
+    @PreDestroy
+    public void destroy() {
+        executors.values().forEach(executor -> executor.pool.shutdown());
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * 未开启时直接在调用线程执行
+     */
+    public Executor executor(Downstream downstream) {
+        return enabled ? executors.get(downstream) : Runnable::run;
+    }
+
+    public <T> CompletableFuture<T> supply(Downstream downstream, Supplier<T> supplier) {
+        if (!enabled) {
+            return CompletableFuture.completedFuture(supplier.get());
+        }
+        return CompletableFuture.supplyAsync(supplier, executors.get(downstream));
+    }
+
+    /**
+     * 未开启时在请求线程等待 future 完成，异常原样抛出
+     */
+    public <T> CompletableFuture<T> settle(CompletableFuture<T> future) {
+        if (enabled) {
+            return future;
+        }
+        try {
+            return CompletableFuture.completedFuture(future.join());
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            throw e;
+        }
+    }
+
+    public Map<String, Stats> stats() {
+        ImmutableMap.Builder<String, Stats> stats = ImmutableMap.builder();
+        executors.values().forEach(executor -> stats.put(executor.name, Stats.of(executor.pool, executor.rejected.get())));
+        return stats.build();
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        executors.values().forEach(executor -> {
+            String name = "downstream-" + executor.name;
+            new ExecutorServiceMetrics(executor.pool, name, Tags.empty()).bindTo(registry);
+            FunctionCounter.builder("executor.rejected", executor.rejected, AtomicLong::get)
+                    .tag("name", name)
+                    .register(registry);
+        });
+    }
+
+    private static final class BoundedExecutor implements Executor {
+        private final String name;
+        private final ThreadPoolExecutor pool;
+        private final AtomicLong rejected = new AtomicLong();
+
+        private BoundedExecutor(String name, int threads, int queueCapacity) {
+            this.name = name;
+            this.pool = new ThreadPoolExecutor(threads, threads, 60, TimeUnit.SECONDS,
+                    new ArrayBlockingQueue<>(queueCapacity),
+                    new ThreadFactoryBuilder().setNameFormat("downstream-" + name + "-%d").setDaemon(true).build());
+            this.pool.allowCoreThreadTimeOut(true);
+        }
+
+        @Override
+        public void execute(Runnable command) {
+            try {
+                pool.execute(command);
+            } catch (RejectedExecutionException e) {
+                rejected.incrementAndGet();
+                throw BusinessException.of(ExceptionType.SERVER_BUSY, "服务繁忙，请稍后重试");
+            }
+        }
+    }
+
+    @Getter
+    @AllArgsConstructor
+    public static class Stats {
+        private final int poolSize;
+        private final int activeCount;
+        private final int maxPoolSize;
+        private final int queued;
+        private final int remainingCapacity;
+        private final long completedTasks;
+        private final long rejected;
+
+        public static Stats of(ThreadPoolExecutor pool, long rejected) {
+            return new Stats(pool.getPoolSize(), pool.getActiveCount(), pool.getMaximumPoolSize(),
+                    pool.getQueue().size(), pool.getQueue().remainingCapacity(), pool.getCompletedTaskCount(), rejected);
+        }
+    }
+}
@@ -0,0 +1,206 @@
+package com.jornah.configuration;
+
+import lombok.extern.slf4j.Slf4j;
+import org.apache.ibatis.executor.keygen.SelectKeyGenerator;
+import org.apache.ibatis.executor.parameter.ParameterHandler;
+import org.apache.ibatis.mapping.BoundSql;
+import org.apache.ibatis.mapping.MappedStatement;
+import org.apache.ibatis.mapping.SqlCommandType;
+import org.apache.ibatis.reflection.ParamNameResolver;
+import org.apache.ibatis.scripting.defaults.DefaultParameterHandler;
+import org.apache.ibatis.session.Configuration;
+import org.apache.ibatis.session.SqlSessionFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Async;
+import org.springframework.stereotype.Component;
+
+import javax.sql.DataSource;
+import java.io.Serializable;
+import java.lang.reflect.Method;
+import java.lang.reflect.ParameterizedType;
+import java.lang.reflect.Type;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Date;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Objects;
+import java.util.TreeMap;
+
+/**
+ * 启动后对每条 mapper 的 select/update/delete 语句执行 EXPLAIN，打印执行计划，有全表扫描(type=ALL)的打警告。
+ * 参数按 mapper 方法的参数类型填充占位值，动态 sql 里的 if 条件都视为成立；EXPLAIN 不会真正执行语句。
+ * 只支持 MySQL，其他数据库跳过
+ *
+ * @author licong
+ * @date 2026/10/18 23:30
+ */
+@Component
+@Slf4j
+@ConditionalOnProperty(value = "explain-check.enabled", havingValue = "true")
+public class ExplainPlanChecker {
+    @Autowired
+    private SqlSessionFactory sqlSessionFactory;
+    @Autowired
+    private DataSource dataSource;
+
+    @Async
+    @EventListener(ApplicationReadyEvent.class)
+    public void check() {
+        Configuration configuration = sqlSessionFactory.getConfiguration();
+        int checked = 0;
+        int fullScans = 0;
+        int skipped = 0;
+        try (Connection connection = dataSource.getConnection()) {
+            if (!"MySQL".equalsIgnoreCase(connection.getMetaData().getDatabaseProductName())) {
+                log.info("explain check skipped, database is {}", connection.getMetaData().getDatabaseProductName());
+                return;
+            }
+            connection.setReadOnly(true);
+            for (MappedStatement statement : statements(configuration).values()) {
+                List<String> plan;
+                String sql;
+                try {
+                    Object parameter = parameterOf(configuration, statement);
+                    BoundSql boundSql = statement.getBoundSql(parameter);
+                    sql = boundSql.getSql().trim().replaceAll("\\s+", " ");
+                    if (!isExplainable(sql)) {
+                        skipped++;
+                        continue;
+                    }
+                    plan = explain(connection, statement, parameter, boundSql, sql);
+                } catch (Exception e) {
+                    skipped++;
+                    log.debug("explain {} skipped: {}", statement.getId(), e.getMessage());
+                    continue;
+                }
+                checked++;
+                log.info("explain {}: {}", statement.getId(), plan);
+                if (plan.stream().anyMatch(row -> row.contains("type=ALL"))) {
+                    fullScans++;
+                    log.warn("full table scan in {}: {}", statement.getId(), sql);
+                }
+            }
+        } catch (SQLException e) {
+            log.warn("explain check failed", e);
+            return;
+        }
+        log.info("explain check done, checked: {}, full scans: {}, skipped: {}", checked, fullScans, skipped);
+    }
+
+    /**
+     * 同一条语句在 configuration 里有全名和短名两个 key，按全名去重、排序
+     */
+    private static Map<String, MappedStatement> statements(Configuration configuration) {
+        Map<String, MappedStatement> statements = new TreeMap<>();
+        for (String name : configuration.getMappedStatementNames()) {
+            if (!name.contains(".") || name.endsWith(SelectKeyGenerator.SELECT_KEY_SUFFIX)) {
+                continue;
+            }
+            MappedStatement statement = configuration.getMappedStatement(name);
+            SqlCommandType type = statement.getSqlCommandType();
+            if (type == SqlCommandType.SELECT || type == SqlCommandType.UPDATE || type == SqlCommandType.DELETE) {
+                statements.put(statement.getId(), statement);
+            }
+        }
+        return statements;
+    }
+
+    /**
+     * 用 @Select 写的 insert 之类的不检查
+     */
+    private static boolean isExplainable(String sql) {
+        String head = sql.toLowerCase(Locale.ROOT);
+        return head.startsWith("select") || head.startsWith("update") || head.startsWith("delete");
+    }
+
+    private static List<String> explain(Connection connection, MappedStatement statement, Object parameter,
+                                        BoundSql boundSql, String sql) throws SQLException {
+        List<String> plan = new ArrayList<>();
+        try (PreparedStatement ps = connection.prepareStatement("EXPLAIN " + sql)) {
+            ParameterHandler parameterHandler = new DefaultParameterHandler(statement, parameter, boundSql);
+            parameterHandler.setParameters(ps);
+            try (ResultSet rs = ps.executeQuery()) {
+                while (rs.next()) {
+                    plan.add(rs.getString("table") + "[type=" + rs.getString("type") + ", key=" + rs.getString("key")
+                            + ", rows=" + rs.getString("rows") + ", extra=" + rs.getString("Extra") + "]");
+                }
+            }
+        }
+        return plan;
+    }
+
+    /**
+     * 按 mapper 方法的参数类型生成占位参数，再按 mybatis 的规则命名
+     */
+    private static Object parameterOf(Configuration configuration, MappedStatement statement)
+            throws ClassNotFoundException {
+        String id = statement.getId();
+        int dot = id.lastIndexOf('.');
+        Class<?> mapper = Class.forName(id.substring(0, dot));
+        String name = id.substring(dot + 1);
+        for (Method method : mapper.getMethods()) {
+            if (method.getName().equals(name) && !method.isBridge()) {
+                Type[] types = method.getGenericParameterTypes();
+                Object[] args = new Object[types.length];
+                for (int i = 0; i < types.length; i++) {
+                    args[i] = placeholderOf(types[i]);
+                }
+                return new ParamNameResolver(configuration, method).getNamedParams(args);
+            }
+        }
+        return null;
+    }
+
+    private static Object placeholderOf(Type type) {
+        Class<?> raw = rawClassOf(type);
+        if (raw == String.class) {
+            return "1";
+        } else if (raw == Long.class || raw == long.class || raw == Serializable.class) {
+            return 1L;
+        } else if (raw == Integer.class || raw == int.class) {
+            return 1;
+        } else if (raw == Boolean.class || raw == boolean.class) {
+            return false;
+        } else if (raw == Instant.class) {
+            return Instant.now();
+        } else if (raw == Date.class) {
+            return new Date();
+        } else if (Collection.class.isAssignableFrom(raw)) {
+            return Collections.singletonList(placeholderOf(typeArgument(type, 0)));
+        } else if (Map.class.isAssignableFrom(raw)) {
+            return Collections.singletonMap(placeholderOf(typeArgument(type, 0)), placeholderOf(typeArgument(type, 1)));
+        }
+        // 实体、Wrapper、泛型参数等不填
+        return null;
+    }
+
+    private static Class<?> rawClassOf(Type type) {
+        if (type instanceof Class) {
+            return (Class<?>) type;
+        } else if (type instanceof ParameterizedType) {
+            return (Class<?>) ((ParameterizedType) type).getRawType();
+        }
+        return Object.class;
+    }
+
+    private static Type typeArgument(Type type, int index) {
+        if (type instanceof ParameterizedType) {
+            Type[] arguments = ((ParameterizedType) type).getActualTypeArguments();
+            if (index < arguments.length && Objects.nonNull(arguments[index])) {
+                return arguments[index];
+            }
+        }
+        return Object.class;
+    }
+}
@@ -0,0 +1,23 @@
+package com.jornah.configuration;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import org.redisson.spring.starter.RedissonAutoConfigurationCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * 指标通过 /actuator/prometheus 暴露，配置见 application.yaml 的 management。
+ * 各层自己记录指标: controller 用 actuator 自带的 http.server.requests，
+ * mapper 语句见 {@link MybatisMetricsInterceptor}，redis 命令见 {@link RedisCommandMetrics}
+ *
+ * @author licong
+ * @date 2026/10/19 01:10
+ */
+@Configuration
+public class MetricsConfig {
+
+    @Bean
+    public RedissonAutoConfigurationCustomizer redisCommandMetricsCustomizer(MeterRegistry meterRegistry) {
+        return config -> config.setNettyHook(new RedisCommandMetrics(meterRegistry));
+    }
+}
@@ -0,0 +1,72 @@
+package com.jornah.configuration;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.apache.ibatis.cache.CacheKey;
+import org.apache.ibatis.executor.Executor;
+import org.apache.ibatis.mapping.BoundSql;
+import org.apache.ibatis.mapping.MappedStatement;
+import org.apache.ibatis.plugin.Interceptor;
+import org.apache.ibatis.plugin.Intercepts;
+import org.apache.ibatis.plugin.Invocation;
+import org.apache.ibatis.plugin.Signature;
+import org.apache.ibatis.session.ResultHandler;
+import org.apache.ibatis.session.RowBounds;
+
+import java.lang.reflect.InvocationTargetException;
+import java.util.Locale;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 每条 mapper 语句的耗时，记在 mybatis.statement 上，
+ * 按 statement(Mapper.method)、command(select/insert/update/delete)、exception 区分
+ *
+ * @author licong
+ * @date 2026/10/19 01:10
+ */
+@Intercepts({
+        @Signature(type = Executor.class, method = "update", args = {MappedStatement.class, Object.class}),
+        @Signature(type = Executor.class, method = "query",
+                args = {MappedStatement.class, Object.class, RowBounds.class, ResultHandler.class}),
+        @Signature(type = Executor.class, method = "query",
+                args = {MappedStatement.class, Object.class, RowBounds.class, ResultHandler.class, CacheKey.class, BoundSql.class})
+})
+public class MybatisMetricsInterceptor implements Interceptor {
+    private final MeterRegistry meterRegistry;
+
+    public MybatisMetricsInterceptor(MeterRegistry meterRegistry) {
+        this.meterRegistry = meterRegistry;
+    }
+
+    @Override
+    public Object intercept(Invocation invocation) throws Throwable {
+        MappedStatement ms = (MappedStatement) invocation.getArgs()[0];
+        String exception = "none";
+        long start = System.nanoTime();
+        try {
+            return invocation.proceed();
+        } catch (InvocationTargetException e) {
+            exception = e.getCause().getClass().getSimpleName();
+            throw e;
+        } catch (Throwable e) {
+            exception = e.getClass().getSimpleName();
+            throw e;
+        } finally {
+            Timer.builder("mybatis.statement")
+                    .tag("statement", statementOf(ms.getId()))
+                    .tag("command", ms.getSqlCommandType().name().toLowerCase(Locale.ROOT))
+                    .tag("exception", exception)
+                    .register(meterRegistry)
+                    .record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        }
+    }
+
+    /**
+     * com.jornah.dao.ArticleDao.selectById -> ArticleDao.selectById
+     */
+    static String statementOf(String id) {
+        int method = id.lastIndexOf('.');
+        int mapper = method > 0 ? id.lastIndexOf('.', method - 1) : -1;
+        return id.substring(mapper + 1);
+    }
+}
@@ -0,0 +1,62 @@
+package com.jornah.configuration;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.netty.bootstrap.Bootstrap;
+import io.netty.channel.Channel;
+import io.netty.channel.ChannelHandler;
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.channel.ChannelOutboundHandlerAdapter;
+import io.netty.channel.ChannelPromise;
+import org.redisson.client.NettyHook;
+import org.redisson.client.protocol.CommandData;
+import org.redisson.client.protocol.CommandsData;
+import org.redisson.misc.RPromise;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * redis 命令耗时，记在 redis.commands 上，按 command、outcome 区分，pipeline 批量执行的 command 为 batch。
+ * 挂在 redisson 每个连接的 netty pipeline 上，从写出命令计时到收到响应；
+ * StringRedisTemplate 也经过 redisson 的连接(RedissonConnectionFactory)，同样会被记录
+ *
+ * @author licong
+ * @date 2026/10/19 01:10
+ */
+@ChannelHandler.Sharable
+public class RedisCommandMetrics extends ChannelOutboundHandlerAdapter implements NettyHook {
+    private final MeterRegistry meterRegistry;
+
+    public RedisCommandMetrics(MeterRegistry meterRegistry) {
+        this.meterRegistry = meterRegistry;
+    }
+
+    @Override
+    public void afterBoostrapInitialization(Bootstrap bootstrap) {
+    }
+
+    @Override
+    public void afterChannelInitialization(Channel channel) {
+        channel.pipeline().addLast(this);
+    }
+
+    @Override
+    public void write(ChannelHandlerContext ctx, Object msg, ChannelPromise promise) throws Exception {
+        if (msg instanceof CommandData) {
+            CommandData<?, ?> command = (CommandData<?, ?>) msg;
+            record(command.getCommand().getName(), command.getPromise());
+        } else if (msg instanceof CommandsData) {
+            record("batch", ((CommandsData) msg).getPromise());
+        }
+        super.write(ctx, msg, promise);
+    }
+
+    private void record(String command, RPromise<?> response) {
+        long start = System.nanoTime();
+        response.onComplete((result, e) -> Timer.builder("redis.commands")
+                .tag("command", command)
+                .tag("outcome", e == null ? "success" : "error")
+                .register(meterRegistry)
+                .record(System.nanoTime() - start, TimeUnit.NANOSECONDS));
+    }
+}
@@ -14,7 +14,9 @@ public enum ExceptionType {
     INVALID_PASSWORD(102),
     TOO_MANY_REQUESTS(103),
     BAD_VERSION(104),
-    BAD_PASSPHRASE(105);
+    BAD_PASSPHRASE(105),
+    BAD_CURSOR(106),
+    SERVER_BUSY(107);
 
 
     private final int code;
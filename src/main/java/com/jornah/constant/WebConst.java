@@ -45,11 +45,6 @@ public class WebConst {
      */
     public static final int MAX_CONTENT_COUNT = 200000;
 
-    /**
-     * 点击数缓冲区,达到缓冲区才刷新到数据库
-     */
-    public static final int HIT_BUFFER_SIZE = 1;
-
     /**
      * 上传文件最大1M
      */
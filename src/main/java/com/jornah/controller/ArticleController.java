@@ -1,11 +1,14 @@
 package com.jornah.controller;
 
 
+import com.fasterxml.jackson.databind.ObjectMapper;
 import com.github.pagehelper.PageInfo;
 import com.google.common.collect.ImmutableMap;
 import com.google.common.collect.Lists;
 import com.jornah.anno.AccessControl;
 import com.jornah.cache.CacheService;
+import com.jornah.configuration.DownstreamExecutors;
+import com.jornah.configuration.DownstreamExecutors.Downstream;
 import com.jornah.model.DraftStatus;
 import com.jornah.model.dto.ArticleSaveBo;
 import com.jornah.model.entity.Article;
@@ -14,14 +17,23 @@ import com.jornah.model.qo.ArticleBatchQo;
 import com.jornah.model.qo.ArticleQo;
 import com.jornah.model.vo.ArticleMetaInfo;
 import com.jornah.model.vo.ArticleVo;
+import com.jornah.model.vo.CursorPage;
 import com.jornah.service.ConfigService;
 import com.jornah.service.DraftService;
+import com.jornah.service.article.ArticleChangeNotifier;
 import com.jornah.service.article.ArticleService;
+import com.jornah.service.article.PassphraseAttemptLimiter;
+import com.jornah.service.article.render.RenderedArticleCache;
 import com.jornah.utils.APIResponse;
+import com.jornah.utils.HttpCacheHelper;
+import com.jornah.utils.IPKit;
+import com.jornah.utils.WebRequestHelper;
 import io.swagger.annotations.Api;
 import io.swagger.annotations.ApiOperation;
+import lombok.SneakyThrows;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.validation.annotation.Validated;
 import org.springframework.web.bind.annotation.CrossOrigin;
 import org.springframework.web.bind.annotation.DeleteMapping;
@@ -33,8 +45,17 @@ import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
 
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Supplier;
+
+import static com.jornah.model.enums.ArticleStatus.PUBLISHED;
 
 @RestController()
 @RequestMapping("/blog/article")
@@ -50,6 +71,18 @@ public class ArticleController extends BaseController {
     private DraftService draftService;
     @Autowired
     private CacheService cacheService;
+    @Autowired
+    private ArticleChangeNotifier articleChangeNotifier;
+    @Autowired
+    private RenderedArticleCache renderedArticleCache;
+    @Autowired
+    private ObjectMapper objectMapper;
+    @Autowired
+    private DownstreamExecutors downstreamExecutors;
+    @Autowired
+    private PassphraseAttemptLimiter passphraseAttemptLimiter;
+    @Value("${article.list.max-page-size:50}")
+    private int maxPageSize;
 
     @ApiOperation("保存或更新")
     @PostMapping(value = "/saveOrUpdate")
@@ -59,13 +92,108 @@ public class ArticleController extends BaseController {
         return APIResponse.success(ImmutableMap.of("id", ret));
     }
 
-    @ApiOperation("查询单个文档")
+    @ApiOperation("查询单个文档，支持 If-None-Match / If-Modified-Since")
     @GetMapping(value = "/{id}")
-    public APIResponse<ArticleVo> getArticle(@PathVariable Long id, @RequestParam(required = false) String passphrase) {
+    public APIResponse<ArticleVo> getArticle(@PathVariable Long id, @RequestParam(required = false) String passphrase,
+                                             HttpServletRequest request, HttpServletResponse response) throws IOException {
+        // 先只查版本信息，客户端缓存仍有效时不读 content。加密文章的内容取决于口令，不参与缓存
+        Article version = articleService.getArticleVersion(id);
+        if (Objects.nonNull(version) && !isVisible(version)) {
+            // 游客看不到草稿和已删除的文章，与不存在时一样返回，不带 ETag、Last-Modified
+            HttpCacheHelper.noStore(response);
+            return APIResponse.success(null);
+        }
+        if (Objects.nonNull(version) && !version.isEncryptEnable()) {
+            String etag = etagOf(version);
+            if (HttpCacheHelper.checkNotModified(request, response, etag,
+                    Objects.isNull(version.getUpdated()) ? -1 : version.getUpdated().toEpochMilli())) {
+                countHit(id, request);
+                return null;
+            }
+            if (PUBLISHED.getValue().equals(version.getStatus())) {
+                writeRendered(id, etag, request, response);
+                countHit(id, request);
+                return null;
+            }
+        } else {
+            HttpCacheHelper.noStore(response);
+        }
+        // 每次尝试口令都要派生一次密钥，按 ip 限制失败次数
+        boolean tryPassphrase = Objects.nonNull(version) && version.isEncryptEnable() && Objects.nonNull(passphrase);
+        String ip = tryPassphrase ? IPKit.getIpAddressByRequest(request) : null;
+        if (tryPassphrase) {
+            passphraseAttemptLimiter.check(ip);
+        }
         ArticleVo articleVo = articleService.getArticleBy(id, passphrase);
+        if (tryPassphrase && Objects.nonNull(articleVo) && !articleVo.isDecryptSuccess()) {
+            passphraseAttemptLimiter.recordFailure(ip);
+        }
+        if (Objects.nonNull(articleVo)) {
+            countHit(id, request);
+        }
         return APIResponse.success(articleVo);
     }
 
+    /**
+     * 已发布的文章所有人可见，其余只有登录用户可见
+     */
+    private static boolean isVisible(Article version) {
+        return PUBLISHED.getValue().equals(version.getStatus()) || !WebRequestHelper.getCurrentUserInfo().isTourist();
+    }
+
+    /**
+     * 已发布文章直接输出缓存的响应体，客户端支持时输出 gzip 后的
+     */
+    private void writeRendered(Long id, String etag, HttpServletRequest request, HttpServletResponse response)
+            throws IOException {
+        Supplier<byte[]> render = () -> render(id);
+        if (HttpCacheHelper.acceptsGzip(request)) {
+            HttpCacheHelper.writeJson(response, renderedArticleCache.gzip(id, etag, render), true);
+        } else {
+            HttpCacheHelper.writeJson(response, renderedArticleCache.json(id, etag, render), false);
+        }
+    }
+
+    @SneakyThrows
+    private byte[] render(Long id) {
+        return objectMapper.writeValueAsBytes(APIResponse.success(articleService.getArticleBy(id, null)));
+    }
+
+    private void countHit(Long id, HttpServletRequest request) {
+        if (!articleService.isFromSameIp(id, request)) {
+            articleService.updateArticleHits(id);
+        }
+    }
+
+    /**
+     * 删除只改 status，不改 version 和 updated。阅读数不参与，304 时客户端显示的是缓存时的阅读数
+     */
+    private static String etagOf(Article version) {
+        return "\"a" + version.getId() + "-" + version.getVersion() + "-"
+                + (Objects.isNull(version.getUpdated()) ? 0 : version.getUpdated().toEpochMilli()) + "-"
+                + version.getStatus() + "\"";
+    }
+
+    @ApiOperation("分页查询文档，GET 形式，支持 If-None-Match")
+    @GetMapping(value = "/list")
+    public APIResponse<PageInfo<ArticleVo>> getArticleList(@RequestParam(defaultValue = "1") int pageNum,
+                                                           @RequestParam(defaultValue = "10") int pageSize,
+                                                           @RequestParam(required = false) Long byTag,
+                                                           @RequestParam(required = false) Long byCate,
+                                                           HttpServletRequest request, HttpServletResponse response) {
+        // 列表只随文章、标签、分类的变更而变，用全站内容代数作为 ETag，游客和登录用户看到的不同
+        String etag = "\"l" + articleChangeNotifier.generation() + "-"
+                + (WebRequestHelper.getCurrentUserInfo().isTourist() ? "t" : "u") + "\"";
+        if (HttpCacheHelper.checkNotModified(request, response, etag, -1)) {
+            return null;
+        }
+        Map<String, Long> queryKeyColumns = new HashMap<>(4);
+        queryKeyColumns.put("byTag", byTag);
+        queryKeyColumns.put("byCate", byCate);
+        return getArticleList(ArticleQo.builder().queryKeyColumns(queryKeyColumns)
+                .pageNum(Math.max(pageNum, 1)).pageSize(Math.min(Math.max(pageSize, 5), maxPageSize)).build());
+    }
+
     @ApiOperation("分页查询文档")
     @PostMapping(value = "/list")
     public APIResponse<PageInfo<ArticleVo>> getArticleList(@RequestBody @Validated ArticleQo qo) {
@@ -83,6 +211,17 @@ public class ArticleController extends BaseController {
     }
 
 
+    @ApiOperation("游标分页查询文档，适合无限滚动，翻到多深都只查一页")
+    @GetMapping(value = "/scroll")
+    public APIResponse<CursorPage<ArticleVo>> scrollArticles(@RequestParam(required = false) String cursor,
+                                                             @RequestParam(defaultValue = "10") int size,
+                                                             @RequestParam(required = false) Long byTag,
+                                                             @RequestParam(required = false) Long byCate,
+                                                             @RequestParam(defaultValue = "false") boolean withTotal) {
+        int pageSize = Math.min(Math.max(size, 1), maxPageSize);
+        return APIResponse.success(articleService.scrollArticles(byTag, byCate, cursor, pageSize, withTotal));
+    }
+
     @ApiOperation("推荐文章列表")
     @GetMapping(value = "/list/recommended")
     public APIResponse<List<ArticleVo>> listRecommendArticle(@RequestParam Integer size) {
@@ -116,14 +255,16 @@ public class ArticleController extends BaseController {
 
     @ApiOperation("batch 获取文章信息，分类，标签，评论等")
     @PostMapping("/meta/batch")
-    public APIResponse<List<ArticleMetaInfo>> getMetaInfo(@RequestBody ArticleBatchQo batchQo) {
-        return APIResponse.success(articleService.batchGetArticleMetaInfo(batchQo.getArticleIdList()));
+    public CompletableFuture<APIResponse<List<ArticleMetaInfo>>> getMetaInfo(@RequestBody ArticleBatchQo batchQo) {
+        return downstreamExecutors.supply(Downstream.DATABASE,
+                () -> APIResponse.success(articleService.batchGetArticleMetaInfo(batchQo.getArticleIdList())));
     }
 
     @ApiOperation("获取上一篇或下一篇文章 id")
     @GetMapping("/nextOrLast")
     public APIResponse<?> getNextOrLastArticle(@RequestParam Long articleId, @RequestParam boolean next,
-                                               @RequestParam String byType) {
-        return APIResponse.success(articleService.getNextOrLastArticle(articleId, next, byType));
+                                               @RequestParam String byType,
+                                               @RequestParam(required = false) Long metaId) {
+        return APIResponse.success(articleService.getNextOrLastArticle(articleId, next, byType, metaId));
     }
 }
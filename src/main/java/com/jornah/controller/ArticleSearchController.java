@@ -1,62 +1,88 @@
 package com.jornah.controller;
 
-import com.google.gson.Gson;
-import com.google.gson.GsonBuilder;
-import com.jornah.controller.BaseController;
+import com.jornah.anno.AccessControl;
+import com.jornah.configuration.DownstreamExecutors;
+import com.jornah.configuration.DownstreamExecutors.Downstream;
 import com.jornah.model.dto.ArticleHitInfo;
 import com.jornah.model.dto.ArticleSearchRequest;
 import com.jornah.model.dto.SearchResult;
-import com.jornah.service.es.EsContentService;
+import com.jornah.model.dto.Suggestion;
+import com.jornah.service.article.suggest.ArticleSuggestIndex;
+import com.jornah.service.es.EsOutboxDispatcher;
+import com.jornah.service.es.SearchEngines;
+import com.jornah.service.es.SearchResultCache;
 import com.jornah.utils.APIResponse;
 import io.swagger.annotations.Api;
 import io.swagger.annotations.ApiOperation;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.web.bind.annotation.CrossOrigin;
+import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
 
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
 
 @RequestMapping("/blog/article")
 @RestController
 @CrossOrigin
 @Api("文章搜索")
 public class ArticleSearchController extends BaseController {
+    private static final int MAX_SUGGEST = 50;
 
     @Autowired
-    private EsContentService esContentService;
+    private SearchEngines searchEngines;
+    @Autowired
+    private EsOutboxDispatcher esOutboxDispatcher;
+    @Autowired
+    private SearchResultCache searchResultCache;
+    @Autowired
+    private ArticleSuggestIndex articleSuggestIndex;
+    @Autowired
+    private DownstreamExecutors downstreamExecutors;
 
     @PostMapping("/search")
     @ApiOperation("v1 search")
-    public APIResponse<List<SearchResult>> search(ArticleSearchRequest request) {
-        List<SearchResult> res = doSearch(request);
-        return APIResponse.success(res);
+    public CompletableFuture<APIResponse<List<SearchResult>>> search(ArticleSearchRequest request) {
+        return downstreamExecutors.supply(Downstream.SEARCH, () -> APIResponse.success(doSearch(request)));
     }
     @PostMapping("/v2/search")
     @ApiOperation("v2 search")
-    public APIResponse<List<ArticleHitInfo>> searchWithAnchor(@RequestBody ArticleSearchRequest request) {
-        List<ArticleHitInfo> res = doV2Search(request);
-        return APIResponse.success(res);
+    public CompletableFuture<APIResponse<List<ArticleHitInfo>>> searchWithAnchor(@RequestBody ArticleSearchRequest request) {
+        return downstreamExecutors.supply(Downstream.SEARCH, () -> APIResponse.success(doV2Search(request)));
+    }
+
+    @GetMapping("/suggest")
+    @ApiOperation("搜索框输入提示，标题、标签、分类名按前缀或拼音首字母补全")
+    public APIResponse<List<Suggestion>> suggest(@RequestParam String prefix,
+                                                 @RequestParam(defaultValue = "10") int limit) {
+        return APIResponse.success(articleSuggestIndex.suggest(prefix, Math.min(limit, MAX_SUGGEST)));
+    }
+
+    @GetMapping("/search/outbox")
+    @ApiOperation("es 发件箱积压情况")
+    @AccessControl
+    public APIResponse<EsOutboxDispatcher.Stats> outboxStats() {
+        return APIResponse.success(esOutboxDispatcher.stats());
     }
 
     // 如果有必要 要抽取到Service层中
     private List<SearchResult> doSearch(ArticleSearchRequest request) {
-        Gson gson = new GsonBuilder().serializeSpecialFloatingPointValues().create();
         String inputStr = request.getSearchStr();
         int pageNum = request.getPageNum() <= 0 ? 1 : request.getPageNum();
         int pageSize = request.getPageSize() <= 0 ? 5 : request.getPageSize();
-        List<SearchResult> res = esContentService.findByContentOrTitle(inputStr, pageNum, pageSize);
-        return res;
+        return searchResultCache.get("v1", inputStr, pageNum, pageSize,
+                () -> searchEngines.findByContentOrTitle(inputStr, pageNum, pageSize));
     }
     private List<ArticleHitInfo> doV2Search(ArticleSearchRequest request) {
-        Gson gson = new GsonBuilder().serializeSpecialFloatingPointValues().create();
         String inputStr = request.getSearchStr();
         int pageNum = request.getPageNum() <= 0 ? 1 : request.getPageNum();
         int pageSize = request.getPageSize() <= 0 ? 5 : request.getPageSize();
-        List<ArticleHitInfo> withAnchorByContentOrTitle = esContentService.findWithAnchorByContentOrTitle(inputStr, pageNum, pageSize);
-        return withAnchorByContentOrTitle;
+        return searchResultCache.get("v2", inputStr, pageNum, pageSize,
+                () -> searchEngines.findWithAnchorByContentOrTitle(inputStr, pageNum, pageSize));
     }
 
 }
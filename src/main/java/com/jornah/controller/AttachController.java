@@ -1,11 +1,12 @@
 package com.jornah.controller;
 
 import com.jornah.api.QiNiuCloudService;
+import com.jornah.configuration.DownstreamExecutors;
+import com.jornah.configuration.DownstreamExecutors.Downstream;
 import com.jornah.constant.ErrorConstant;
 import com.jornah.constant.LogActions;
 import com.jornah.constant.AttachType;
 import com.jornah.constant.WebConst;
-import com.jornah.dao.AttachDao;
 import com.jornah.exception.BusinessException;
 import com.jornah.model.UserInfo;
 import com.jornah.model.entity.Attach;
@@ -14,13 +15,12 @@ import com.jornah.model.dto.AttachDto;
 import com.jornah.service.attach.AttachService;
 import com.jornah.service.log.LogService;
 import com.jornah.utils.APIResponse;
+import com.jornah.utils.SpooledUpload;
 import com.jornah.utils.TaleUtils;
 import com.jornah.utils.WebRequestHelper;
 import io.swagger.annotations.Api;
 import io.swagger.annotations.ApiOperation;
 import io.swagger.annotations.ApiParam;
-import org.apache.commons.codec.digest.DigestUtils;
-import org.apache.tomcat.util.buf.HexUtils;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -35,9 +35,13 @@ import org.springframework.web.multipart.MultipartFile;
 import javax.servlet.http.HttpServletRequest;
 import javax.servlet.http.HttpSession;
 import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Path;
+import java.nio.file.Paths;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
 
 @Api("文件管理")
 @RestController
@@ -49,43 +53,57 @@ public class AttachController extends BaseController {
 
     public static final String CLASSPATH = TaleUtils.getUploadFilePath();
 
+    private static final Path UPLOAD_TEMP_DIR = Paths.get(System.getProperty("java.io.tmpdir"), "blog-attach");
+
     @Autowired
     private AttachService attAchService;
-    @Autowired
-    private AttachDao attachDao;
 
     @Autowired
     private LogService logService;
+    @Autowired
+    private QiNiuCloudService qiNiuCloudService;
+    @Autowired
+    private DownstreamExecutors downstreamExecutors;
 
 
     @ApiOperation("小文件上传")
     @PostMapping(value = "/upload")
-    public APIResponse<String> fileUpload(HttpServletRequest request, @RequestParam(name = "file") MultipartFile file) {
+    public CompletableFuture<APIResponse<String>> fileUpload(HttpServletRequest request, @RequestParam(name = "file") MultipartFile file) {
         return this.uploadFiles(request, new MultipartFile[]{file});
     }
 
 
     @ApiOperation("多文件上传")
     @PostMapping(value = "upload-files")
-    public APIResponse<String> uploadFiles(
+    public CompletableFuture<APIResponse<String>> uploadFiles(
             HttpServletRequest request,
             @ApiParam(name = "file", value = "文件数组", required = true)
             @RequestParam(name = "file") MultipartFile[] files) {
+        // 只读一遍上传流: 写临时文件的同时算 md5，类型看文件头；之后各个文件从临时文件并发上传
+        List<SpooledUpload> uploads = new ArrayList<>(files.length);
+        List<CompletableFuture<String>> fileUrls = new ArrayList<>(files.length);
+        List<Attach> attaches = new ArrayList<>(files.length);
+        // 这次请求已经拿到的引用，整批失败时还回去
+        List<Attach> retained = new ArrayList<>(files.length);
+        CompletableFuture<APIResponse<String>> result = null;
         try {
-            List<String> fileUrlList = new ArrayList<>();
             for (MultipartFile file : files) {
-                byte[] bytes = DigestUtils.md5(file.getInputStream());
-                String md5 = HexUtils.toHexString(bytes);
-                Attach byMd5 = attachDao.findByMd5(md5);
+                SpooledUpload upload;
+                try (InputStream in = file.getInputStream()) {
+                    upload = SpooledUpload.spool(in, UPLOAD_TEMP_DIR);
+                }
+                uploads.add(upload);
+                String md5 = upload.getMd5();
+                Attach byMd5 = attAchService.retainByMd5(md5);
                 if (Objects.nonNull(byMd5)) {
-                    fileUrlList.add(byMd5.getFkey());
+                    retained.add(byMd5);
+                    fileUrls.add(CompletableFuture.completedFuture(byMd5.getFkey()));
+                    attaches.add(null);
                     continue;
                 }
 
                 String fileName = TaleUtils.getFileKey(file.getOriginalFilename().replaceFirst("/", ""));
-
-                String fileUrl = QiNiuCloudService.upload(file, fileName);
-                fileUrlList.add(fileUrl);
+                fileUrls.add(qiNiuCloudService.uploadAsync(upload.getFile().toFile(), fileName, md5));
 
                 Attach attach = new Attach();
                 HttpSession session = request.getSession();
@@ -93,20 +111,69 @@ public class AttachController extends BaseController {
                 if (Objects.nonNull(sessionUser)) {
 //                    attach.setAuthorId(sessionUser.getUid());
                 }
-                attach.setFtype(TaleUtils.isImage(file.getInputStream()) ? AttachType.IMAGE.getType() : AttachType.FILE.getType());
+                attach.setFtype(upload.isImage() ? AttachType.IMAGE.getType() : AttachType.FILE.getType());
                 attach.setFname(fileName);
                 attach.setFkey(QiNiuCloudService.QINIU_UPLOAD_SITE + fileName);
-                attAchService.addAttach(attach);
+                attach.setMd5(md5);
+                attaches.add(attach);
             }
-            String result = String.join(",", fileUrlList);
-            return APIResponse.success(result);
+
+            // 全部上传完后再入库，异步模式下等待上传时不占用请求线程
+            result = CompletableFuture.allOf(fileUrls.toArray(new CompletableFuture[0]))
+                    .thenApplyAsync(ignored -> APIResponse.success(addAttaches(fileUrls, attaches, retained)),
+                            downstreamExecutors.executor(Downstream.DATABASE));
+            result.whenComplete((response, e) -> {
+                uploads.forEach(this::deleteQuietly);
+                if (Objects.nonNull(e)) {
+                    releaseQuietly(retained);
+                }
+            });
+            return downstreamExecutors.settle(result);
 
         } catch (IOException e) {
             e.printStackTrace();
             throw BusinessException.of(ErrorConstant.Att.ADD_NEW_ATT_FAIL);
 
+        } finally {
+            if (Objects.isNull(result)) {
+                uploads.forEach(this::deleteQuietly);
+                releaseQuietly(retained);
+            }
+        }
+
+    }
+
+    private String addAttaches(List<CompletableFuture<String>> fileUrls, List<Attach> attaches, List<Attach> retained) {
+        List<String> fileUrlList = new ArrayList<>(fileUrls.size());
+        for (int i = 0; i < fileUrls.size(); i++) {
+            String fileUrl = fileUrls.get(i).join();
+            // 上传失败的不记录；同时上传了相同内容的，用先入库的那个
+            if (Objects.nonNull(attaches.get(i)) && Objects.nonNull(fileUrl)) {
+                Attach recorded = attAchService.addAttach(attaches.get(i));
+                retained.add(recorded);
+                fileUrl = recorded.getFkey();
+            }
+            fileUrlList.add(fileUrl);
         }
+        return String.join(",", fileUrlList);
+    }
 
+    private void releaseQuietly(List<Attach> retained) {
+        for (Attach attach : retained) {
+            try {
+                attAchService.releaseAttach(attach);
+            } catch (Exception e) {
+                LOGGER.warn("release attach {} failed", attach.getId(), e);
+            }
+        }
+    }
+
+    private void deleteQuietly(SpooledUpload upload) {
+        try {
+            upload.close();
+        } catch (IOException e) {
+            LOGGER.warn("delete upload temp file {} failed", upload.getFile(), e);
+        }
     }
 
     @ApiOperation("删除文件")
@@ -1,5 +1,8 @@
 package com.jornah.controller;
 
+import com.jornah.anno.AccessControl;
+import com.jornah.service.article.render.RenderedArticleCache;
+import com.jornah.utils.OffHeapLruCache;
 import io.swagger.annotations.ApiOperation;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.data.redis.core.RedisCallback;
@@ -27,6 +30,8 @@ import java.util.Set;
 public class CacheController {
     @Autowired
     private StringRedisTemplate redisTemplate;
+    @Autowired
+    private RenderedArticleCache renderedArticleCache;
 
     @GetMapping("/get/{key}")
     @ApiOperation("缓存")
@@ -41,6 +46,13 @@ public class CacheController {
         redisTemplate.opsForValue().set(key,value);
     }
 
+    @GetMapping("/rendered/stats")
+    @ApiOperation("堆外文章响应体缓存的大小、命中率、淘汰数")
+    @AccessControl
+    public Map<String, OffHeapLruCache.Stats> renderedStats() {
+        return renderedArticleCache.stats();
+    }
+
     @GetMapping("/cache/flush")
     @ApiOperation("缓存")
     public Map<String,String> cleanAllCache() {
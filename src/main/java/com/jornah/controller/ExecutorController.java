@@ -0,0 +1,36 @@
+package com.jornah.controller;
+
+import com.jornah.anno.AccessControl;
+import com.jornah.api.QiNiuCloudService;
+import com.jornah.configuration.DownstreamExecutors;
+import com.jornah.utils.APIResponse;
+import io.swagger.annotations.Api;
+import io.swagger.annotations.ApiOperation;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.web.bind.annotation.CrossOrigin;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+@Api("线程池")
+@RestController
+@RequestMapping("/admin/executor")
+@CrossOrigin
+public class ExecutorController extends BaseController {
+    @Autowired
+    private DownstreamExecutors downstreamExecutors;
+    @Autowired
+    private QiNiuCloudService qiNiuCloudService;
+
+    @GetMapping("/stats")
+    @ApiOperation("各下游线程池的线程数、排队数、拒绝数")
+    @AccessControl
+    public APIResponse<Map<String, DownstreamExecutors.Stats>> stats() {
+        Map<String, DownstreamExecutors.Stats> stats = new LinkedHashMap<>(downstreamExecutors.stats());
+        stats.put("object-store", qiNiuCloudService.executorStats());
+        return APIResponse.success(stats);
+    }
+}
@@ -1,18 +1,17 @@
 package com.jornah.controller;
 
 import com.google.common.collect.ImmutableMap;
-import com.google.common.collect.Lists;
+import com.jornah.configuration.DownstreamExecutors;
 import com.jornah.model.converter.UserConverter;
-import com.jornah.model.entity.Config;
 import com.jornah.model.entity.User;
 import com.jornah.model.qo.LoginQo;
 import com.jornah.model.qo.ReadRecord;
 import com.jornah.model.vo.SiteInfo;
 import com.jornah.model.vo.UserVo;
-import com.jornah.service.ConfigService;
-import com.jornah.service.MetaInfoService;
+import com.jornah.service.site.SiteInfoCache;
 import com.jornah.service.user.UserService;
 import com.jornah.utils.APIResponse;
+import com.jornah.utils.HttpCacheHelper;
 import com.jornah.utils.JwtUtil;
 import io.swagger.annotations.Api;
 import io.swagger.annotations.ApiOperation;
@@ -25,9 +24,12 @@ import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RestController;
 
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
 import java.time.Instant;
 import java.time.temporal.ChronoUnit;
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
 
 @Api("用户接口")
 @RestController
@@ -35,13 +37,12 @@ import java.util.List;
 @CrossOrigin
 public class UserController extends BaseController {
 
-    public static final String INDEX_STATS = "index_stats";
     @Autowired
     private UserService userService;
     @Autowired
-    private MetaInfoService metaInfoService;
+    private SiteInfoCache siteInfoCache;
     @Autowired
-    private ConfigService configService;
+    private DownstreamExecutors downstreamExecutors;
 
 
     @ApiOperation("登录")
@@ -57,23 +58,16 @@ public class UserController extends BaseController {
         return APIResponse.success(userVo);
     }
 
-    @ApiOperation("博客信息")
+    @ApiOperation("博客信息，支持 If-None-Match")
     @GetMapping(value = "/info")
-    public APIResponse<SiteInfo> info() {
-        // 调用Service登录方法
-        User ownerInfo = userService.getById(1L);
-        UserVo userVo = UserConverter.INSTANCE.toVo(ownerInfo);
-
-        Config config = configService.getConfigByKey(INDEX_STATS);
-        List<String> statsInfoList = Lists.newArrayList(config.getValue1(), config.getValue2(),
-                config.getValue3(), config.getValue4());
-
-        SiteInfo siteInfo = SiteInfo.from(
-                userVo,
-                metaInfoService.getAllCategory(),
-                metaInfoService.getAllTag(),
-                statsInfoList);
-        return APIResponse.success(siteInfo);
+    public CompletableFuture<APIResponse<SiteInfo>> info(HttpServletRequest request, HttpServletResponse response) {
+        // 内存里的快照，只有启动后第一次请求要等待加载
+        return downstreamExecutors.settle(siteInfoCache.get().thenApply(snapshot -> {
+            if (HttpCacheHelper.checkNotModified(request, response, snapshot.getEtag(), -1)) {
+                return null;
+            }
+            return APIResponse.success(snapshot.getSiteInfo());
+        }));
     }
 
     @ApiOperation("注销登录")
@@ -8,12 +8,16 @@ package com.jornah.dao;
 import com.baomidou.mybatisplus.core.mapper.BaseMapper;
 import com.jornah.model.entity.Article;
 import org.apache.ibatis.annotations.Mapper;
+import org.apache.ibatis.annotations.Options;
 import org.apache.ibatis.annotations.Param;
 import org.apache.ibatis.annotations.Select;
 import org.apache.ibatis.annotations.Update;
+import org.apache.ibatis.cursor.Cursor;
 import org.springframework.stereotype.Repository;
 
+import java.time.Instant;
 import java.util.List;
+import java.util.Map;
 
 /**
  * 文章相关Dao接口
@@ -25,8 +29,19 @@ public interface ArticleDao extends BaseMapper<Article> {
     @Update("update article set status=#{status} where id =#{id}")
     void updateStatusById(Long id, String status);
 
-    @Update("update article set hits=#{hits} where cid =#{id}")
-    void updateHitsById(int id, long hits);
+    @Update("update article set hits=#{hits} where id =#{id}")
+    void updateHitsById(@Param("id") Long id, @Param("hits") long hits);
+
+    /**
+     * 一条语句批量累加阅读数
+     *
+     * @param deltas key=文章id, value=增量
+     */
+    @Update("<script>update article set hits = ifnull(hits, 0) + case id " +
+            "<foreach collection='deltas' index='id' item='delta'>when #{id} then #{delta} </foreach>" +
+            "else 0 end where id in " +
+            "<foreach collection='deltas' index='id' item='delta' open='(' separator=',' close=')'>#{id}</foreach></script>")
+    void incrementHits(@Param("deltas") Map<Long, Long> deltas);
 
     @Select("select * from article where status='PUBLISH' and recommend_level > 0  order by recommend_level desc , updated desc limit #{size}")
     List<Article> findByRecommend(@Param("size") int size);
@@ -37,9 +52,59 @@ public interface ArticleDao extends BaseMapper<Article> {
 
     List<Article> findArticlesByStatus( @Param("statusList") List<String> statusList);
 
+    /**
+     * 键集分页，取 (coalesce(updated, created), id) 在游标之前的文章，按它倒序
+     *
+     * @param tagId   为空时不按标签过滤
+     * @param cateId  为空时不按分类过滤
+     * @param updated 游标，为空时从第一篇开始，见 {@link com.jornah.model.dto.ArticleCursor#of}
+     */
+    List<Article> findArticlesBefore(@Param("tagId") Long tagId, @Param("cateId") Long cateId,
+                                     @Param("statusList") List<String> statusList,
+                                     @Param("updated") Instant updated, @Param("id") Long id, @Param("limit") int limit);
+
+    long countArticles(@Param("tagId") Long tagId, @Param("cateId") Long cateId,
+                       @Param("statusList") List<String> statusList);
+
     @Select("select * from article")
     List<Article> findAll();
 
-    @Select("select a.id from article a where a.status='PUBLISH' order by a.created asc")
-    List<Long> findAllIdBy();
+    /**
+     * 流式读取所有文章，需要在事务内消费
+     */
+    @Select("select * from article order by id")
+    @Options(fetchSize = Integer.MIN_VALUE)
+    Cursor<Article> scanAll();
+
+    /**
+     * 按 (updated, id) 键集分页，取水位之后变更的文章
+     */
+    @Select("select * from article where updated > #{updated} or (updated = #{updated} and id > #{id}) " +
+            "order by updated, id limit #{limit}")
+    List<Article> findUpdatedAfter(@Param("updated") Instant updated, @Param("id") Long id, @Param("limit") int limit);
+
+    /**
+     * 水位之前 [from, 水位] 之间的文章，增量同步回看晚提交的文章
+     */
+    @Select("select * from article where updated >= #{from} " +
+            "and (updated < #{updated} or (updated = #{updated} and id <= #{id})) order by updated, id")
+    List<Article> findUpdatedBetween(@Param("from") Instant from, @Param("updated") Instant updated, @Param("id") Long id);
+
+    /**
+     * 只取导航索引需要的 id 和创建时间
+     */
+    @Select("select a.id, a.created from article a where a.status=#{status}")
+    List<Article> findIdAndCreatedBy(@Param("status") String status);
+
+    /**
+     * 只取生成 ETag 需要的版本信息，不读 content
+     */
+    @Select("select a.id, a.version, a.updated, a.status, a.encrypt_enable from article a where a.id=#{id}")
+    Article findVersionById(@Param("id") Long id);
+
+    /**
+     * 只取搜索提示需要的 id 和标题
+     */
+    @Select("select a.id, a.title from article a where a.status=#{status}")
+    List<Article> findIdAndTitleBy(@Param("status") String status);
 }
@@ -8,9 +8,14 @@ package com.jornah.dao;
 import com.baomidou.mybatisplus.core.mapper.BaseMapper;
 import com.jornah.model.entity.Attach;
 import com.jornah.model.dto.AttachDto;
+import org.apache.ibatis.annotations.Delete;
 import org.apache.ibatis.annotations.Mapper;
+import org.apache.ibatis.annotations.Options;
 import org.apache.ibatis.annotations.Param;
+import org.apache.ibatis.annotations.ResultType;
 import org.apache.ibatis.annotations.Select;
+import org.apache.ibatis.annotations.Update;
+import org.apache.ibatis.session.ResultHandler;
 import org.springframework.stereotype.Repository;
 
 import java.util.List;
@@ -32,4 +37,27 @@ public interface AttachDao extends BaseMapper<Attach> {
 
     @Select("select * from attach where md5=#{md5}")
     Attach findByMd5(@Param("md5") String md5);
+
+    /**
+     * 逐行读出所有 md5，不整个放进 List
+     */
+    @Select("select md5 from attach where md5 is not null")
+    @Options(fetchSize = 1000)
+    @ResultType(String.class)
+    void scanMd5(ResultHandler<String> handler);
+
+    /**
+     * @return 记录已被删除时返回 0
+     */
+    @Update("update attach set ref_count=ref_count+1 where id=#{id}")
+    int retain(@Param("id") Long id);
+
+    @Update("update attach set ref_count=ref_count-1 where id=#{id} and ref_count>0")
+    int release(@Param("id") Long id);
+
+    /**
+     * 引用数减到 0 后才删除，期间又被引用的不删
+     */
+    @Delete("delete from attach where id=#{id} and ref_count<=0")
+    int deleteUnreferenced(@Param("id") Long id);
 }
@@ -1,6 +1,7 @@
 package com.jornah.dao;
 
 import com.baomidou.mybatisplus.core.mapper.BaseMapper;
+import com.jornah.model.dto.ArticleCategoryDto;
 import com.jornah.model.entity.Category;
 import org.apache.ibatis.annotations.Delete;
 import org.apache.ibatis.annotations.Insert;
@@ -9,6 +10,7 @@ import org.apache.ibatis.annotations.Param;
 import org.apache.ibatis.annotations.Select;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
 import java.util.List;
 
 /**
@@ -21,16 +23,23 @@ public interface CategoryDao extends BaseMapper<Category> {
     @Select("select c.* from article_category a join category c on a.category_id=c.id where a.article_id=#{arId} limit 1")
     Category findCategoryBy(@Param("arId") Long arId);
 
+    @Select("<script>select a.article_id, c.* from article_category a join category c on a.category_id=c.id where a.article_id in " +
+            "<foreach collection='arIds' item='arId' open='(' separator=',' close=')'>#{arId}</foreach> order by a.id</script>")
+    List<ArticleCategoryDto> findCategoryByArIds(@Param("arIds") Collection<Long> arIds);
+
+    @Select("select a.article_id, a.category_id as id from article_category a")
+    List<ArticleCategoryDto> findAllMap();
+
     @Insert(" insert article_category(article_id,category_id) values(#{arId},#{cateId})")
     Long insertMap(@Param("arId") Long arId, @Param("cateId") Long cateId);
 
     @Delete("delete from article_category where article_id=#{arId}")
     void deleteAllMapBy(@Param("arId") Long arId);
 
-    @Select("select article_id from article_category where ca_id=#{caId}")
+    @Select("select article_id from article_category where category_id=#{caId}")
     List<Long> findArIdsBy(@Param("caId") Long caId);
 
-    @Delete("delete from article_category where article_id=#{arId} and ca_id=#{cateId}")
+    @Delete("delete from article_category where article_id=#{arId} and category_id=#{cateId}")
     void deleteMap(@Param("arId") Long arId, @Param("cateId") Long cateId);
 
     @Delete("delete from article_category where article_id=#{arId}")
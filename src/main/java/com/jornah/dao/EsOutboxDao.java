@@ -0,0 +1,26 @@
+package com.jornah.dao;
+
+import com.baomidou.mybatisplus.core.mapper.BaseMapper;
+import com.jornah.model.entity.EsOutbox;
+import org.apache.ibatis.annotations.Mapper;
+import org.apache.ibatis.annotations.Param;
+import org.apache.ibatis.annotations.Select;
+import org.springframework.stereotype.Repository;
+
+import java.time.Instant;
+import java.util.List;
+
+/**
+ * @author licong
+ * @date 2026/10/18 15:14
+ */
+@Mapper
+@Repository
+public interface EsOutboxDao extends BaseMapper<EsOutbox> {
+
+    @Select("select * from es_outbox where next_attempt_at <= #{now} order by id limit #{limit}")
+    List<EsOutbox> findDue(@Param("now") Instant now, @Param("limit") int limit);
+
+    @Select("select min(created) from es_outbox")
+    Instant findOldestCreated();
+}
@@ -1,6 +1,7 @@
 package com.jornah.dao;
 
 import com.baomidou.mybatisplus.core.mapper.BaseMapper;
+import com.jornah.model.dto.ArticleTagDto;
 import com.jornah.model.entity.Tag;
 import org.apache.ibatis.annotations.Delete;
 import org.apache.ibatis.annotations.Insert;
@@ -9,6 +10,7 @@ import org.apache.ibatis.annotations.Param;
 import org.apache.ibatis.annotations.Select;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
 import java.util.List;
 
 /**
@@ -22,6 +24,13 @@ public interface TagDao extends BaseMapper<Tag> {
     @Select("select t.* from article_tag a join tag t on a.tag_id=t.id where a.article_id=#{arId}")
     List<Tag> findTagBy(@Param("arId") Long arId);
 
+    @Select("<script>select a.article_id, t.* from article_tag a join tag t on a.tag_id=t.id where a.article_id in " +
+            "<foreach collection='arIds' item='arId' open='(' separator=',' close=')'>#{arId}</foreach></script>")
+    List<ArticleTagDto> findTagByArIds(@Param("arIds") Collection<Long> arIds);
+
+    @Select("select a.article_id, a.tag_id as id from article_tag a")
+    List<ArticleTagDto> findAllMap();
+
     @Insert(" insert article_tag(article_id,tag_id) values(#{arId},#{tagId})")
     Long insertMap(@Param("arId") Long arId, @Param("tagId") Long tagId);
 
@@ -1,13 +1,20 @@
 package com.jornah.job;
 
-import com.jornah.service.es.EsContentService;
+import com.jornah.service.es.SearchEngine;
+import com.jornah.service.es.SearchEngines;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.scheduling.annotation.EnableScheduling;
 import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Component;
 
+import java.util.concurrent.TimeUnit;
+
 /**
+ * 每个引擎每次同步的耗时记在 search.sync 上，同步的文档数记在 search.sync.docs 上，按 engine、type(incremental/rebuild) 区分
+ *
  * @author licong
  * @date 2021/11/8 00:20
  */
@@ -15,11 +22,66 @@ import org.springframework.stereotype.Component;
 @Slf4j
 public class SynData2Es {
     @Autowired
-    private EsContentService esContentService;
+    private SearchEngines searchEngines;
+    @Autowired
+    private MeterRegistry meterRegistry;
 
-    @Scheduled(initialDelay = 5, fixedDelay = 12 * 60 * 60 * 1000)
+    /**
+     * 增量同步，没有水位(首次启动、redis 被清空、本地 lucene 索引为空)时先做一次全量重建。
+     * 每个启用的引擎各自维护水位，一个失败不影响另一个
+     */
+    @Scheduled(initialDelay = 5000, fixedDelayString = "${es.sync.incremental-delay-ms:60000}")
     public void syn() {
-        log.info("runing");
-        esContentService.exportDataToEs();
+        for (SearchEngine engine : searchEngines.enabled()) {
+            long start = System.currentTimeMillis();
+            try {
+                int count = engine.syncIncrementally();
+                if (count < 0) {
+                    log.info("no {} sync checkpoint, rebuilding index", engine.name());
+                    count = engine.rebuild();
+                }
+                if (count > 0) {
+                    log.info("{} sync done, docs:{}, cost:{}ms", engine.name(), count, System.currentTimeMillis() - start);
+                }
+                record(engine, "incremental", "success", start, count);
+            } catch (Exception e) {
+                log.error("{} sync failed", engine.name(), e);
+                record(engine, "incremental", "error", start, 0);
+            }
+        }
+    }
+
+    /**
+     * 兜底的全量重建，修正增量同步遗漏的数据
+     */
+    @Scheduled(cron = "${es.sync.full-rebuild-cron:0 0 4 * * ?}")
+    public void rebuild() {
+        for (SearchEngine engine : searchEngines.enabled()) {
+            long start = System.currentTimeMillis();
+            try {
+                int count = engine.rebuild();
+                log.info("{} rebuild done, docs:{}, cost:{}ms", engine.name(), count, System.currentTimeMillis() - start);
+                record(engine, "rebuild", "success", start, count);
+            } catch (Exception e) {
+                log.error("{} rebuild failed", engine.name(), e);
+                record(engine, "rebuild", "error", start, 0);
+            }
+        }
+    }
+
+    private void record(SearchEngine engine, String type, String outcome, long start, int count) {
+        Timer.builder("search.sync")
+                .tag("engine", engine.name())
+                .tag("type", type)
+                .tag("outcome", outcome)
+                .register(meterRegistry)
+                .record(System.currentTimeMillis() - start, TimeUnit.MILLISECONDS);
+        if (count > 0) {
+            Counter.builder("search.sync.docs")
+                    .tag("engine", engine.name())
+                    .tag("type", type)
+                    .register(meterRegistry)
+                    .increment(count);
+        }
     }
 }
@@ -0,0 +1,24 @@
+package com.jornah.model.dto;
+
+import com.jornah.model.entity.Category;
+import lombok.Data;
+
+/**
+ * 批量查询文章分类时，带上所属文章id的分类行
+ *
+ * @author licong
+ * @date 2026/10/18 13:08
+ */
+@Data
+public class ArticleCategoryDto extends Category {
+    private Long articleId;
+
+    public Category toCategory() {
+        Category category = new Category();
+        category.setId(getId());
+        category.setCreated(getCreated());
+        category.setUpdated(getUpdated());
+        category.setName(getName());
+        return category;
+    }
+}
@@ -0,0 +1,49 @@
+package com.jornah.model.dto;
+
+import com.jornah.exception.BusinessException;
+import com.jornah.model.entity.Article;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.util.Base64;
+import java.util.Objects;
+
+import static com.jornah.constant.ExceptionType.BAD_CURSOR;
+
+/**
+ * 文章列表的游标，即上一页最后一篇的 (updated, id)，下一页从它之后开始。updated 为空的文章用 created，与列表排序一致。
+ * 对外是不透明的 base64 字符串
+ *
+ * @author licong
+ * @date 2026/10/18 23:00
+ */
+@Data
+@AllArgsConstructor
+public class ArticleCursor {
+    private Instant updated;
+    private Long id;
+
+    public static ArticleCursor of(Article article) {
+        Instant updated = Objects.nonNull(article.getUpdated()) ? article.getUpdated() : article.getCreated();
+        return new ArticleCursor(updated, article.getId());
+    }
+
+    public String encode() {
+        String raw = updated.toEpochMilli() + ":" + id;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    public static ArticleCursor decode(String cursor) {
+        try {
+            String[] parts = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8).split(":");
+            if (parts.length == 2) {
+                return new ArticleCursor(Instant.ofEpochMilli(Long.parseLong(parts[0])), Long.parseLong(parts[1]));
+            }
+        } catch (IllegalArgumentException e) {
+            // base64 或数字格式不对
+        }
+        throw BusinessException.of(BAD_CURSOR, "分页游标不正确");
+    }
+}
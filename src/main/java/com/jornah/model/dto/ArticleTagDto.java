@@ -0,0 +1,24 @@
+package com.jornah.model.dto;
+
+import com.jornah.model.entity.Tag;
+import lombok.Data;
+
+/**
+ * 批量查询文章标签时，带上所属文章id的标签行
+ *
+ * @author licong
+ * @date 2026/10/18 13:05
+ */
+@Data
+public class ArticleTagDto extends Tag {
+    private Long articleId;
+
+    public Tag toTag() {
+        Tag tag = new Tag();
+        tag.setId(getId());
+        tag.setCreated(getCreated());
+        tag.setUpdated(getUpdated());
+        tag.setName(getName());
+        return tag;
+    }
+}
@@ -6,6 +6,8 @@ import org.springframework.data.elasticsearch.annotations.Document;
 import org.springframework.data.elasticsearch.annotations.Field;
 import org.springframework.data.elasticsearch.annotations.FieldType;
 
+import java.util.List;
+
 import static com.jornah.model.dto.ContentEsDTO.INDEX_NAME;
 
 @Document(indexName = INDEX_NAME)
@@ -43,6 +45,11 @@ public class ContentEsDTO {
      * 内容类别
      */
     private String type;
+    /**
+     * 标题大纲，按行号升序
+     */
+    @Field(type = FieldType.Nested)
+    private List<HeadingEsDTO> headings;
 
     public ContentEsDTO() {
     }
@@ -104,6 +111,14 @@ public class ContentEsDTO {
         this.type = type;
     }
 
+    public List<HeadingEsDTO> getHeadings() {
+        return headings;
+    }
+
+    public void setHeadings(List<HeadingEsDTO> headings) {
+        this.headings = headings;
+    }
+
     public String getUrl() {
         return url;
     }
@@ -122,6 +137,7 @@ public class ContentEsDTO {
                 ", modified=" + modified +
                 ", content='" + content + '\'' +
                 ", type='" + type + '\'' +
+                ", headings=" + headings +
                 '}';
     }
 }
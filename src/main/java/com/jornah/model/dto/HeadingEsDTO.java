@@ -0,0 +1,39 @@
+package com.jornah.model.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.springframework.data.elasticsearch.annotations.Field;
+import org.springframework.data.elasticsearch.annotations.FieldType;
+
+/**
+ * 文章标题大纲中的一项，建索引时生成，搜索时不用再解析正文
+ *
+ * @author licong
+ * @date 2026/10/18 19:50
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class HeadingEsDTO {
+    /**
+     * 标题所在行号
+     */
+    @Field(type = FieldType.Integer)
+    private Integer line;
+    /**
+     * 标题级别，# 的个数
+     */
+    @Field(type = FieldType.Integer)
+    private Integer level;
+    /**
+     * 带行号的标题原文，如 :12:## 标题
+     */
+    @Field(type = FieldType.Keyword, index = false)
+    private String original;
+    /**
+     * 页面锚点
+     */
+    @Field(type = FieldType.Keyword, index = false)
+    private String anchor;
+}
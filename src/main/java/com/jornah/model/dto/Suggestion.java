@@ -0,0 +1,24 @@
+package com.jornah.model.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * 搜索框输入提示的一项
+ *
+ * @author licong
+ * @date 2026/10/18 20:40
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class Suggestion {
+    private Type type;
+    private Long id;
+    private String text;
+
+    public enum Type {
+        ARTICLE, TAG, CATEGORY
+    }
+}
@@ -37,9 +37,14 @@ public class Attach extends BaseEntity implements Serializable {
     private Integer authorId;
 
     /**
-     * 上传人的ID
+     * 文件内容的md5
      */
     private String md5;
 
+    /**
+     * 引用数，相同内容的上传共用一个文件
+     */
+    private Integer refCount;
+
 
 }
@@ -0,0 +1,40 @@
+package com.jornah.model.entity;
+
+import com.baomidou.mybatisplus.annotation.TableName;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.Instant;
+
+/**
+ * 文章写 es 的发件箱，与文章变更在同一事务中写入，由后台任务投递
+ *
+ * @author licong
+ * @date 2026/10/18 15:10
+ */
+@Data
+@NoArgsConstructor
+@TableName("es_outbox")
+public class EsOutbox extends BaseEntity {
+    private Long articleId;
+    /**
+     * 已投递失败的次数
+     */
+    private Integer attempts;
+    /**
+     * 下次可投递的时间，失败后按指数退避推迟
+     */
+    private Instant nextAttemptAt;
+    private String lastError;
+
+    public static EsOutbox of(Long articleId) {
+        EsOutbox outbox = new EsOutbox();
+        Instant now = Instant.now();
+        outbox.setArticleId(articleId);
+        outbox.setAttempts(0);
+        outbox.setNextAttemptAt(now);
+        outbox.setCreated(now);
+        outbox.setUpdated(now);
+        return outbox;
+    }
+}
@@ -0,0 +1,29 @@
+package com.jornah.model.vo;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+/**
+ * 游标分页的一页
+ *
+ * @author licong
+ * @date 2026/10/18 23:00
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class CursorPage<T> {
+    private List<T> list;
+    /**
+     * 下一页的游标，没有下一页时为 null
+     */
+    private String nextCursor;
+    private boolean hasMore;
+    /**
+     * 总数，只有请求时才返回
+     */
+    private Long total;
+}
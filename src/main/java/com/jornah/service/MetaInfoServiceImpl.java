@@ -6,14 +6,18 @@ import com.jornah.dao.TagDao;
 import com.jornah.model.entity.Category;
 import com.jornah.model.entity.Tag;
 import com.jornah.model.qo.MetaInfoQo;
+import com.jornah.service.article.ArticleChangeNotifier;
+import com.jornah.service.article.render.RenderedArticleCache;
 import com.jornah.service.cache.impl.CacheHolder;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 
 import java.util.List;
+import java.util.concurrent.TimeUnit;
 
 @Service
 public class MetaInfoServiceImpl implements MetaInfoService {
+    private static final long META_CACHE_TTL_HOURS = 24;
 
     @Autowired
     private TagDao tagDao;
@@ -21,6 +25,10 @@ public class MetaInfoServiceImpl implements MetaInfoService {
     private CategoryDao categoryDao;
     @Autowired
     private CacheHolder cacheHolder;
+    @Autowired
+    private ArticleChangeNotifier articleChangeNotifier;
+    @Autowired
+    private RenderedArticleCache renderedArticleCache;
 
 
     @Override
@@ -28,13 +36,13 @@ public class MetaInfoServiceImpl implements MetaInfoService {
 //        List<Tag> tags = tagDao.selectList(new QueryWrapper<>());
 //        return tags;
         return cacheHolder.getTagCache()
-                .getOrSaveCache(() -> tagDao.selectList(new QueryWrapper<>()));
+                .getOrSaveCache(() -> tagDao.selectList(new QueryWrapper<>()), META_CACHE_TTL_HOURS, TimeUnit.HOURS);
     }
 
     @Override
     public List<Category> getAllCategory() {
         return cacheHolder.getCategoryCache()
-                .getOrSaveCache(() -> categoryDao.selectList(new QueryWrapper<>()));
+                .getOrSaveCache(() -> categoryDao.selectList(new QueryWrapper<>()), META_CACHE_TTL_HOURS, TimeUnit.HOURS);
     }
 
     @Override
@@ -42,12 +50,19 @@ public class MetaInfoServiceImpl implements MetaInfoService {
         Category category = new Category();
         category.setName(cateName);
         categoryDao.insert(category);
+        cacheHolder.getCategoryCache().clearList();
+        articleChangeNotifier.articleChanged();
         return category;
     }
 
     @Override
     public int deleteCate(Long id) {
-        return categoryDao.deleteById(id);
+        int count = categoryDao.deleteById(id);
+        cacheHolder.getCategoryCache().clearList();
+        // 文章元数据里冗余了分类信息
+        cacheHolder.getArticleMetaInfoCache().removeAll();
+        articleChangeNotifier.articleChanged();
+        return count;
     }
 
     @Override
@@ -55,12 +70,18 @@ public class MetaInfoServiceImpl implements MetaInfoService {
         Tag tag = new Tag();
         tag.setName(name);
         tagDao.insert(tag);
+        cacheHolder.getTagCache().clearList();
+        articleChangeNotifier.articleChanged();
         return tag;
     }
 
     @Override
     public int deleteTag(Long id) {
-        return tagDao.deleteById(id);
+        int count = tagDao.deleteById(id);
+        cacheHolder.getTagCache().clearList();
+        cacheHolder.getArticleMetaInfoCache().removeAll();
+        articleChangeNotifier.articleChanged();
+        return count;
     }
 
     @Override
@@ -72,6 +93,9 @@ public class MetaInfoServiceImpl implements MetaInfoService {
         qo.getTagIds().forEach(tagId -> {
             tagDao.insertMap(qo.getArticleId(), tagId);
         });
+        cacheHolder.getArticleMetaInfoCache().remove(qo.getArticleId());
+        renderedArticleCache.evict(qo.getArticleId());
+        articleChangeNotifier.articleChanged();
 
     }
 }
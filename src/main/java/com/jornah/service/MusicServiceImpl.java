@@ -7,60 +7,76 @@ import com.jornah.exception.BusinessException;
 import com.jornah.model.converter.MusicConverter;
 import com.jornah.model.entity.Music;
 import com.jornah.model.qo.MusicUploadQo;
-import org.apache.commons.codec.digest.DigestUtils;
-import org.apache.tomcat.util.http.fileupload.IOUtils;
+import com.jornah.utils.SpooledUpload;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.binder.BaseUnits;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 import org.springframework.web.multipart.MultipartFile;
 
-import java.io.ByteArrayOutputStream;
-import java.io.File;
-import java.io.FileOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
+import java.nio.file.Paths;
 import java.util.List;
 import java.util.Objects;
+import java.util.concurrent.TimeUnit;
 
 @Service
 public class MusicServiceImpl implements MusicService {
+    /**
+     * 上传中的临时文件，和音乐文件在同一个文件系统上
+     */
+    private static final String TEMP_DIR = ".uploading";
+    private static final String TARGET = "disk";
     @Value("${music.disk.path:./}")
     public String DISK_MUSIC_PATH;
     @Value("${music.url.prefix:http://localhost:8077/}")
     public String MUSIC_URL_PREFIX;
     @Autowired
     private MusicDao musicDao;
+    @Autowired
+    private MeterRegistry meterRegistry;
 
+    /**
+     * 边写临时文件边算 md5，不在内存里保留整个文件；临时文件放在音乐目录下，入库后原子地改名为 md5 + 扩展名。
+     * 耗时和字节数记在 upload、upload.size 上(target=disk)
+     */
     @Override
     @Transactional
     public boolean uploadMusic(MusicUploadQo musicUploadQo) throws IOException {
         MultipartFile file = musicUploadQo.getFile();
-        InputStream inputStream = file.getInputStream();
-        ByteArrayOutputStream out = new ByteArrayOutputStream();
-        IOUtils.copy(inputStream, out);
-        byte[] fileBytes = out.toByteArray();
-        String md5 = DigestUtils.md5Hex(fileBytes);
-        Music music = MusicConverter.INSTANCE.toEntity(musicUploadQo);
-        music.setMd5(md5);
-        music.setSrc(MUSIC_URL_PREFIX + md5 + musicUploadQo.getFileExtend());
+        String outcome = "error";
+        long start = System.nanoTime();
+        try (InputStream inputStream = file.getInputStream();
+             SpooledUpload upload = SpooledUpload.spool(inputStream, Paths.get(DISK_MUSIC_PATH, TEMP_DIR))) {
+            String md5 = upload.getMd5();
+            Music music = MusicConverter.INSTANCE.toEntity(musicUploadQo);
+            music.setMd5(md5);
+            music.setSrc(MUSIC_URL_PREFIX + md5 + musicUploadQo.getFileExtend());
 
-        Music findInDb = musicDao.selectOne(new LambdaQueryWrapper<Music>().eq(Music::getMd5, md5));
-        if (Objects.nonNull(findInDb)) {
-            throw BusinessException.of("已存在");
-        }
-        boolean isSuccess = musicDao.insert(music) > 0;
-        saveToDisk(music.getMd5() + musicUploadQo.getFileExtend(), fileBytes);
-        return isSuccess;
-    }
-
-    private void saveToDisk(String filename, byte[] bytes) throws IOException {
-        File file = new File(DISK_MUSIC_PATH + filename);
-        if (!file.exists()) {
-            file.createNewFile();
-        }
-        try (FileOutputStream fos = new FileOutputStream(file)) {
-            fos.write(bytes);
+            Music findInDb = musicDao.selectOne(new LambdaQueryWrapper<Music>().eq(Music::getMd5, md5));
+            if (Objects.nonNull(findInDb)) {
+                throw BusinessException.of("已存在");
+            }
+            boolean isSuccess = musicDao.insert(music) > 0;
+            upload.moveTo(Paths.get(DISK_MUSIC_PATH, md5 + musicUploadQo.getFileExtend()));
+            DistributionSummary.builder("upload.size")
+                    .tag("target", TARGET)
+                    .baseUnit(BaseUnits.BYTES)
+                    .register(meterRegistry)
+                    .record(upload.getSize());
+            outcome = "success";
+            return isSuccess;
+        } finally {
+            Timer.builder("upload")
+                    .tag("target", TARGET)
+                    .tag("outcome", outcome)
+                    .register(meterRegistry)
+                    .record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
         }
     }
 
@@ -0,0 +1,110 @@
+package com.jornah.service.article;
+
+import lombok.extern.slf4j.Slf4j;
+import org.apache.commons.lang3.math.NumberUtils;
+import org.redisson.api.RAtomicLong;
+import org.redisson.api.RTopic;
+import org.redisson.api.RedissonClient;
+import org.redisson.client.codec.StringCodec;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronizationAdapter;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import javax.annotation.PostConstruct;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 文章及其标签、分类有变化时，在事务提交后通过 redis 广播到所有节点，
+ * 由各个内存索引(上一篇/下一篇、搜索提示等)自行决定何时重建。
+ * 每次变更在 redis 中把全站的内容代数加一，各节点的代数一致，可用作列表的 ETag
+ *
+ * @author licong
+ * @date 2026/10/18 20:40
+ */
+@Component
+@Slf4j
+public class ArticleChangeNotifier {
+    private static final String CHANGED_TOPIC = "ARTICLE_CHANGED";
+    private static final String GENERATION_KEY = "ARTICLE_GENERATION";
+
+    @Autowired
+    private RedissonClient redissonClient;
+
+    private final List<Runnable> listeners = new CopyOnWriteArrayList<>();
+    private final AtomicLong generation = new AtomicLong();
+    private RTopic changedTopic;
+    private RAtomicLong generationCounter;
+
+    @PostConstruct
+    public void init() {
+        this.generationCounter = redissonClient.getAtomicLong(GENERATION_KEY);
+        this.changedTopic = redissonClient.getTopic(CHANGED_TOPIC, StringCodec.INSTANCE);
+        this.changedTopic.addListener(String.class, (channel, msg) -> {
+            advance(NumberUtils.toLong(msg));
+            notifyListeners();
+        });
+        try {
+            advance(generationCounter.get());
+        } catch (Exception e) {
+            log.warn("load article generation failed", e);
+        }
+    }
+
+    /**
+     * 全站文章内容的代数，文章、标签、分类每变更一次加一
+     */
+    public long generation() {
+        return generation.get();
+    }
+
+    /**
+     * 监听器只应做标记之类的轻量操作，它在 redis 的消息线程中执行
+     */
+    public void addListener(Runnable listener) {
+        listeners.add(listener);
+    }
+
+    public void articleChanged() {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            publish();
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronizationAdapter() {
+            @Override
+            public void afterCommit() {
+                publish();
+            }
+        });
+    }
+
+    private void publish() {
+        long next;
+        try {
+            next = generationCounter.incrementAndGet();
+        } catch (Exception e) {
+            // redis 不可用时只在本节点推进
+            next = generation.get() + 1;
+            log.warn("increment article generation failed", e);
+        }
+        advance(next);
+        // 本节点先直接通知，不依赖广播是否成功
+        notifyListeners();
+        try {
+            changedTopic.publish(String.valueOf(next));
+        } catch (Exception e) {
+            // 广播失败时其他节点要等下一次变更才会重建
+            log.warn("publish article change failed", e);
+        }
+    }
+
+    private void advance(long value) {
+        generation.accumulateAndGet(value, Math::max);
+    }
+
+    private void notifyListeners() {
+        listeners.forEach(Runnable::run);
+    }
+}
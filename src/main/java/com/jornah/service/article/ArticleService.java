@@ -11,6 +11,7 @@ import com.jornah.model.entity.Article;
 import com.jornah.model.qo.ArticleQo;
 import com.jornah.model.vo.ArticleMetaInfo;
 import com.jornah.model.vo.ArticleVo;
+import com.jornah.model.vo.CursorPage;
 import org.springframework.scheduling.annotation.Async;
 import org.springframework.transaction.annotation.Transactional;
 
@@ -26,6 +27,11 @@ public interface ArticleService  {
 
     ArticleVo getArticleBy(Long arId, String passphrase);
 
+    /**
+     * 只查 id、version、updated、status、encryptEnable，用于条件请求
+     */
+    Article getArticleVersion(Long arId);
+
     PageInfo<ArticleVo> getArticlesOrderBy(ArticleQo articleQo);
 
     @Transactional
@@ -35,11 +41,24 @@ public interface ArticleService  {
 
     PageInfo<ArticleVo> getArticleByTag(Long tagId, int pageNum, int pageSize);
 
+    /**
+     * 游标分页，按更新时间倒序，不做 count 和 offset
+     *
+     * @param tagId     为空时不按标签过滤
+     * @param cateId    为空时不按分类过滤
+     * @param cursor    上一页返回的游标，为空时取第一页
+     * @param withTotal 是否返回总数，总数按内容代数缓存
+     */
+    CursorPage<ArticleVo> scrollArticles(Long tagId, Long cateId, String cursor, int size, boolean withTotal);
+
     List<ArticleVo> getRecommendArticle(int size);
 
-    void updateArticleHits(Integer cid, Integer chits);
+    /**
+     * 记一次阅读，异步写回数据库
+     */
+    void updateArticleHits(Long articleId);
 
-    boolean isFromSameIp(Integer cid, HttpServletRequest request);
+    boolean isFromSameIp(Long articleId, HttpServletRequest request);
 
     @Async
     void logVisit(Integer cid, String detail, HttpServletRequest request);
@@ -50,7 +69,13 @@ public interface ArticleService  {
 
     Article firstArticle();
 
-    long getNextOrLastArticle(Long articleId, boolean next, String byType);
+    /**
+     * 上一篇或下一篇，按创建时间排序
+     *
+     * @param byType all/category/tag
+     * @param metaId 分类或标签 id，为空时取文章自己的
+     */
+    long getNextOrLastArticle(Long articleId, boolean next, String byType, Long metaId);
 
     List<ArticleMetaInfo> batchGetArticleMetaInfo(List<Long> articleIdList);
 }
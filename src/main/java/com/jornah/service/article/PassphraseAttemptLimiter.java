@@ -0,0 +1,48 @@
+package com.jornah.service.article;
+
+import com.jornah.cache.CacheService;
+import com.jornah.constant.ExceptionType;
+import com.jornah.exception.BusinessException;
+import org.apache.commons.lang3.math.NumberUtils;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+
+/**
+ * 加密文章的口令尝试次数限制，按 ip 计数，存在 redis 中各节点共用。
+ * 每次用错误口令解密都要做一次 PBKDF2 派生(约 100ms 以上的 cpu)，
+ * 同一 ip 在 window-seconds 内失败超过 max-failures 次后直接拒绝，不再派生密钥
+ *
+ * @author licong
+ * @date 2026/10/19 01:20
+ */
+@Component
+public class PassphraseAttemptLimiter {
+    private static final String FAIL_COUNT_PREFIX = "passphrase:fail:";
+
+    @Autowired
+    private CacheService cacheService;
+
+    @Value("${article.passphrase.max-failures:10}")
+    private long maxFailures;
+    @Value("${article.passphrase.window-seconds:600}")
+    private long windowSeconds;
+
+    /**
+     * 失败次数已用完时抛出 TOO_MANY_REQUESTS
+     */
+    public void check(String ip) {
+        String failures = cacheService.getValue(FAIL_COUNT_PREFIX + ip, String.class);
+        if (NumberUtils.toLong(failures) >= maxFailures) {
+            throw BusinessException.of(ExceptionType.TOO_MANY_REQUESTS, "口令错误次数过多，请稍后再试");
+        }
+    }
+
+    public void recordFailure(String ip) {
+        // 计数从第一次失败开始，过期后重新计数
+        cacheService.setValueIfAbsent(FAIL_COUNT_PREFIX + ip, "0", Duration.ofSeconds(windowSeconds));
+        cacheService.increment(FAIL_COUNT_PREFIX + ip);
+    }
+}
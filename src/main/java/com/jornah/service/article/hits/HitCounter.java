@@ -0,0 +1,22 @@
+package com.jornah.service.article.hits;
+
+/**
+ * 文章阅读数计数器，先在内存或 redis 中累加，定时合并写回 article.hits
+ *
+ * @author licong
+ * @date 2026/10/18 16:05
+ */
+public interface HitCounter {
+
+    void increment(Long articleId);
+
+    /**
+     * 尚未写回数据库的增量，读取文章时叠加到 hits 上
+     */
+    long pending(Long articleId);
+
+    /**
+     * 把累加的增量写回数据库
+     */
+    void flush();
+}
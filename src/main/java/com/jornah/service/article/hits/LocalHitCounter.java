@@ -0,0 +1,73 @@
+package com.jornah.service.article.hits;
+
+import com.jornah.dao.ArticleDao;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PreDestroy;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 单节点计数: 每篇文章一个 LongAdder，高并发下各线程写不同的 cell，互不竞争。
+ * LongAdder 只增不减，另记一份已写回的值，写回时取差值，避免 reset 与并发累加之间丢数
+ *
+ * @author licong
+ * @date 2026/10/18 16:10
+ */
+@Component
+@Slf4j
+@ConditionalOnProperty(name = "article.hits.store", havingValue = "local", matchIfMissing = true)
+public class LocalHitCounter implements HitCounter {
+    private final ConcurrentHashMap<Long, LongAdder> counters = new ConcurrentHashMap<>();
+    /**
+     * 已写回数据库的累计值，只在 flush 中写
+     */
+    private final Map<Long, Long> flushed = new ConcurrentHashMap<>();
+
+    @Autowired
+    private ArticleDao articleDao;
+
+    @Override
+    public void increment(Long articleId) {
+        counters.computeIfAbsent(articleId, id -> new LongAdder()).increment();
+    }
+
+    @Override
+    public long pending(Long articleId) {
+        LongAdder adder = counters.get(articleId);
+        if (Objects.isNull(adder)) {
+            return 0;
+        }
+        return Math.max(0, adder.sum() - flushed.getOrDefault(articleId, 0L));
+    }
+
+    @Override
+    @Scheduled(initialDelay = 30000, fixedDelayString = "${article.hits.flush-ms:30000}")
+    @PreDestroy
+    public synchronized void flush() {
+        Map<Long, Long> totals = new HashMap<>();
+        Map<Long, Long> deltas = new HashMap<>();
+        counters.forEach((id, adder) -> {
+            long total = adder.sum();
+            long delta = total - flushed.getOrDefault(id, 0L);
+            if (delta > 0) {
+                totals.put(id, total);
+                deltas.put(id, delta);
+            }
+        });
+        if (deltas.isEmpty()) {
+            return;
+        }
+        // 写库失败不推进 flushed，下次连同新增量一起重试
+        articleDao.incrementHits(deltas);
+        flushed.putAll(totals);
+        log.info("flush article hits, articles:{}", deltas.size());
+    }
+}
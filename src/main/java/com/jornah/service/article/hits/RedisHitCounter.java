@@ -0,0 +1,79 @@
+package com.jornah.service.article.hits;
+
+import com.jornah.cache.CacheService;
+import com.jornah.dao.ArticleDao;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.data.redis.core.HashOperations;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PreDestroy;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.UUID;
+
+/**
+ * 多节点计数: 所有节点 HINCRBY 到同一个 hash。
+ * 写回时先 RENAME 成临时 key，保证每个增量只被一个节点取走；写库失败再合并回去
+ *
+ * @author licong
+ * @date 2026/10/18 16:30
+ */
+@Component
+@Slf4j
+@ConditionalOnProperty(name = "article.hits.store", havingValue = "redis")
+public class RedisHitCounter implements HitCounter {
+    private static final String HITS_KEY = "article:hits";
+    private static final String FLUSHING_KEY_PREFIX = "article:hits:flushing:";
+
+    @Autowired
+    private CacheService cacheService;
+    @Autowired
+    private ArticleDao articleDao;
+
+    @Override
+    public void increment(Long articleId) {
+        hashOps().increment(HITS_KEY, articleId.toString(), 1);
+    }
+
+    @Override
+    public long pending(Long articleId) {
+        String value = hashOps().get(HITS_KEY, articleId.toString());
+        return Objects.isNull(value) ? 0 : Long.parseLong(value);
+    }
+
+    @Override
+    @Scheduled(initialDelay = 30000, fixedDelayString = "${article.hits.flush-ms:30000}")
+    @PreDestroy
+    public void flush() {
+        StringRedisTemplate redisTemplate = cacheService.redisTemplate();
+        String flushingKey = FLUSHING_KEY_PREFIX + UUID.randomUUID();
+        try {
+            redisTemplate.rename(HITS_KEY, flushingKey);
+        } catch (Exception e) {
+            // key 不存在，没有新的阅读数或已被其他节点取走
+            return;
+        }
+        Map<String, String> entries = hashOps().entries(flushingKey);
+        Map<Long, Long> deltas = new HashMap<>();
+        entries.forEach((id, delta) -> deltas.put(Long.valueOf(id), Long.valueOf(delta)));
+        try {
+            if (!deltas.isEmpty()) {
+                articleDao.incrementHits(deltas);
+            }
+        } catch (Exception e) {
+            log.warn("flush article hits failed, merge back", e);
+            entries.forEach((id, delta) -> hashOps().increment(HITS_KEY, id, Long.parseLong(delta)));
+        } finally {
+            redisTemplate.delete(flushingKey);
+        }
+    }
+
+    private HashOperations<String, String, String> hashOps() {
+        return cacheService.redisTemplate().opsForHash();
+    }
+}
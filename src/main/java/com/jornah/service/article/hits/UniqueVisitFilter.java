@@ -0,0 +1,79 @@
+package com.jornah.service.article.hits;
+
+import com.google.common.hash.BloomFilter;
+import com.google.common.hash.Funnels;
+import lombok.AllArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * 按天轮换的布隆过滤器，判断 ip + 文章 当天是否已访问过。
+ * 内存固定(默认10万条、1%误判约 120KB)，不随爬虫流量增长；误判只会少记一次阅读。
+ * 当天写满 expected-insertions 条后误判率会持续升高，这时换一个新的过滤器，写满的那个只读保留到当天结束，
+ * 最多同时有两个；更早写满的被丢弃，其中的访问再来时会多记一次
+ *
+ * @author licong
+ * @date 2026/10/18 17:10
+ */
+@Component
+@Slf4j
+public class UniqueVisitFilter {
+    private final AtomicReference<DailyFilter> current = new AtomicReference<>();
+
+    @Value("${article.hits.unique-visit.expected-insertions:100000}")
+    private int expectedInsertions;
+    @Value("${article.hits.unique-visit.fpp:0.01}")
+    private double fpp;
+
+    /**
+     * 记录一次访问
+     *
+     * @return 当天第一次访问返回 true
+     */
+    public boolean markVisited(String ip, Long articleId) {
+        String key = ip + "::" + articleId;
+        DailyFilter filter = filterOfToday();
+        if (filter.full != null && filter.full.mightContain(key)) {
+            return false;
+        }
+        return filter.bloomFilter.put(key);
+    }
+
+    private DailyFilter filterOfToday() {
+        LocalDate today = LocalDate.now();
+        DailyFilter filter = current.get();
+        boolean sameDay = filter != null && filter.day.equals(today);
+        if (sameDay && filter.bloomFilter.approximateElementCount() < expectedInsertions) {
+            return filter;
+        }
+        DailyFilter fresh = new DailyFilter(today, newBloomFilter(), sameDay ? filter.bloomFilter : null);
+        // 并发换天、换满的过滤器时只有一个线程能换成功，其他线程用换好的
+        if (current.compareAndSet(filter, fresh)) {
+            if (sameDay) {
+                log.warn("unique visit filter is full ({} insertions, fpp {}), rotated",
+                        filter.bloomFilter.approximateElementCount(), filter.bloomFilter.expectedFpp());
+            }
+            return fresh;
+        }
+        return current.get();
+    }
+
+    private BloomFilter<CharSequence> newBloomFilter() {
+        return BloomFilter.create(Funnels.stringFunnel(StandardCharsets.UTF_8), expectedInsertions, fpp);
+    }
+
+    @AllArgsConstructor
+    private static class DailyFilter {
+        private final LocalDate day;
+        private final BloomFilter<CharSequence> bloomFilter;
+        /**
+         * 当天已经写满的上一个过滤器，只读，没有时为 null
+         */
+        private final BloomFilter<CharSequence> full;
+    }
+}
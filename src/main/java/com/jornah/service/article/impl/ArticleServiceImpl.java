@@ -11,28 +11,35 @@ import com.github.pagehelper.PageHelper;
 import com.github.pagehelper.PageInfo;
 import com.google.common.collect.Lists;
 import com.jornah.constant.ArticleStatus;
-import com.jornah.constant.WebConst;
 import com.jornah.dao.ArticleDao;
 import com.jornah.dao.CategoryDao;
+import com.jornah.dao.EsOutboxDao;
 import com.jornah.dao.LogDao;
 import com.jornah.dao.TagDao;
 import com.jornah.exception.BusinessException;
 import com.jornah.model.DraftStatus;
 import com.jornah.model.UserInfo;
 import com.jornah.model.converter.ArticleConverter;
+import com.jornah.model.dto.ArticleCursor;
 import com.jornah.model.dto.ArticleSaveBo;
 import com.jornah.model.entity.Article;
+import com.jornah.model.entity.EsOutbox;
 import com.jornah.model.entity.Log;
 import com.jornah.model.qo.ArticleQo;
 import com.jornah.model.vo.ArticleMetaInfo;
 import com.jornah.model.vo.ArticleVo;
+import com.jornah.model.vo.CursorPage;
 import com.jornah.service.DraftService;
+import com.jornah.service.article.ArticleChangeNotifier;
 import com.jornah.service.article.ArticleService;
+import com.jornah.service.article.hits.HitCounter;
+import com.jornah.service.article.hits.UniqueVisitFilter;
+import com.jornah.service.article.listing.ArticleCountCache;
+import com.jornah.service.article.navigation.ArticleNavigationIndex;
+import com.jornah.service.article.render.RenderedArticleCache;
 import com.jornah.service.cache.impl.ArticleMetaInfoCache;
-import com.jornah.service.es.EsContentService;
 import com.jornah.utils.EncryptUtil;
 import com.jornah.utils.IPKit;
-import com.jornah.utils.MapCache;
 import com.jornah.utils.PageUtil;
 import com.jornah.utils.WebRequestHelper;
 import lombok.SneakyThrows;
@@ -44,12 +51,19 @@ import org.springframework.scheduling.annotation.Async;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 import org.springframework.util.Assert;
+import org.springframework.util.CollectionUtils;
 import org.springframework.validation.annotation.Validated;
 
 import javax.servlet.http.HttpServletRequest;
 import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Objects;
+import java.util.Optional;
 import java.util.concurrent.TimeUnit;
 import java.util.stream.Collectors;
 
@@ -63,8 +77,8 @@ import static com.jornah.model.enums.ArticleStatus.PUBLISHED;
 @Slf4j
 public class ArticleServiceImpl implements ArticleService {
 
-    private static final MapCache cache = MapCache.single();
     public static final int DEFAULT_ARTICLE_ID = 44;
+    private static final long META_INFO_CACHE_TTL_HOURS = 24;
     @Autowired
     private ArticleDao articleDao;
     @Autowired
@@ -75,7 +89,19 @@ public class ArticleServiceImpl implements ArticleService {
     private CategoryDao categoryDao;
 
     @Autowired
-    private EsContentService esContentService;
+    private EsOutboxDao esOutboxDao;
+    @Autowired
+    private HitCounter hitCounter;
+    @Autowired
+    private UniqueVisitFilter uniqueVisitFilter;
+    @Autowired
+    private ArticleNavigationIndex articleNavigationIndex;
+    @Autowired
+    private ArticleChangeNotifier articleChangeNotifier;
+    @Autowired
+    private RenderedArticleCache renderedArticleCache;
+    @Autowired
+    private ArticleCountCache articleCountCache;
 
     @Autowired
     private DraftService draftService;
@@ -92,13 +118,15 @@ public class ArticleServiceImpl implements ArticleService {
             article.setCreated(Instant.now());
             article.setUpdated(Instant.now());
             articleDao.insert(article);
-            esContentService.add(article);
         } else {
             checkContentVersion(articleSaveBo);
             article.setUpdated(Instant.now());
             articleDao.updateById(article);
-            esContentService.update(article);
         }
+        // 与文章在同一事务中写发件箱，提交后由 EsOutboxDispatcher 投递到 es
+        esOutboxDao.insert(EsOutbox.of(article.getId()));
+        renderedArticleCache.evict(article.getId());
+        articleChangeNotifier.articleChanged();
 
         return article.getId();
     }
@@ -130,10 +158,23 @@ public class ArticleServiceImpl implements ArticleService {
     public ArticleVo getArticleBy(Long arId, String passphrase) {
         Article article = articleDao.selectById(arId);
         ArticleVo articleVo = ArticleConverter.INSTANCE.toVo(article);
+        if (Objects.isNull(articleVo)) {
+            return null;
+        }
+        // 叠加还未写回数据库的阅读数
+        long pendingHits = hitCounter.pending(arId);
+        if (pendingHits > 0) {
+            articleVo.setHits((int) (Optional.ofNullable(articleVo.getHits()).orElse(0) + pendingHits));
+        }
         decryptContent(passphrase, articleVo);
         return articleVo;
     }
 
+    @Override
+    public Article getArticleVersion(Long arId) {
+        return articleDao.findVersionById(arId);
+    }
+
     private void decryptContent(String passphrase, ArticleVo articleVo) {
         if (!articleVo.isEncryptEnable() || StringUtils.isEmpty(articleVo.getContent())) {
             return;
@@ -187,7 +228,8 @@ public class ArticleServiceImpl implements ArticleService {
 
         articleDao.updateStatusById(arId, ArticleStatus.DELETED.toString());
 //        draftService.createDraftForDelete(arId, DraftStatus.PUBLISHED);
-//        esContentService.delete(arId.toString());
+        // 删除不改 updated，增量同步看不到，只能由发件箱把文档从索引中删掉
+        esOutboxDao.insert(EsOutbox.of(arId));
 
         // 同时要删除该 文章下的所有评论
 //        List<Comment> comments = commentDao.getCommentByCId(arId);
@@ -196,14 +238,17 @@ public class ArticleServiceImpl implements ArticleService {
 //        }
         tagDao.deleteMapBy(arId);
         categoryDao.deleteMapBy(arId);
+        articleMetaInfoCache.remove(arId);
+        renderedArticleCache.evict(arId);
+        articleChangeNotifier.articleChanged();
     }
 
+    @Transactional
     public void updateContentBy(Long arId, String content, String status) {
         draftService.createDraft(arId, content, DraftStatus.getByString(status));
         Article article = Article.builder().id(arId).content(content).build();
         articleDao.updateById(article);
-//        article.setContent(generateLineNumberForText(article.getContent(), LineNoFormat, true));
-        esContentService.update(article);
+        esOutboxDao.insert(EsOutbox.of(arId));
     }
 
     @Override
@@ -220,6 +265,26 @@ public class ArticleServiceImpl implements ArticleService {
         return PageUtil.toVo(pageInfo, ArticleConverter.INSTANCE::toVo);
     }
 
+    @Override
+    public CursorPage<ArticleVo> scrollArticles(Long tagId, Long cateId, String cursor, int size, boolean withTotal) {
+        List<String> statusList = getAdminAccessStatus();
+        ArticleCursor after = StringUtils.isEmpty(cursor) ? null : ArticleCursor.decode(cursor);
+        // 多取一条判断是否还有下一页
+        List<Article> articles = articleDao.findArticlesBefore(tagId, cateId, statusList,
+                Objects.isNull(after) ? null : after.getUpdated(), Objects.isNull(after) ? null : after.getId(), size + 1);
+        boolean hasMore = articles.size() > size;
+        if (hasMore) {
+            articles = articles.subList(0, size);
+        }
+        String nextCursor = null;
+        if (hasMore) {
+            nextCursor = ArticleCursor.of(articles.get(articles.size() - 1)).encode();
+        }
+        Long total = withTotal ? articleCountCache.count(tagId, cateId, statusList) : null;
+        List<ArticleVo> list = articles.stream().map(ArticleConverter.INSTANCE::toVo).collect(Collectors.toList());
+        return new CursorPage<>(list, nextCursor, hasMore, total);
+    }
+
     @Override
     public List<ArticleVo> getRecommendArticle(int size) {
         List<Article> articles = articleDao.findByRecommend(size);
@@ -234,36 +299,16 @@ public class ArticleServiceImpl implements ArticleService {
 
 
     /**
-     * 更新文章的点击率
-     *
-     * @param cid
-     * @param chits
+     * 更新文章的点击率，先在计数器中累加，由计数器定时批量写回
      */
     @Override
-    public void updateArticleHits(Integer cid, Integer chits) {
-        Integer hits = cache.hget("article", "hits");
-        if (chits == null) {
-            chits = 0;
-        }
-        hits = null == hits ? 1 : hits + 1;
-        if (hits >= WebConst.HIT_BUFFER_SIZE) {
-            articleDao.updateHitsById(cid, chits + hits);
-            cache.hset("article", "hits", null);
-        } else {
-            cache.hset("article", "hits", hits);
-        }
+    public void updateArticleHits(Long articleId) {
+        hitCounter.increment(articleId);
     }
 
     @Override
-    public boolean isFromSameIp(Integer cid, HttpServletRequest request) {
-        String uniqHitKey = String.format("%s::%s", IPKit.getIpAddressByRequest(request), cid);
-        String uniqHitValue = cache.get(uniqHitKey);
-        if (Objects.nonNull(uniqHitValue)) {
-            return true;
-        } else {
-            cache.set(uniqHitKey, "y", TimeUnit.DAYS.toMillis(1));
-            return false;
-        }
+    public boolean isFromSameIp(Long articleId, HttpServletRequest request) {
+        return !uniqueVisitFilter.markVisited(IPKit.getIpAddressByRequest(request), articleId);
     }
 
     @Override
@@ -283,11 +328,38 @@ public class ArticleServiceImpl implements ArticleService {
                         .articleId(id)
                         .tags(tagDao.findTagBy(id))
                         .category(categoryDao.findCategoryBy(id))
-                        .build());
+                        .build(), META_INFO_CACHE_TTL_HOURS, TimeUnit.HOURS);
     }
+
     @Override
     public List<ArticleMetaInfo> batchGetArticleMetaInfo(List<Long> articleIdList) {
-        return articleIdList.stream().map(this::getArticleMetaInfo).collect(Collectors.toList());
+        if (CollectionUtils.isEmpty(articleIdList)) {
+            return Collections.emptyList();
+        }
+        Map<Long, ArticleMetaInfo> metaInfoMap = this.articleMetaInfoCache.getOrSaveCache(articleIdList,
+                this::loadArticleMetaInfo, META_INFO_CACHE_TTL_HOURS, TimeUnit.HOURS);
+        return articleIdList.stream().map(metaInfoMap::get).collect(Collectors.toList());
+    }
+
+    /**
+     * 两次查询批量加载标签和分类，再在内存中按文章id分组
+     */
+    private Map<Long, ArticleMetaInfo> loadArticleMetaInfo(Collection<Long> articleIds) {
+        Map<Long, ArticleMetaInfo> metaInfoMap = new HashMap<>();
+        articleIds.forEach(id -> metaInfoMap.put(id, ArticleMetaInfo.builder()
+                .articleId(id)
+                .tags(new ArrayList<>())
+                .build()));
+        tagDao.findTagByArIds(articleIds).forEach(row ->
+                metaInfoMap.get(row.getArticleId()).getTags().add(row.toTag()));
+        categoryDao.findCategoryByArIds(articleIds).forEach(row -> {
+            ArticleMetaInfo metaInfo = metaInfoMap.get(row.getArticleId());
+            // 与 findCategoryBy 一致，一篇文章只取一个分类
+            if (Objects.isNull(metaInfo.getCategory())) {
+                metaInfo.setCategory(row.toCategory());
+            }
+        });
+        return metaInfoMap;
     }
 
     @Override
@@ -304,14 +376,9 @@ public class ArticleServiceImpl implements ArticleService {
     }
 
     @Override
-    public long getNextOrLastArticle(Long articleId, boolean next, String byType) {
-        List<Long> allId = articleDao.findAllIdBy();
-        for (int index = 1; index < allId.size() - 1; index++) {
-            if (Objects.equals(allId.get(index), articleId)) {
-                return next ? allId.get(index + 1) : allId.get(index - 1);
-            }
-        }
-        return DEFAULT_ARTICLE_ID;
+    public long getNextOrLastArticle(Long articleId, boolean next, String byType, Long metaId) {
+        Long neighbour = articleNavigationIndex.neighbour(articleId, next, ArticleNavigationIndex.By.from(byType), metaId);
+        return Objects.isNull(neighbour) ? DEFAULT_ARTICLE_ID : neighbour;
     }
 
 
@@ -0,0 +1,58 @@
+package com.jornah.service.article.listing;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.jornah.dao.ArticleDao;
+import com.jornah.service.article.ArticleChangeNotifier;
+import lombok.EqualsAndHashCode;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PostConstruct;
+import java.util.List;
+
+/**
+ * 文章列表的总数缓存。key 带上全站内容代数({@link ArticleChangeNotifier#generation()})，
+ * 文章、标签、分类有变更时代数加一，旧的总数自然失效，不需要主动清除
+ *
+ * @author licong
+ * @date 2026/10/18 23:00
+ */
+@Component
+public class ArticleCountCache {
+    @Autowired
+    private ArticleDao articleDao;
+    @Autowired
+    private ArticleChangeNotifier articleChangeNotifier;
+
+    @Value("${article.list.count-cache-size:512}")
+    private long maximumSize;
+
+    private Cache<Key, Long> counts;
+
+    @PostConstruct
+    public void init() {
+        this.counts = Caffeine.newBuilder().maximumSize(maximumSize).build();
+    }
+
+    public long count(Long tagId, Long cateId, List<String> statusList) {
+        Key key = new Key(articleChangeNotifier.generation(), tagId, cateId, statusList);
+        return counts.get(key, k -> articleDao.countArticles(tagId, cateId, statusList));
+    }
+
+    @EqualsAndHashCode
+    private static final class Key {
+        private final long generation;
+        private final Long tagId;
+        private final Long cateId;
+        private final List<String> statusList;
+
+        private Key(long generation, Long tagId, Long cateId, List<String> statusList) {
+            this.generation = generation;
+            this.tagId = tagId;
+            this.cateId = cateId;
+            this.statusList = statusList;
+        }
+    }
+}
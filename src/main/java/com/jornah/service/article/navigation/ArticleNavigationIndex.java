@@ -0,0 +1,230 @@
+package com.jornah.service.article.navigation;
+
+import com.jornah.dao.ArticleDao;
+import com.jornah.dao.CategoryDao;
+import com.jornah.dao.TagDao;
+import com.jornah.model.dto.ArticleCategoryDto;
+import com.jornah.model.dto.ArticleTagDto;
+import com.jornah.model.entity.Article;
+import com.jornah.service.article.ArticleChangeNotifier;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PostConstruct;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static com.jornah.model.enums.ArticleStatus.PUBLISHED;
+
+/**
+ * 上一篇/下一篇导航索引: 已发布文章按 (created, id) 排好序放在内存里，全站、每个分类、每个标签各一份，
+ * 查询只做二分查找，不访问数据库。
+ * 收到 {@link ArticleChangeNotifier} 的变更通知后标记为脏，由定时任务整体重建后替换快照
+ *
+ * @author licong
+ * @date 2026/10/18 17:40
+ */
+@Component
+@Slf4j
+public class ArticleNavigationIndex {
+    @Autowired
+    private ArticleDao articleDao;
+    @Autowired
+    private CategoryDao categoryDao;
+    @Autowired
+    private TagDao tagDao;
+    @Autowired
+    private ArticleChangeNotifier articleChangeNotifier;
+
+    /**
+     * 启动时为脏，第一次定时任务完成构建
+     */
+    private final AtomicBoolean dirty = new AtomicBoolean(true);
+    private volatile Snapshot snapshot = Snapshot.EMPTY;
+
+    @PostConstruct
+    public void init() {
+        articleChangeNotifier.addListener(() -> dirty.set(true));
+    }
+
+    /**
+     * 查找相邻文章
+     *
+     * @param by     按全站、分类还是标签排序
+     * @param metaId 分类或标签 id，为空时取文章自己的第一个分类/标签
+     * @return 相邻文章 id，没有时返回 null
+     */
+    public Long neighbour(Long articleId, boolean next, By by, Long metaId) {
+        return snapshot.neighbour(articleId, next, by, metaId);
+    }
+
+    @Scheduled(initialDelay = 0, fixedDelayString = "${article.navigation.refresh-ms:2000}")
+    public void refreshIfDirty() {
+        if (!dirty.getAndSet(false)) {
+            return;
+        }
+        try {
+            this.snapshot = Snapshot.build(articleDao.findIdAndCreatedBy(PUBLISHED.getValue()),
+                    categoryDao.findAllMap(), tagDao.findAllMap());
+            log.info("article navigation index rebuilt, articles: {}", snapshot.all.size());
+        } catch (Exception e) {
+            dirty.set(true);
+            log.error("rebuild article navigation index failed", e);
+        }
+    }
+
+    public enum By {
+        ALL, CATEGORY, TAG;
+
+        public static By from(String byType) {
+            for (By by : values()) {
+                if (by.name().equalsIgnoreCase(byType)) {
+                    return by;
+                }
+            }
+            return ALL;
+        }
+    }
+
+    /**
+     * 不可变的索引快照，重建时整体替换
+     */
+    static final class Snapshot {
+        static final Snapshot EMPTY = new Snapshot(Ordering.EMPTY, Collections.emptyMap(), Collections.emptyMap(),
+                Collections.emptyMap(), Collections.emptyMap(), Collections.emptyMap());
+
+        private final Ordering all;
+        private final Map<Long, Long> createdById;
+        private final Map<Long, Ordering> byCategory;
+        private final Map<Long, Ordering> byTag;
+        private final Map<Long, Long> firstCategoryOf;
+        private final Map<Long, Long> firstTagOf;
+
+        private Snapshot(Ordering all, Map<Long, Long> createdById, Map<Long, Ordering> byCategory,
+                         Map<Long, Ordering> byTag, Map<Long, Long> firstCategoryOf, Map<Long, Long> firstTagOf) {
+            this.all = all;
+            this.createdById = createdById;
+            this.byCategory = byCategory;
+            this.byTag = byTag;
+            this.firstCategoryOf = firstCategoryOf;
+            this.firstTagOf = firstTagOf;
+        }
+
+        static Snapshot build(List<Article> published, List<ArticleCategoryDto> categoryMaps,
+                              List<ArticleTagDto> tagMaps) {
+            Map<Long, Long> createdById = new HashMap<>(published.size() * 2);
+            published.forEach(article -> createdById.put(article.getId(),
+                    Objects.isNull(article.getCreated()) ? 0L : article.getCreated().toEpochMilli()));
+
+            Map<Long, List<Long>> categoryMembers = new HashMap<>();
+            Map<Long, Long> firstCategoryOf = new HashMap<>();
+            for (ArticleCategoryDto map : categoryMaps) {
+                if (createdById.containsKey(map.getArticleId())) {
+                    categoryMembers.computeIfAbsent(map.getId(), id -> new ArrayList<>()).add(map.getArticleId());
+                    firstCategoryOf.putIfAbsent(map.getArticleId(), map.getId());
+                }
+            }
+            Map<Long, List<Long>> tagMembers = new HashMap<>();
+            Map<Long, Long> firstTagOf = new HashMap<>();
+            for (ArticleTagDto map : tagMaps) {
+                if (createdById.containsKey(map.getArticleId())) {
+                    tagMembers.computeIfAbsent(map.getId(), id -> new ArrayList<>()).add(map.getArticleId());
+                    firstTagOf.putIfAbsent(map.getArticleId(), map.getId());
+                }
+            }
+
+            return new Snapshot(Ordering.of(createdById.keySet(), createdById), createdById,
+                    toOrderings(categoryMembers, createdById), toOrderings(tagMembers, createdById),
+                    firstCategoryOf, firstTagOf);
+        }
+
+        private static Map<Long, Ordering> toOrderings(Map<Long, List<Long>> members, Map<Long, Long> createdById) {
+            Map<Long, Ordering> orderings = new HashMap<>(members.size() * 2);
+            members.forEach((metaId, articleIds) -> orderings.put(metaId, Ordering.of(articleIds, createdById)));
+            return orderings;
+        }
+
+        Long neighbour(Long articleId, boolean next, By by, Long metaId) {
+            Long created = createdById.get(articleId);
+            if (Objects.isNull(created)) {
+                return null;
+            }
+            Ordering ordering;
+            switch (by) {
+                case CATEGORY:
+                    ordering = byCategory.get(Objects.isNull(metaId) ? firstCategoryOf.get(articleId) : metaId);
+                    break;
+                case TAG:
+                    ordering = byTag.get(Objects.isNull(metaId) ? firstTagOf.get(articleId) : metaId);
+                    break;
+                default:
+                    ordering = all;
+            }
+            return Objects.isNull(ordering) ? null : ordering.neighbour(created, articleId, next);
+        }
+    }
+
+    /**
+     * 按 (created, id) 升序的两个平行数组
+     */
+    static final class Ordering {
+        static final Ordering EMPTY = new Ordering(new long[0], new long[0]);
+
+        private final long[] created;
+        private final long[] ids;
+
+        private Ordering(long[] created, long[] ids) {
+            this.created = created;
+            this.ids = ids;
+        }
+
+        static Ordering of(Iterable<Long> articleIds, Map<Long, Long> createdById) {
+            List<Long> sorted = new ArrayList<>();
+            articleIds.forEach(sorted::add);
+            sorted.sort(Comparator.<Long>comparingLong(createdById::get).thenComparingLong(Long::longValue));
+            long[] created = new long[sorted.size()];
+            long[] ids = new long[sorted.size()];
+            for (int i = 0; i < sorted.size(); i++) {
+                ids[i] = sorted.get(i);
+                created[i] = createdById.get(ids[i]);
+            }
+            return new Ordering(created, ids);
+        }
+
+        int size() {
+            return ids.length;
+        }
+
+        /**
+         * 文章不在这个排序中时，按它的创建时间取插入位置两侧的文章
+         */
+        Long neighbour(long createdMillis, long articleId, boolean next) {
+            int low = 0;
+            int high = ids.length - 1;
+            while (low <= high) {
+                int mid = (low + high) >>> 1;
+                int cmp = created[mid] != createdMillis ? Long.compare(created[mid], createdMillis)
+                        : Long.compare(ids[mid], articleId);
+                if (cmp < 0) {
+                    low = mid + 1;
+                } else if (cmp > 0) {
+                    high = mid - 1;
+                } else {
+                    int target = next ? mid + 1 : mid - 1;
+                    return target >= 0 && target < ids.length ? ids[target] : null;
+                }
+            }
+            // low 为插入位置
+            int target = next ? low : low - 1;
+            return target >= 0 && target < ids.length ? ids[target] : null;
+        }
+    }
+}
@@ -0,0 +1,127 @@
+package com.jornah.service.article.render;
+
+import com.google.common.collect.ImmutableMap;
+import com.jornah.utils.OffHeapLruCache;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.BaseUnits;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PostConstruct;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+import java.util.zip.Deflater;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * 已发布文章序列化好的响应体 APIResponse&lt;ArticleVo&gt;，原始 json 和 gzip 后的各存一份，都放在堆外，
+ * 命中时不查数据库、不经过 MapStruct 和 Jackson，gzip 也只压缩一次。
+ * <p>
+ * 值带上生成时的 ETag(含 version、updated、status)，ETag 不一致视为未命中，所以其他节点保存文章后本节点不会返回旧内容；
+ * 本节点保存、删除文章或修改文章的标签分类时主动清除。
+ * 响应体里的阅读数是生成时的值，写入后一段时间过期，阅读数最多滞后这么久。
+ * 命中率、淘汰数和占用的堆外内存按 store(json/gzip) 注册为 article.rendered.* 指标
+ *
+ * @author licong
+ * @date 2026/10/18 22:20
+ */
+@Component
+public class RenderedArticleCache implements MeterBinder {
+    @Value("${article.rendered.json-max-bytes:201326592}")
+    private long jsonMaxBytes;
+    @Value("${article.rendered.gzip-max-bytes:33554432}")
+    private long gzipMaxBytes;
+    @Value("${article.rendered.block-size:8192}")
+    private int blockSize;
+    @Value("${article.rendered.expire-seconds:60}")
+    private long expireSeconds;
+
+    private OffHeapLruCache<Long> json;
+    private OffHeapLruCache<Long> gzip;
+
+    @PostConstruct
+    public void init() {
+        long expireMillis = TimeUnit.SECONDS.toMillis(expireSeconds);
+        this.json = new OffHeapLruCache<>(jsonMaxBytes, blockSize, expireMillis);
+        this.gzip = new OffHeapLruCache<>(gzipMaxBytes, blockSize, expireMillis);
+    }
+
+    /**
+     * @param render 未命中时序列化出响应体
+     */
+    public byte[] json(Long articleId, String etag, Supplier<byte[]> render) {
+        byte[] body = json.get(articleId, etag);
+        if (Objects.isNull(body)) {
+            body = render.get();
+            json.put(articleId, etag, body);
+        }
+        return body;
+    }
+
+    /**
+     * @param render 未命中时序列化出未压缩的响应体，优先取已缓存的 json
+     */
+    public byte[] gzip(Long articleId, String etag, Supplier<byte[]> render) {
+        byte[] body = gzip.get(articleId, etag);
+        if (Objects.isNull(body)) {
+            body = gzip(json(articleId, etag, render));
+            gzip.put(articleId, etag, body);
+        }
+        return body;
+    }
+
+    public void evict(Long articleId) {
+        json.invalidate(articleId);
+        gzip.invalidate(articleId);
+    }
+
+    public Map<String, OffHeapLruCache.Stats> stats() {
+        return ImmutableMap.of("json", json.stats(), "gzip", gzip.stats());
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        bindTo(registry, "json", json);
+        bindTo(registry, "gzip", gzip);
+    }
+
+    private static void bindTo(MeterRegistry registry, String store, OffHeapLruCache<Long> cache) {
+        FunctionCounter.builder("article.rendered.gets", cache, c -> c.stats().getHits())
+                .tags("store", store, "result", "hit").register(registry);
+        FunctionCounter.builder("article.rendered.gets", cache, c -> c.stats().getMisses())
+                .tags("store", store, "result", "miss").register(registry);
+        FunctionCounter.builder("article.rendered.evictions", cache, c -> c.stats().getEvictions())
+                .tags("store", store).register(registry);
+        Gauge.builder("article.rendered.entries", cache, c -> c.stats().getEntries())
+                .tags("store", store).register(registry);
+        Gauge.builder("article.rendered.used", cache, c -> c.stats().getUsedBytes())
+                .tags("store", store).baseUnit(BaseUnits.BYTES).register(registry);
+        Gauge.builder("article.rendered.capacity", cache, c -> c.stats().getCapacityBytes())
+                .tags("store", store).baseUnit(BaseUnits.BYTES).register(registry);
+    }
+
+    /**
+     * 只压缩一次，用最高压缩级别
+     */
+    static byte[] gzip(byte[] body) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream(body.length / 4 + 64);
+        try (GZIPOutputStream gzip = new GZIPOutputStream(out) {
+            {
+                def.setLevel(Deflater.BEST_COMPRESSION);
+            }
+        }) {
+            gzip.write(body);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return out.toByteArray();
+    }
+}
@@ -0,0 +1,257 @@
+package com.jornah.service.article.suggest;
+
+import com.baomidou.mybatisplus.core.conditions.query.QueryWrapper;
+import com.jornah.dao.ArticleDao;
+import com.jornah.dao.CategoryDao;
+import com.jornah.dao.TagDao;
+import com.jornah.model.dto.Suggestion;
+import com.jornah.service.article.ArticleChangeNotifier;
+import lombok.extern.slf4j.Slf4j;
+import net.sourceforge.pinyin4j.PinyinHelper;
+import net.sourceforge.pinyin4j.format.HanyuPinyinCaseType;
+import net.sourceforge.pinyin4j.format.HanyuPinyinOutputFormat;
+import net.sourceforge.pinyin4j.format.HanyuPinyinToneType;
+import net.sourceforge.pinyin4j.format.HanyuPinyinVCharType;
+import net.sourceforge.pinyin4j.format.exception.BadHanyuPinyinOutputFormatCombination;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PostConstruct;
+import java.text.Normalizer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static com.jornah.model.enums.ArticleStatus.PUBLISHED;
+
+/**
+ * 搜索框输入提示: 已发布文章的标题、标签名、分类名按前缀补全，全部在内存里，不访问 es 和数据库。
+ * 每一项生成若干个 key(原文小写、拼音全拼、拼音首字母，以及从每个词开始的后缀)，排好序放在数组里，
+ * 查询时二分找到前缀的下界后顺序扫描。
+ * 收到 {@link ArticleChangeNotifier} 的变更通知后标记为脏，由定时任务整体重建后替换快照
+ *
+ * @author licong
+ * @date 2026/10/18 20:40
+ */
+@Component
+@Slf4j
+public class ArticleSuggestIndex {
+    @Autowired
+    private ArticleDao articleDao;
+    @Autowired
+    private CategoryDao categoryDao;
+    @Autowired
+    private TagDao tagDao;
+    @Autowired
+    private ArticleChangeNotifier articleChangeNotifier;
+
+    /**
+     * 启动时为脏，第一次定时任务完成构建
+     */
+    private final AtomicBoolean dirty = new AtomicBoolean(true);
+    private volatile Snapshot snapshot = Snapshot.EMPTY;
+
+    @PostConstruct
+    public void init() {
+        articleChangeNotifier.addListener(() -> dirty.set(true));
+    }
+
+    public List<Suggestion> suggest(String prefix, int limit) {
+        return snapshot.suggest(prefix, limit);
+    }
+
+    @Scheduled(initialDelay = 0, fixedDelayString = "${article.suggest.refresh-ms:2000}")
+    public void refreshIfDirty() {
+        if (!dirty.getAndSet(false)) {
+            return;
+        }
+        try {
+            List<Suggestion> entries = new ArrayList<>();
+            articleDao.findIdAndTitleBy(PUBLISHED.getValue()).forEach(article ->
+                    entries.add(new Suggestion(Suggestion.Type.ARTICLE, article.getId(), article.getTitle())));
+            tagDao.selectList(new QueryWrapper<>()).forEach(tag ->
+                    entries.add(new Suggestion(Suggestion.Type.TAG, tag.getId(), tag.getName())));
+            categoryDao.selectList(new QueryWrapper<>()).forEach(category ->
+                    entries.add(new Suggestion(Suggestion.Type.CATEGORY, category.getId(), category.getName())));
+            this.snapshot = Snapshot.build(entries);
+            log.info("article suggest index rebuilt, entries: {}, keys: {}", entries.size(), snapshot.keys.length);
+        } catch (Exception e) {
+            dirty.set(true);
+            log.error("rebuild article suggest index failed", e);
+        }
+    }
+
+    /**
+     * 全角转半角、英文小写、连续空白合并为一个空格
+     */
+    static String normalize(String text) {
+        if (text == null) {
+            return "";
+        }
+        String normalized = Normalizer.normalize(text, Normalizer.Form.NFKC).toLowerCase(Locale.ROOT);
+        return normalized.trim().replaceAll("\\s+", " ");
+    }
+
+    /**
+     * 不可变的索引快照，重建时整体替换
+     */
+    static final class Snapshot {
+        static final Snapshot EMPTY = new Snapshot(new String[0], new int[0], new boolean[0], new Suggestion[0]);
+
+        /**
+         * 前缀匹配时最多扫描的 key 数，避免输入一个字母时扫完整个数组
+         */
+        private static final int MAX_SCAN = 2000;
+        private static final HanyuPinyinOutputFormat PINYIN_FORMAT = new HanyuPinyinOutputFormat();
+
+        static {
+            PINYIN_FORMAT.setCaseType(HanyuPinyinCaseType.LOWERCASE);
+            PINYIN_FORMAT.setToneType(HanyuPinyinToneType.WITHOUT_TONE);
+            PINYIN_FORMAT.setVCharType(HanyuPinyinVCharType.WITH_V);
+        }
+
+        /**
+         * 以下三个数组平行，按 key 升序
+         */
+        private final String[] keys;
+        private final int[] entryOf;
+        /**
+         * key 是否从原文开头开始，开头匹配的排在前面
+         */
+        private final boolean[] fromHead;
+        private final Suggestion[] entries;
+
+        private Snapshot(String[] keys, int[] entryOf, boolean[] fromHead, Suggestion[] entries) {
+            this.keys = keys;
+            this.entryOf = entryOf;
+            this.fromHead = fromHead;
+            this.entries = entries;
+        }
+
+        static Snapshot build(List<Suggestion> suggestions) {
+            List<Suggestion> entries = new ArrayList<>(suggestions.size());
+            List<Object[]> keyed = new ArrayList<>();
+            Map<Character, String> pinyinCache = new HashMap<>();
+            for (Suggestion suggestion : suggestions) {
+                if (suggestion.getText() == null || suggestion.getText().trim().isEmpty()) {
+                    continue;
+                }
+                int entry = entries.size();
+                entries.add(suggestion);
+                String text = normalize(suggestion.getText());
+                Set<String> seen = new LinkedHashSet<>();
+                for (int start : wordStarts(text)) {
+                    String tail = text.substring(start);
+                    for (String key : new String[]{tail, pinyin(tail, false, pinyinCache), pinyin(tail, true, pinyinCache)}) {
+                        if (!key.isEmpty() && seen.add(key)) {
+                            keyed.add(new Object[]{key, entry, start == 0});
+                        }
+                    }
+                }
+            }
+            keyed.sort(Comparator.comparing(item -> (String) item[0]));
+            String[] keys = new String[keyed.size()];
+            int[] entryOf = new int[keyed.size()];
+            boolean[] fromHead = new boolean[keyed.size()];
+            for (int i = 0; i < keyed.size(); i++) {
+                keys[i] = (String) keyed.get(i)[0];
+                entryOf[i] = (Integer) keyed.get(i)[1];
+                fromHead[i] = (Boolean) keyed.get(i)[2];
+            }
+            return new Snapshot(keys, entryOf, fromHead, entries.toArray(new Suggestion[0]));
+        }
+
+        List<Suggestion> suggest(String prefix, int limit) {
+            String normalized = normalize(prefix);
+            if (normalized.isEmpty() || limit <= 0) {
+                return Collections.emptyList();
+            }
+            // 每一项取最好的匹配: 0 从开头匹配，1 从中间某个词匹配
+            Map<Integer, Integer> rankOf = new HashMap<>();
+            int from = lowerBound(normalized);
+            int end = Math.min(keys.length, from + MAX_SCAN);
+            for (int i = from; i < end && keys[i].startsWith(normalized); i++) {
+                rankOf.merge(entryOf[i], fromHead[i] ? 0 : 1, Math::min);
+            }
+            List<Integer> matched = new ArrayList<>(rankOf.keySet());
+            matched.sort(Comparator.<Integer>comparingInt(rankOf::get)
+                    .thenComparing(entry -> entries[entry].getType())
+                    .thenComparingInt(entry -> entries[entry].getText().length())
+                    .thenComparingInt(entry -> entry));
+            List<Suggestion> result = new ArrayList<>(Math.min(limit, matched.size()));
+            for (int i = 0; i < matched.size() && i < limit; i++) {
+                result.add(entries[matched.get(i)]);
+            }
+            return result;
+        }
+
+        private int lowerBound(String prefix) {
+            int index = Arrays.binarySearch(keys, prefix);
+            return index >= 0 ? index : -index - 1;
+        }
+
+        /**
+         * 可以开始匹配的位置: 开头、空白和标点之后、每个汉字、字母数字与汉字的交界
+         */
+        private static List<Integer> wordStarts(String text) {
+            List<Integer> starts = new ArrayList<>();
+            for (int i = 0; i < text.length(); i++) {
+                char c = text.charAt(i);
+                if (!Character.isLetterOrDigit(c)) {
+                    continue;
+                }
+                if (i == 0 || isHan(c) || !Character.isLetterOrDigit(text.charAt(i - 1)) || isHan(text.charAt(i - 1))) {
+                    starts.add(i);
+                }
+            }
+            if (starts.isEmpty() || starts.get(0) != 0) {
+                starts.add(0, 0);
+            }
+            return starts;
+        }
+
+        /**
+         * 汉字转为拼音(多音字取第一个读音)，字母数字原样保留，其余字符去掉
+         *
+         * @param initials 只取每个汉字拼音的首字母
+         */
+        static String pinyin(String text, boolean initials, Map<Character, String> cache) {
+            StringBuilder sb = new StringBuilder(text.length() * (initials ? 1 : 4));
+            for (int i = 0; i < text.length(); i++) {
+                char c = text.charAt(i);
+                if (isHan(c)) {
+                    String syllable = cache.computeIfAbsent(c, Snapshot::toPinyin);
+                    if (!syllable.isEmpty()) {
+                        sb.append(initials ? syllable.substring(0, 1) : syllable);
+                    }
+                } else if (Character.isLetterOrDigit(c)) {
+                    sb.append(c);
+                }
+            }
+            return sb.toString();
+        }
+
+        private static String toPinyin(char c) {
+            try {
+                String[] readings = PinyinHelper.toHanyuPinyinStringArray(c, PINYIN_FORMAT);
+                return readings == null || readings.length == 0 ? "" : readings[0];
+            } catch (BadHanyuPinyinOutputFormatCombination e) {
+                // 格式是固定的，不会走到这里
+                throw new IllegalStateException(e);
+            }
+        }
+
+        private static boolean isHan(char c) {
+            return Character.UnicodeScript.of(c) == Character.UnicodeScript.HAN;
+        }
+    }
+}
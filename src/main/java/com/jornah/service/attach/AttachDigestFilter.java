@@ -0,0 +1,94 @@
+package com.jornah.service.attach;
+
+import com.google.common.hash.BloomFilter;
+import com.google.common.hash.Funnels;
+import com.jornah.dao.AttachDao;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Async;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PostConstruct;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 已有附件 md5 的布隆过滤器，启动后从 attach 表加载，新附件入库后加入。
+ * 不在过滤器里的 md5 一定没有上传过，不用查库；在过滤器里的再按 md5 唯一索引查一次。
+ * 附件删除后不会移出过滤器，只是多查一次库；重启时重新加载。加载完成前都按可能存在处理
+ *
+ * @author licong
+ * @date 2026/10/19 00:40
+ */
+@Component
+@Slf4j
+public class AttachDigestFilter {
+    @Autowired
+    private AttachDao attachDao;
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Value("${attach.dedup.expected-insertions:100000}")
+    private int expectedInsertions;
+    @Value("${attach.dedup.fpp:0.001}")
+    private double fpp;
+
+    private volatile BloomFilter<CharSequence> filter;
+    private volatile boolean loaded;
+    private final AtomicLong skippedProbes = new AtomicLong();
+
+    @PostConstruct
+    public void init() {
+        FunctionCounter.builder("attach.dedup.skipped.probes", skippedProbes, AtomicLong::get)
+                .description("布隆过滤器判定不存在、省掉的查库次数")
+                .register(meterRegistry);
+    }
+
+    @Async
+    @EventListener(ApplicationReadyEvent.class)
+    public void load() {
+        // 先换上空过滤器，加载期间新入库的 md5 也能加进去
+        BloomFilter<CharSequence> fresh =
+                BloomFilter.create(Funnels.stringFunnel(StandardCharsets.UTF_8), expectedInsertions, fpp);
+        this.loaded = false;
+        this.filter = fresh;
+        long[] count = {0};
+        attachDao.scanMd5(context -> {
+            fresh.put(context.getResultObject());
+            count[0]++;
+        });
+        this.loaded = true;
+        log.info("attach digest filter loaded {} md5, expected fpp {}", count[0], fresh.expectedFpp());
+    }
+
+    /**
+     * @return false 时一定没有这个 md5 的附件
+     */
+    public boolean mightContain(String md5) {
+        BloomFilter<CharSequence> current = this.filter;
+        if (!loaded || current == null || current.mightContain(md5)) {
+            return true;
+        }
+        skippedProbes.incrementAndGet();
+        return false;
+    }
+
+    public void add(String md5) {
+        BloomFilter<CharSequence> current = this.filter;
+        if (current != null) {
+            current.put(md5);
+        }
+    }
+
+    /**
+     * 过滤器判定不存在、省掉的查库次数
+     */
+    public long skippedProbes() {
+        return skippedProbes.get();
+    }
+}
@@ -14,11 +14,25 @@ import com.jornah.model.dto.AttachDto;
  */
 public interface AttachService {
 
+    /**
+     * 已有相同内容的附件时引用数加一并返回
+     * @param md5
+     * @return 没有时返回 null
+     */
+    Attach retainByMd5(String md5);
+
     /**
      * 添加单个附件信息
      * @param attach
+     * @return 实际记录的附件，并发上传了相同内容时返回先入库的那个，并删除刚上传的文件
+     */
+    Attach addAttach(Attach attach);
+
+    /**
+     * 撤销一次 retainByMd5 或 addAttach 得到的引用，引用数减到 0 时删除记录和七牛上的文件
+     * @param attach
      */
-    void addAttach(Attach attach);
+    void releaseAttach(Attach attach);
 
     /**
      * 获取所有的附件信息
@@ -36,7 +50,7 @@ public interface AttachService {
     AttachDto getAttachById(Integer id);
 
     /**
-     * 通过ID删除附件信息
+     * 通过ID删除附件信息，引用数减到 0 时才删除记录和七牛上的文件
      * @param id
      */
     void deleteAttach(Integer id);
@@ -7,14 +7,17 @@ package com.jornah.service.attach.impl;
 
 import com.github.pagehelper.PageHelper;
 import com.github.pagehelper.PageInfo;
+import com.jornah.api.QiNiuCloudService;
 import com.jornah.constant.ErrorConstant;
 import com.jornah.dao.AttachDao;
 import com.jornah.exception.BusinessException;
 import com.jornah.model.entity.Attach;
 import com.jornah.model.converter.AttachConverter;
 import com.jornah.model.dto.AttachDto;
+import com.jornah.service.attach.AttachDigestFilter;
 import com.jornah.service.attach.AttachService;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.dao.DuplicateKeyException;
 import org.springframework.stereotype.Service;
 
 /**
@@ -25,10 +28,49 @@ public class AttachServiceImpl implements AttachService {
 
     @Autowired
     private AttachDao attAchDao;
+    @Autowired
+    private AttachDigestFilter digestFilter;
+    @Autowired
+    private QiNiuCloudService qiNiuCloudService;
+
+    @Override
+    public Attach retainByMd5(String md5) {
+        if (null == md5 || !digestFilter.mightContain(md5)) {
+            return null;
+        }
+        Attach existing = attAchDao.findByMd5(md5);
+        // 查到后被删除了就当作没有
+        if (null == existing || attAchDao.retain(existing.getId()) == 0) {
+            return null;
+        }
+        return existing;
+    }
+
+    @Override
+    public Attach addAttach(Attach attach) {
+        try {
+            attAchDao.insert(attach);
+        } catch (DuplicateKeyException e) {
+            Attach existing = retainByMd5(attach.getMd5());
+            if (null != existing) {
+                qiNiuCloudService.delete(attach.getFname());
+                return existing;
+            }
+            // 先入库的又被删掉了
+            attAchDao.insert(attach);
+        }
+        if (null != attach.getMd5()) {
+            digestFilter.add(attach.getMd5());
+        }
+        return attach;
+    }
 
     @Override
-    public void addAttach(Attach attach) {
-        attAchDao.insert(attach);
+    public void releaseAttach(Attach attach) {
+        Long attachId = attach.getId();
+        if (attAchDao.release(attachId) > 0 && attAchDao.deleteUnreferenced(attachId) > 0) {
+            qiNiuCloudService.delete(attach.getFname());
+        }
     }
 
     @Override
@@ -44,11 +86,14 @@ public class AttachServiceImpl implements AttachService {
     }
 
     @Override
-
     public void deleteAttach(Integer id) {
         if (null == id) {
             throw BusinessException.of(ErrorConstant.Common.PARAM_IS_EMPTY);
         }
-        attAchDao.deleteById(id);
+        Attach attach = attAchDao.selectById(id);
+        if (null == attach) {
+            return;
+        }
+        releaseAttach(attach);
     }
 }
@@ -1,23 +1,81 @@
 package com.jornah.service.cache;
 
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.redisson.api.BatchOptions;
+import org.redisson.api.RBatch;
 import org.redisson.api.RBucket;
 import org.redisson.api.RList;
+import org.redisson.api.RListAsync;
+import org.redisson.api.RTopic;
 import org.redisson.api.RedissonClient;
+import org.redisson.client.codec.Codec;
+import org.redisson.client.codec.StringCodec;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 
+import javax.annotation.PostConstruct;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Objects;
 import java.util.concurrent.TimeUnit;
 import java.util.function.Function;
 import java.util.function.Supplier;
 
 /**
+ * 两级缓存: L1 进程内 caffeine(按容量和写入时间淘汰) + L2 redisson。
+ * 数据变更时通过 redis pub/sub 广播失效消息，所有节点清理各自的 L1。
+ * 每级的命中和未命中记在 cache.tiered.gets 上，按 cache、tier(l1/l2)、result(hit/miss) 区分
+ *
  * @author licong
  * @date 2023/2/15 00:19
  */
+@Slf4j
 public abstract class AbstractCacheService<ID, T extends Cacheable<ID>> implements CacheService<ID, T> {
+    private static final String INVALIDATE_TOPIC = "CACHE_INVALIDATE";
+    /**
+     * 失效消息中代表 list 的 id
+     */
+    private static final String LIST_MARK = "#LIST";
+    /**
+     * 失效消息中代表全部条目的 id
+     */
+    private static final String ALL_MARK = "#ALL";
+    private static final String LIST_KEY = "list";
+
     @Autowired
     protected RedissonClient redissonClient;
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Value("${cache.l1.maximum-size:1024}")
+    private long l1MaximumSize;
+    @Value("${cache.l1.expire-seconds:300}")
+    private long l1ExpireSeconds;
+
+    /**
+     * L1 以 String.valueOf(id) 为key，方便按失效消息中的 id 清理
+     */
+    private Cache<String, T> l1;
+    private Cache<String, List<T>> l1List;
+    private RTopic invalidateTopic;
+    private Counter l1Hits;
+    private Counter l1Misses;
+    private Counter l2Hits;
+    private Counter l2Misses;
+
+    /**
+     * 缓存名，同时作为 redis key 的前缀 和 失效消息的区分标识
+     */
+    protected abstract String cacheName();
 
     protected abstract RBucket<T> getBucketByKey(ID id);
 
@@ -25,26 +83,104 @@ public abstract class AbstractCacheService<ID, T extends Cacheable<ID>> implemen
 
     protected abstract void hitLog(ID id);
 
+    @PostConstruct
+    public void initCache() {
+        this.l1 = Caffeine.newBuilder()
+                .maximumSize(l1MaximumSize)
+                .expireAfterWrite(l1ExpireSeconds, TimeUnit.SECONDS)
+                .build();
+        this.l1List = Caffeine.newBuilder()
+                .maximumSize(1)
+                .expireAfterWrite(l1ExpireSeconds, TimeUnit.SECONDS)
+                .build();
+        this.invalidateTopic = redissonClient.getTopic(INVALIDATE_TOPIC, StringCodec.INSTANCE);
+        this.invalidateTopic.addListener(String.class, (channel, msg) -> onInvalidate(msg));
+        this.l1Hits = getsCounter("l1", "hit");
+        this.l1Misses = getsCounter("l1", "miss");
+        this.l2Hits = getsCounter("l2", "hit");
+        this.l2Misses = getsCounter("l2", "miss");
+    }
+
+    private Counter getsCounter(String tier, String result) {
+        return Counter.builder("cache.tiered.gets")
+                .tag("cache", cacheName())
+                .tag("tier", tier)
+                .tag("result", result)
+                .register(meterRegistry);
+    }
+
+    private void onInvalidate(String msg) {
+        String prefix = cacheName() + ":";
+        if (!msg.startsWith(prefix)) {
+            return;
+        }
+        String id = msg.substring(prefix.length());
+        if (LIST_MARK.equals(id)) {
+            l1List.invalidateAll();
+        } else if (ALL_MARK.equals(id)) {
+            l1.invalidateAll();
+        } else {
+            l1.invalidate(id);
+        }
+    }
+
+    private void publishInvalidate(String id) {
+        try {
+            invalidateTopic.publish(cacheName() + ":" + id);
+        } catch (Exception e) {
+            // 广播失败时其他节点的 L1 只能等过期
+            log.warn("publish cache invalidate failed, cache:{}, id:{}", cacheName(), id, e);
+        }
+    }
 
     @Override
     public T get(ID id) {
-        return getBucketByKey(id).get();
+        String l1Key = String.valueOf(id);
+        T fromL1 = l1.getIfPresent(l1Key);
+        if (Objects.nonNull(fromL1)) {
+            l1Hits.increment();
+            return fromL1;
+        }
+        l1Misses.increment();
+        T fromL2 = getBucketByKey(id).get();
+        if (Objects.nonNull(fromL2)) {
+            l2Hits.increment();
+            l1.put(l1Key, fromL2);
+        } else {
+            l2Misses.increment();
+        }
+        return fromL2;
     }
 
     @Override
     public boolean remove(ID id) {
-        return getBucketByKey(id).delete();
+        String l1Key = String.valueOf(id);
+        boolean deleted = getBucketByKey(id).delete();
+        l1.invalidate(l1Key);
+        publishInvalidate(l1Key);
+        return deleted;
+    }
+
+    /**
+     * 清理该缓存下所有单条目缓存，key 需遵循 cacheName:id 的格式
+     */
+    public void removeAll() {
+        redissonClient.getKeys().deleteByPattern(cacheName() + ":*");
+        l1.invalidateAll();
+        publishInvalidate(ALL_MARK);
     }
 
     @Override
     public void save(T t) {
         RBucket<T> bucket = getBucketByKey(t.cacheId());
         bucket.set(t);
+        l1.put(String.valueOf(t.cacheId()), t);
     }
 
     public void save(T t, long timeToLive, TimeUnit timeUnit) {
         RBucket<T> bucket = getBucketByKey(t.cacheId());
         bucket.set(t, timeToLive, timeUnit);
+        l1.put(String.valueOf(t.cacheId()), t);
     }
 
     public T getOrSaveCache(ID id, Function<ID, T> function) {
@@ -52,36 +188,114 @@ public abstract class AbstractCacheService<ID, T extends Cacheable<ID>> implemen
     }
 
     public T getOrSaveCache(ID id, Function<ID, T> function, long timeToLive, TimeUnit timeUnit) {
-        //todo disable cache due to serialization issue
-//        T fromCache = this.get(id);
-//        if (Objects.nonNull(fromCache)) {
-//            hitLog(id);
-//            return fromCache;
-//        }
+        T fromCache = this.get(id);
+        if (Objects.nonNull(fromCache)) {
+            hitLog(id);
+            return fromCache;
+        }
 
         T fromDB = function.apply(id);
-//        if (Objects.isNull(timeUnit)) {
-//            this.save(fromDB);
-//        } else {
-//            this.save(fromDB, timeToLive, timeUnit);
-//        }
+        if (Objects.isNull(fromDB)) {
+            return null;
+        }
+        if (Objects.isNull(timeUnit)) {
+            this.save(fromDB);
+        } else {
+            this.save(fromDB, timeToLive, timeUnit);
+        }
         return fromDB;
     }
 
+    /**
+     * 批量读取: L1 -> L2(一次 MGET) -> loader，loader 只会拿到两级缓存都未命中的 id
+     *
+     * @param loader 入参为未命中的 id，返回 id 与对象的映射
+     * @return id 与对象的映射，不包含 loader 也查不到的 id
+     */
+    public Map<ID, T> getOrSaveCache(Collection<ID> ids, Function<Collection<ID>, Map<ID, T>> loader,
+                                     long timeToLive, TimeUnit timeUnit) {
+        Map<ID, T> result = new LinkedHashMap<>();
+        // redis key -> id
+        Map<String, ID> missed = new LinkedHashMap<>();
+        Codec codec = null;
+        for (ID id : new LinkedHashSet<>(ids)) {
+            T fromL1 = l1.getIfPresent(String.valueOf(id));
+            if (Objects.nonNull(fromL1)) {
+                hitLog(id);
+                result.put(id, fromL1);
+                continue;
+            }
+            l1Misses.increment();
+            RBucket<T> bucket = getBucketByKey(id);
+            codec = bucket.getCodec();
+            missed.put(bucket.getName(), id);
+        }
+        l1Hits.increment(result.size());
+        if (missed.isEmpty()) {
+            return result;
+        }
+
+        Map<String, T> fromL2 = redissonClient.getBuckets(codec).get(missed.keySet().toArray(new String[0]));
+        fromL2.forEach((key, value) -> {
+            ID id = missed.remove(key);
+            hitLog(id);
+            l1.put(String.valueOf(id), value);
+            result.put(id, value);
+        });
+        l2Hits.increment(fromL2.size());
+        l2Misses.increment(missed.size());
+        if (missed.isEmpty()) {
+            return result;
+        }
+
+        Map<ID, T> fromDB = loader.apply(new ArrayList<>(missed.values()));
+        this.saveAll(fromDB.values(), timeToLive, timeUnit);
+        result.putAll(fromDB);
+        return result;
+    }
+
+    /**
+     * 一次 pipeline 写入多条
+     */
+    public void saveAll(Collection<T> list, long timeToLive, TimeUnit timeUnit) {
+        if (list.isEmpty()) {
+            return;
+        }
+        RBatch batch = redissonClient.createBatch(BatchOptions.defaults());
+        for (T t : list) {
+            RBucket<T> bucket = getBucketByKey(t.cacheId());
+            if (Objects.isNull(timeUnit)) {
+                batch.getBucket(bucket.getName(), bucket.getCodec()).setAsync(t);
+            } else {
+                batch.getBucket(bucket.getName(), bucket.getCodec()).setAsync(t, timeToLive, timeUnit);
+            }
+            l1.put(String.valueOf(t.cacheId()), t);
+        }
+        batch.execute();
+    }
 
     public List<T> getOrSaveCache(Supplier<List<T>> supplier, long timeToLive, TimeUnit timeUnit) {
-        //todo disable cache due to serialization issue
-//        RList<T> fromCache = this.getListByKey();
-//        if (fromCache.isExists()) {
-//            return fromCache.readAll();
-//        }
+        List<T> fromL1 = l1List.getIfPresent(LIST_KEY);
+        if (Objects.nonNull(fromL1)) {
+            l1Hits.increment();
+            return fromL1;
+        }
+        l1Misses.increment();
+        RList<T> fromCache = this.getListByKey();
+        if (fromCache.isExists()) {
+            l2Hits.increment();
+            List<T> fromL2 = Collections.unmodifiableList(fromCache.readAll());
+            l1List.put(LIST_KEY, fromL2);
+            return fromL2;
+        }
+        l2Misses.increment();
 
         List<T> fromDB = supplier.get();
-//        if (Objects.isNull(timeUnit)) {
-//            this.saveList(fromDB);
-//        } else {
-//            this.saveList(fromDB, timeToLive, timeUnit);
-//        }
+        if (Objects.isNull(timeUnit)) {
+            this.saveList(fromDB);
+        } else {
+            this.saveList(fromDB, timeToLive, timeUnit);
+        }
         return fromDB;
     }
 
@@ -91,15 +305,25 @@ public abstract class AbstractCacheService<ID, T extends Cacheable<ID>> implemen
 
     @Override
     public void saveList(List<T> list) {
-        RList<T> rList = this.getListByKey();
-        rList.addAll(list);
+        this.saveList(list, 0, null);
     }
 
     @Override
     public void saveList(List<T> list, long timeToLive, TimeUnit timeUnit) {
+        // 先删后写放在一个事务里，避免并发回源时 list 被重复追加
         RList<T> rList = this.getListByKey();
-        rList.addAll(list);
-        rList.expire(timeToLive, timeUnit);
+        RBatch batch = redissonClient.createBatch(BatchOptions.defaults()
+                .executionMode(BatchOptions.ExecutionMode.IN_MEMORY_ATOMIC));
+        RListAsync<T> listAsync = batch.getList(rList.getName(), rList.getCodec());
+        listAsync.deleteAsync();
+        if (!list.isEmpty()) {
+            listAsync.addAllAsync(list);
+            if (Objects.nonNull(timeUnit)) {
+                listAsync.expireAsync(timeToLive, timeUnit);
+            }
+        }
+        batch.execute();
+        l1List.put(LIST_KEY, Collections.unmodifiableList(list));
     }
 
     @Override
@@ -110,6 +334,8 @@ public abstract class AbstractCacheService<ID, T extends Cacheable<ID>> implemen
     @Override
     public void clearList() {
         this.getListByKey().delete();
+        l1List.invalidateAll();
+        publishInvalidate(LIST_MARK);
     }
 
 }
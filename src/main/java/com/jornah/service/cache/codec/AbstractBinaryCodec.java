@@ -0,0 +1,124 @@
+package com.jornah.service.cache.codec;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.ByteBufAllocator;
+import org.redisson.client.codec.BaseCodec;
+import org.redisson.client.protocol.Decoder;
+import org.redisson.client.protocol.Encoder;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.util.Objects;
+
+/**
+ * 缓存对象的二进制编解码，替代redisson默认的序列化方式。
+ * BaseEntity 没有实现 Serializable，默认codec会丢掉 id/created/updated，这里显式按字段读写
+ *
+ * @author licong
+ * @date 2026/10/18 10:12
+ */
+public abstract class AbstractBinaryCodec<T> extends BaseCodec {
+    /**
+     * 格式版本号，字段有变化时递增
+     */
+    private static final byte FORMAT_VERSION = 1;
+    private static final byte NULL = 0;
+    private static final byte NON_NULL = 1;
+
+    private final Encoder encoder = in -> {
+        ByteBuf out = ByteBufAllocator.DEFAULT.buffer();
+        try {
+            out.writeByte(FORMAT_VERSION);
+            write(out, (T) in);
+            return out;
+        } catch (RuntimeException e) {
+            out.release();
+            throw new IOException("encode failed: " + in, e);
+        }
+    };
+
+    private final Decoder<Object> decoder = (buf, state) -> {
+        byte version = buf.readByte();
+        if (version != FORMAT_VERSION) {
+            throw new IOException("unsupported format version: " + version);
+        }
+        return read(buf);
+    };
+
+    public abstract void write(ByteBuf out, T value);
+
+    public abstract T read(ByteBuf in);
+
+    @Override
+    public Decoder<Object> getValueDecoder() {
+        return decoder;
+    }
+
+    @Override
+    public Encoder getValueEncoder() {
+        return encoder;
+    }
+
+    protected static void writeLong(ByteBuf out, Long value) {
+        if (Objects.isNull(value)) {
+            out.writeByte(NULL);
+            return;
+        }
+        out.writeByte(NON_NULL);
+        out.writeLong(value);
+    }
+
+    protected static Long readLong(ByteBuf in) {
+        return in.readByte() == NULL ? null : in.readLong();
+    }
+
+    protected static void writeString(ByteBuf out, String value) {
+        if (Objects.isNull(value)) {
+            out.writeInt(-1);
+            return;
+        }
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        out.writeInt(bytes.length);
+        out.writeBytes(bytes);
+    }
+
+    protected static String readString(ByteBuf in) {
+        int length = in.readInt();
+        if (length < 0) {
+            return null;
+        }
+        String value = in.toString(in.readerIndex(), length, StandardCharsets.UTF_8);
+        in.skipBytes(length);
+        return value;
+    }
+
+    protected static void writeInstant(ByteBuf out, Instant value) {
+        if (Objects.isNull(value)) {
+            out.writeByte(NULL);
+            return;
+        }
+        out.writeByte(NON_NULL);
+        out.writeLong(value.getEpochSecond());
+        out.writeInt(value.getNano());
+    }
+
+    protected static Instant readInstant(ByteBuf in) {
+        if (in.readByte() == NULL) {
+            return null;
+        }
+        long seconds = in.readLong();
+        int nanos = in.readInt();
+        return Instant.ofEpochSecond(seconds, nanos);
+    }
+
+    protected static boolean writeNullFlag(ByteBuf out, Object value) {
+        boolean isNull = Objects.isNull(value);
+        out.writeByte(isNull ? NULL : NON_NULL);
+        return isNull;
+    }
+
+    protected static boolean readNullFlag(ByteBuf in) {
+        return in.readByte() == NULL;
+    }
+}
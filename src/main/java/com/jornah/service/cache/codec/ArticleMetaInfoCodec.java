@@ -0,0 +1,49 @@
+package com.jornah.service.cache.codec;
+
+import com.jornah.model.entity.Tag;
+import com.jornah.model.vo.ArticleMetaInfo;
+import io.netty.buffer.ByteBuf;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * @author licong
+ * @date 2026/10/18 10:41
+ */
+public class ArticleMetaInfoCodec extends AbstractBinaryCodec<ArticleMetaInfo> {
+    public static final ArticleMetaInfoCodec INSTANCE = new ArticleMetaInfoCodec();
+
+    @Override
+    public void write(ByteBuf out, ArticleMetaInfo value) {
+        if (writeNullFlag(out, value)) {
+            return;
+        }
+        writeLong(out, value.getArticleId());
+        List<Tag> tags = value.getTags();
+        if (!writeNullFlag(out, tags)) {
+            out.writeInt(tags.size());
+            tags.forEach(tag -> TagCodec.INSTANCE.write(out, tag));
+        }
+        CategoryCodec.INSTANCE.write(out, value.getCategory());
+    }
+
+    @Override
+    public ArticleMetaInfo read(ByteBuf in) {
+        if (readNullFlag(in)) {
+            return null;
+        }
+        ArticleMetaInfo metaInfo = new ArticleMetaInfo();
+        metaInfo.setArticleId(readLong(in));
+        if (!readNullFlag(in)) {
+            int size = in.readInt();
+            List<Tag> tags = new ArrayList<>(size);
+            for (int i = 0; i < size; i++) {
+                tags.add(TagCodec.INSTANCE.read(in));
+            }
+            metaInfo.setTags(tags);
+        }
+        metaInfo.setCategory(CategoryCodec.INSTANCE.read(in));
+        return metaInfo;
+    }
+}
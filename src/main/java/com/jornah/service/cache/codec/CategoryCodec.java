@@ -0,0 +1,36 @@
+package com.jornah.service.cache.codec;
+
+import com.jornah.model.entity.Category;
+import io.netty.buffer.ByteBuf;
+
+/**
+ * @author licong
+ * @date 2026/10/18 10:34
+ */
+public class CategoryCodec extends AbstractBinaryCodec<Category> {
+    public static final CategoryCodec INSTANCE = new CategoryCodec();
+
+    @Override
+    public void write(ByteBuf out, Category value) {
+        if (writeNullFlag(out, value)) {
+            return;
+        }
+        writeLong(out, value.getId());
+        writeInstant(out, value.getCreated());
+        writeInstant(out, value.getUpdated());
+        writeString(out, value.getName());
+    }
+
+    @Override
+    public Category read(ByteBuf in) {
+        if (readNullFlag(in)) {
+            return null;
+        }
+        Category category = new Category();
+        category.setId(readLong(in));
+        category.setCreated(readInstant(in));
+        category.setUpdated(readInstant(in));
+        category.setName(readString(in));
+        return category;
+    }
+}
@@ -0,0 +1,36 @@
+package com.jornah.service.cache.codec;
+
+import com.jornah.model.entity.Tag;
+import io.netty.buffer.ByteBuf;
+
+/**
+ * @author licong
+ * @date 2026/10/18 10:30
+ */
+public class TagCodec extends AbstractBinaryCodec<Tag> {
+    public static final TagCodec INSTANCE = new TagCodec();
+
+    @Override
+    public void write(ByteBuf out, Tag value) {
+        if (writeNullFlag(out, value)) {
+            return;
+        }
+        writeLong(out, value.getId());
+        writeInstant(out, value.getCreated());
+        writeInstant(out, value.getUpdated());
+        writeString(out, value.getName());
+    }
+
+    @Override
+    public Tag read(ByteBuf in) {
+        if (readNullFlag(in)) {
+            return null;
+        }
+        Tag tag = new Tag();
+        tag.setId(readLong(in));
+        tag.setCreated(readInstant(in));
+        tag.setUpdated(readInstant(in));
+        tag.setName(readString(in));
+        return tag;
+    }
+}
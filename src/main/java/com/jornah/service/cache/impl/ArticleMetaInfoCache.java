@@ -2,6 +2,7 @@ package com.jornah.service.cache.impl;
 
 import com.jornah.model.vo.ArticleMetaInfo;
 import com.jornah.service.cache.AbstractCacheService;
+import com.jornah.service.cache.codec.ArticleMetaInfoCodec;
 import lombok.extern.slf4j.Slf4j;
 import org.redisson.api.RBucket;
 import org.redisson.api.RList;
@@ -16,10 +17,15 @@ import org.springframework.stereotype.Service;
 public class ArticleMetaInfoCache extends AbstractCacheService<Long, ArticleMetaInfo> {
     private static final String ARTICLE_META_INFO = "ARTICLE_META_INFO";
 
+    @Override
+    protected String cacheName() {
+        return ARTICLE_META_INFO;
+    }
+
     @Override
     protected RBucket<ArticleMetaInfo> getBucketByKey(Long id) {
-        String key = String.format("%s:%s", ARTICLE_META_INFO, id);
-        return this.redissonClient.getBucket(key);
+        String key = String.format("%s:%s", cacheName(), id);
+        return this.redissonClient.getBucket(key, ArticleMetaInfoCodec.INSTANCE);
     }
 
     @Override
@@ -2,6 +2,7 @@ package com.jornah.service.cache.impl;
 
 import com.jornah.model.entity.Category;
 import com.jornah.service.cache.AbstractCacheService;
+import com.jornah.service.cache.codec.CategoryCodec;
 import lombok.extern.slf4j.Slf4j;
 import org.redisson.api.RBucket;
 import org.redisson.api.RList;
@@ -17,15 +18,20 @@ public class CategoryCache extends AbstractCacheService<Long, Category> {
     private static final String CATEGORY = "CATEGORY";
     private static final String ALL_CATEGORY = "ALL_CATEGORY";
 
+    @Override
+    protected String cacheName() {
+        return CATEGORY;
+    }
+
     @Override
     protected RBucket<Category> getBucketByKey(Long id) {
-        String key = String.format("%s:%s", CATEGORY, id);
-        return this.redissonClient.getBucket(key);
+        String key = String.format("%s:%s", cacheName(), id);
+        return this.redissonClient.getBucket(key, CategoryCodec.INSTANCE);
     }
 
     @Override
     protected RList<Category> getListByKey() {
-        return this.redissonClient.getList(ALL_CATEGORY);
+        return this.redissonClient.getList(ALL_CATEGORY, CategoryCodec.INSTANCE);
     }
 
     @Override
@@ -2,6 +2,7 @@ package com.jornah.service.cache.impl;
 
 import com.jornah.model.entity.Tag;
 import com.jornah.service.cache.AbstractCacheService;
+import com.jornah.service.cache.codec.TagCodec;
 import lombok.extern.slf4j.Slf4j;
 import org.redisson.api.RBucket;
 import org.redisson.api.RList;
@@ -17,15 +18,20 @@ public class RecommendArticleCache extends AbstractCacheService<Long, Tag> {
     private static final String TAG = "ARTICLE";
     private static final String ALL_TAG = "ALL_TAG";
 
+    @Override
+    protected String cacheName() {
+        return TAG;
+    }
+
     @Override
     protected RBucket<Tag> getBucketByKey(Long id) {
-        String key = String.format("%s:%s", TAG, id);
-        return this.redissonClient.getBucket(key);
+        String key = String.format("%s:%s", cacheName(), id);
+        return this.redissonClient.getBucket(key, TagCodec.INSTANCE);
     }
 
     @Override
     protected RList<Tag> getListByKey() {
-        return this.redissonClient.getList(ALL_TAG);
+        return this.redissonClient.getList(ALL_TAG, TagCodec.INSTANCE);
     }
 
     @Override
@@ -0,0 +1,60 @@
+package com.jornah.service.es;
+
+import com.jornah.model.dto.ContentEsDTO;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.commons.lang3.StringUtils;
+import org.springframework.data.elasticsearch.core.ElasticsearchOperations;
+import org.springframework.data.elasticsearch.core.mapping.IndexCoordinates;
+import org.springframework.data.elasticsearch.core.query.IndexQuery;
+import org.springframework.data.elasticsearch.core.query.IndexQueryBuilder;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 攒批写 es，文档数或内容大小任一达到上限就发一次 bulk 请求。
+ * 非线程安全，每次同步任务单独创建
+ *
+ * @author licong
+ * @date 2026/10/18 14:20
+ */
+@Slf4j
+class EsBulkWriter {
+    private final ElasticsearchOperations template;
+    private final int maxActions;
+    private final long maxBytes;
+
+    private final List<IndexQuery> pending = new ArrayList<>();
+    private long pendingBytes;
+    private int written;
+
+    EsBulkWriter(ElasticsearchOperations template, int maxActions, long maxBytes) {
+        this.template = template;
+        this.maxActions = maxActions;
+        this.maxBytes = maxBytes;
+    }
+
+    void add(ContentEsDTO dto) {
+        pending.add(new IndexQueryBuilder().withId(dto.getId()).withObject(dto).build());
+        // 按字符数粗略估算，中文 utf-8 下实际字节更多，上限留足余量即可
+        pendingBytes += StringUtils.length(dto.getContent()) + StringUtils.length(dto.getTitle());
+        if (pending.size() >= maxActions || pendingBytes >= maxBytes) {
+            flush();
+        }
+    }
+
+    void flush() {
+        if (pending.isEmpty()) {
+            return;
+        }
+        template.bulkIndex(pending, IndexCoordinates.of(ContentEsDTO.INDEX_NAME));
+        written += pending.size();
+        log.info("es bulk index, docs:{}, chars:{}", pending.size(), pendingBytes);
+        pending.clear();
+        pendingBytes = 0;
+    }
+
+    int getWritten() {
+        return written;
+    }
+}
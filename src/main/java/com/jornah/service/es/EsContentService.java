@@ -6,46 +6,62 @@ import com.jornah.model.entity.Article;
 import com.jornah.model.dto.ArticleBodyHitInfo;
 import com.jornah.model.dto.ArticleHitInfo;
 import com.jornah.model.dto.ContentEsDTO;
+import com.jornah.model.dto.HeadingEsDTO;
 import com.jornah.model.dto.SearchResult;
-import com.jornah.utils.MyStringUtil;
+import com.jornah.model.enums.ArticleStatus;
+import com.jornah.service.es.EsSyncCheckpoint.Mark;
+import com.jornah.utils.LineNumberEngine;
+import org.apache.ibatis.cursor.Cursor;
 import org.elasticsearch.index.query.QueryBuilders;
 import org.elasticsearch.search.fetch.subphase.highlight.HighlightBuilder;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.elasticsearch.core.ElasticsearchRestTemplate;
 import org.springframework.data.elasticsearch.core.SearchHits;
-import org.springframework.data.elasticsearch.core.document.Document;
 import org.springframework.data.elasticsearch.core.mapping.IndexCoordinates;
+import org.springframework.data.elasticsearch.core.query.FetchSourceFilter;
+import org.springframework.data.elasticsearch.core.query.IndexQuery;
+import org.springframework.data.elasticsearch.core.query.IndexQueryBuilder;
 import org.springframework.data.elasticsearch.core.query.NativeSearchQuery;
 import org.springframework.data.elasticsearch.core.query.NativeSearchQueryBuilder;
-import org.springframework.data.elasticsearch.core.query.UpdateQuery;
-import org.springframework.scheduling.annotation.Async;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.time.Instant;
 import java.util.ArrayList;
-import java.util.Comparator;
-import java.util.HashMap;
+import java.util.Collections;
 import java.util.List;
 import java.util.Map;
 import java.util.Objects;
 import java.util.Optional;
+import java.util.TreeMap;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 import java.util.stream.Collectors;
-import java.util.stream.Stream;
 
 import static com.jornah.utils.MyStringUtil.LineNoFormat;
 import static com.jornah.utils.MyStringUtil.LineNoRegex;
 import static com.jornah.utils.MyStringUtil.generateLineNumberForText;
-import static java.lang.Integer.parseInt;
 
+/**
+ * es 搜索引擎。文章变更由发件箱 ({@link EsOutboxDispatcher}) 调用 {@link #bulkIndex} 写入，这是正常情况下的主路径；
+ * 定时增量同步只补发件箱之外的变更(直接改库、发件箱丢失等)，发件箱已写入的文章记在 {@link SyncWindow} 中，不会重复写。
+ * 只有已发布的文章进索引，草稿和已删除的文章从索引中删掉
+ */
 @Service
-public class EsContentService {
+public class EsContentService implements SearchEngine {
+    public static final String NAME = "es";
+
     private final ElasticsearchRestTemplate template;
 
-    public static final String LINE_NO_REGEX = "(?<=:)\\d+(?=:)";
-    private static final Pattern lineNoPattern = Pattern.compile(LINE_NO_REGEX);
     private static final Pattern headerPattern = Pattern.compile("(" + LineNoRegex + ")( *#|#).+");
+    /**
+     * es 命中上下文可能截断行号标记，如 :1 或者 1:
+     */
+    private static final Pattern partialLineNoPattern = Pattern.compile(LineNoRegex + "|:\\d+|\\d+:");
 
     @Autowired
     public EsContentService(ElasticsearchRestTemplate template) {
@@ -54,14 +70,36 @@ public class EsContentService {
 
     @Autowired
     private ArticleDao articleDao;
+    @Autowired
+    private EsSyncCheckpoint syncCheckpoint;
+    @Autowired
+    private SearchResultCache searchResultCache;
+
+    private final SyncWindow syncWindow = new SyncWindow();
+
+    @Value("${es.sync.page-size:100}")
+    private int syncPageSize;
+    @Value("${es.sync.overlap-seconds:5}")
+    private long syncOverlapSeconds;
+    @Value("${es.sync.bulk-max-actions:200}")
+    private int bulkMaxActions;
+    @Value("${es.sync.bulk-max-bytes:5242880}")
+    private long bulkMaxBytes;
+
+    @Override
+    public String name() {
+        return NAME;
+    }
 
+    @Override
     public List<SearchResult> findByContentOrTitle(String input, int pageNum, int pageSize) {
         int pageIndex = pageNum - 1;
         PageRequest pageRequest = PageRequest.of(pageIndex, pageSize);
 
+        // 高亮由 es 从 _source 中取正文生成，返回结果里不需要 content
         NativeSearchQuery query = new NativeSearchQueryBuilder().withQuery(QueryBuilders.multiMatchQuery(input, "content", "title"))
                 .withPageable(pageRequest)
-                .withFields("content", "title", "url")
+                .withSourceFilter(new FetchSourceFilter(new String[]{"title", "url"}, null))
                 .withHighlightBuilder(new HighlightBuilder().field("content").field("title").tagsSchema("styled"))
                 .build();
         List<SearchResult> resultList = Lists.newArrayList();
@@ -77,13 +115,14 @@ public class EsContentService {
         return resultList;
     }
 
+    @Override
     public List<ArticleHitInfo> findWithAnchorByContentOrTitle(String input, int pageNum, int pageSize) {
         int pageIndex = pageNum - 1;
         PageRequest pageRequest = PageRequest.of(pageIndex, pageSize);
 
         NativeSearchQuery query = new NativeSearchQueryBuilder().withQuery(QueryBuilders.multiMatchQuery(input, "content", "title"))
                 .withPageable(pageRequest)
-                .withFields("content", "title", "url")
+                .withSourceFilter(new FetchSourceFilter(new String[]{"title", "url", "headings"}, null))
                 .withHighlightBuilder(new HighlightBuilder().field("content").field("title").tagsSchema("styled"))
                 .build();
         List<ArticleHitInfo> resultList = Lists.newArrayList();
@@ -92,11 +131,9 @@ public class EsContentService {
         search.stream().forEach(hit -> {
             String url = hit.getContent().getUrl();
             String title = hit.getContent().getTitle();
-            String content = hit.getContent().getContent();
             Map<String, List<String>> highlightFields = hit.getHighlightFields();
-            // get all headline and no
-            Map<Integer, String> headLines = getHeadFromContent(content);
-            List<ArticleBodyHitInfo> articleBodyHitInfos = generateBodyHitInfo(highlightFields.get("content"), headLines);
+            List<ArticleBodyHitInfo> articleBodyHitInfos = generateBodyHitInfo(highlightFields.get("content"),
+                    Optional.ofNullable(hit.getContent().getHeadings()).orElse(Collections.emptyList()));
             ArticleHitInfo articleHitInfo = new ArticleHitInfo(url, title, articleBodyHitInfos);
             resultList.add(articleHitInfo);
         });
@@ -104,98 +141,269 @@ public class EsContentService {
     }
 
     /**
-     * @return mam.key=标题的行号,value=标题的内容
+     * 从带行号的正文中提取标题大纲，建索引时调用一次
+     *
+     * @return 按行号升序
      */
-    private Map<Integer, String> getHeadFromContent(String content) {
-        List<String> headLines = new ArrayList<>();
-        Optional.ofNullable(content).ifPresent(c -> {
-            Matcher matcher = headerPattern.matcher(c);
-            while (matcher.find()) {
-                headLines.add(matcher.group());
+    static List<HeadingEsDTO> outline(String numberedContent) {
+        List<HeadingEsDTO> headings = new ArrayList<>();
+        if (Objects.isNull(numberedContent)) {
+            return headings;
+        }
+        Matcher matcher = headerPattern.matcher(numberedContent);
+        while (matcher.find()) {
+            String headLine = matcher.group();
+            int lineNo = LineNumberEngine.DEFAULT.lastLineNo(matcher.group(1));
+            String text = headLine.substring(matcher.end(1) - matcher.start()).trim();
+            int level = 0;
+            while (level < text.length() && text.charAt(level) == '#') {
+                level++;
             }
-        });
+            String anchor = headLine.replaceAll("#|" + LineNoRegex, "").trim().replaceAll("\\s", "-");
+            headings.add(new HeadingEsDTO(lineNo, level, headLine, anchor));
+        }
+        return headings;
+    }
+
+    /**
+     * 全量重建: 游标流式读取文章，攒批 bulk 写入，内存占用与文章总量无关，未发布的文章最后一次删除。
+     * 完成后把水位设置到本次读到的最大 (updated, id)。同步窗口只记 (id, updated)，随最大值前移定期裁剪，不留文章本身
+     */
+    @Override
+    @Transactional(readOnly = true)
+    public int rebuild() {
+        EsBulkWriter writer = newBulkWriter();
+        Mark max = new Mark(Instant.EPOCH, 0L);
+        SyncWindow recent = new SyncWindow();
+        List<String> removed = new ArrayList<>();
+        int scanned = 0;
+        try (Cursor<Article> cursor = articleDao.scanAll()) {
+            for (Article article : cursor) {
+                if (searchable(article)) {
+                    writer.add(toEsDTO(article));
+                } else {
+                    removed.add(article.getId().toString());
+                }
+                max = maxOf(max, article);
+                recent.record(article);
+                if (++scanned % syncPageSize == 0) {
+                    recent.retainFrom(max.getUpdated().minusSeconds(syncOverlapSeconds));
+                }
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        writer.flush();
+        deleteAll(removed);
+        // 全部写完才合并，中途失败时不会把没写进去的文章当作已写入
+        syncWindow.record(recent);
+        syncWindow.retainFrom(max.getUpdated().minusSeconds(syncOverlapSeconds));
+        refreshAndInvalidate();
+        syncCheckpoint.save(max);
+        return writer.getWritten();
+    }
+
+    /**
+     * 按 (updated, id) 取较大的一个，updated 为空的文章不参与增量同步
+     */
+    static Mark maxOf(Mark mark, Article article) {
+        Instant updated = article.getUpdated();
+        if (Objects.isNull(updated)) {
+            return mark;
+        }
+        int compare = updated.compareTo(mark.getUpdated());
+        return compare > 0 || (compare == 0 && article.getId() > mark.getId()) ? new Mark(updated, article.getId()) : mark;
+    }
 
-        // 假如这个header他没有LineNo呢，程序应该兼容，
-        //
-        HashMap<Integer, String> headWithLineNo = new HashMap<>();
-        for (String headLine : headLines) {
-            Matcher matcher = lineNoPattern.matcher(headLine);
-            if (matcher.find()) {
-                int lineNo = parseInt(matcher.group());
-                headWithLineNo.put(lineNo, headLine);
+    /**
+     * 增量同步: 从水位开始按 (updated, id) 键集分页读取变更的文章，每批写完推进一次水位。
+     * 另外重扫水位之前 overlap-seconds 内的文章，补上提交顺序与 updated 顺序不一致而漏掉的，
+     * 已经写入过的(见 {@link SyncWindow})不再重复写；没有写入时不刷新索引，也不失效搜索缓存
+     *
+     * @return 本次同步的文档数，没有水位时返回 -1，需要先全量重建
+     */
+    @Override
+    public int syncIncrementally() {
+        Optional<Mark> saved = syncCheckpoint.load();
+        if (!saved.isPresent()) {
+            return -1;
+        }
+        Mark mark = saved.get();
+        EsBulkWriter writer = newBulkWriter();
+        List<Article> late = syncWindow.unwritten(articleDao.findUpdatedBetween(
+                mark.getUpdated().minusSeconds(syncOverlapSeconds), mark.getUpdated(), mark.getId()));
+        int removed = write(writer, late);
+        syncWindow.record(late);
+
+        List<Article> page;
+        do {
+            page = articleDao.findUpdatedAfter(mark.getUpdated(), mark.getId(), syncPageSize);
+            if (page.isEmpty()) {
+                break;
             }
+            List<Article> changed = syncWindow.unwritten(page);
+            removed += write(writer, changed);
+            syncWindow.record(changed);
+            Article last = page.get(page.size() - 1);
+            mark = new Mark(last.getUpdated(), last.getId());
+            syncCheckpoint.save(mark);
+        } while (page.size() >= syncPageSize);
+        syncWindow.retainFrom(mark.getUpdated().minusSeconds(syncOverlapSeconds));
+
+        int written = writer.getWritten() + removed;
+        if (written > 0) {
+            refreshAndInvalidate();
         }
-        return headWithLineNo;
+        return written;
     }
 
-    public void exportDataToEs() {
-        articleDao.findAll().forEach(content -> {
-            ContentEsDTO contentEsDTO = new ContentEsDTO(content.getId().toString(), "/detail/" + content.getId(), content.getTitle(),
-                    content.getCreated().toEpochMilli(), content.getUpdated().toEpochMilli(),
-                    MyStringUtil.generateLineNumberForText(content.getContent(), MyStringUtil.LineNoFormat, true));
-            template.save(contentEsDTO);
-        });
+    /**
+     * 已发布的攒批写入，其余的删除
+     *
+     * @return 删除的文档数
+     */
+    private int write(EsBulkWriter writer, List<Article> articles) {
+        List<String> removed = new ArrayList<>();
+        for (Article article : articles) {
+            if (searchable(article)) {
+                writer.add(toEsDTO(article));
+            } else {
+                removed.add(article.getId().toString());
+            }
+        }
+        writer.flush();
+        deleteAll(removed);
+        return removed.size();
     }
 
-    @Async
-    public void add(Article article) {
-        article.setContent(generateLineNumberForText(article.getContent(), LineNoFormat, true));
-        ContentEsDTO contentEsDTO = new ContentEsDTO(article.getId().toString(), "/detail/" + article.getId(), article.getTitle(),
-                article.getCreated().toEpochMilli(), article.getUpdated().toEpochMilli(),
-                article.getContent());
-        template.save(contentEsDTO);
-    }
-
-    @Async
-    public void update(Article article) {
-        // 更新有多种方式 https://www.jianshu.com/p/1636ff0b800d
-        article.setContent(generateLineNumberForText(article.getContent(), LineNoFormat, true));
-        if (template.exists(article.getId().toString(), ContentEsDTO.class)) {
-            UpdateQuery updateQuery = UpdateQuery.builder(article.getId().toString()).withDocument(Document.create().append("content", article.getContent()))
-                    .build();
-            template.update(updateQuery, IndexCoordinates.of(ContentEsDTO.INDEX_NAME));
-        } else {
-            add(article);
+    /**
+     * 一次 bulk 请求写入已发布的文章，再一次请求删除其余的，部分失败时抛出 BulkFailureException。
+     * 写入成功后记入同步窗口，增量同步不再重复写；刷新索引后才失效搜索缓存
+     */
+    @Override
+    public void bulkIndex(List<Article> articles) {
+        if (articles.isEmpty()) {
+            return;
         }
+        List<IndexQuery> queries = articles.stream()
+                .filter(EsContentService::searchable)
+                .map(EsContentService::toEsDTO)
+                .map(dto -> new IndexQueryBuilder().withId(dto.getId()).withObject(dto).build())
+                .collect(Collectors.toList());
+        List<String> removed = articles.stream()
+                .filter(article -> !searchable(article))
+                .map(article -> article.getId().toString())
+                .collect(Collectors.toList());
+        try {
+            if (!queries.isEmpty()) {
+                template.bulkIndex(queries, IndexCoordinates.of(ContentEsDTO.INDEX_NAME));
+            }
+            deleteAll(removed);
+        } catch (RuntimeException e) {
+            // 部分失败时成功的那部分也已写入，刷新成功才失效缓存，原来的异常留给发件箱重试
+            try {
+                refreshAndInvalidate();
+            } catch (RuntimeException refreshFailure) {
+                e.addSuppressed(refreshFailure);
+            }
+            throw e;
+        }
+        syncWindow.record(articles);
+        refreshAndInvalidate();
+    }
+
+    /**
+     * es 写入后要到下次刷新(默认1秒)才能被搜到，先刷新再让搜索缓存换代，
+     * 否则刷新前的搜索会把旧结果缓存在新的代数下
+     */
+    private void refreshAndInvalidate() {
+        template.indexOps(ContentEsDTO.class).refresh();
+        searchResultCache.onIndexChanged();
+    }
+
+    /**
+     * 按 id 一次删除，文档不存在时忽略
+     */
+    private void deleteAll(List<String> ids) {
+        if (ids.isEmpty()) {
+            return;
+        }
+        NativeSearchQuery query = new NativeSearchQueryBuilder()
+                .withQuery(QueryBuilders.idsQuery().addIds(ids.toArray(new String[0])))
+                .build();
+        template.delete(query, ContentEsDTO.class, IndexCoordinates.of(ContentEsDTO.INDEX_NAME));
     }
 
-    @Async
-    public void delete(String id) {
-        template.delete(id, IndexCoordinates.of(ContentEsDTO.INDEX_NAME));
+    /**
+     * 只有已发布的文章可以被搜索到
+     */
+    static boolean searchable(Article article) {
+        return ArticleStatus.PUBLISHED.getValue().equals(article.getStatus());
     }
 
-    private List<ArticleBodyHitInfo> generateBodyHitInfo(List<String> hitsContext, Map<Integer, String> headLines) {
-        if (Objects.isNull(hitsContext) || Objects.isNull(headLines)) {
+    private EsBulkWriter newBulkWriter() {
+        return new EsBulkWriter(template, bulkMaxActions, bulkMaxBytes);
+    }
+
+    /**
+     * 加行号并提取标题大纲，lucene 索引也用同样的文档
+     */
+    static ContentEsDTO toEsDTO(Article article) {
+        String content = generateLineNumberForText(article.getContent(), LineNoFormat, true);
+        ContentEsDTO dto = new ContentEsDTO(article.getId().toString(), "/detail/" + article.getId(), article.getTitle(),
+                Optional.ofNullable(article.getCreated()).map(Instant::toEpochMilli).orElse(null),
+                Optional.ofNullable(article.getUpdated()).map(Instant::toEpochMilli).orElse(null),
+                content);
+        dto.setHeadings(outline(content));
+        return dto;
+    }
+
+    /**
+     * 每个高亮片段取其中最后一个行号，在标题大纲中二分查找所在的标题
+     *
+     * @param headings 按行号升序
+     */
+    static List<ArticleBodyHitInfo> generateBodyHitInfo(List<String> hitsContext, List<HeadingEsDTO> headings) {
+        if (Objects.isNull(hitsContext) || Objects.isNull(headings)) {
             return null;
         }
-        Map<Integer, String> hitWithLineNo = new HashMap<>();
+        // 同一行只保留一个片段，按行号排序
+        Map<Integer, String> hitWithLineNo = new TreeMap<>();
         for (String ctx : hitsContext) {
-            Matcher matcher = lineNoPattern.matcher(ctx);
-            List<Integer> matches = new ArrayList<>();
-            while (matcher.find()) {
-                matches.add(parseInt(matcher.group()));
+            int lineNo = LineNumberEngine.DEFAULT.lastLineNo(ctx);
+            if (lineNo >= 0) {
+                hitWithLineNo.put(lineNo, ctx);
             }
-            if (matches.size() > 0) {
-                hitWithLineNo.put(matches.get(matches.size() - 1), ctx);
+        }
+        List<ArticleBodyHitInfo> result = new ArrayList<>(hitWithLineNo.size());
+        hitWithLineNo.forEach((lineNo, ctx) -> {
+            HeadingEsDTO heading = headingOf(headings, lineNo);
+            ArticleBodyHitInfo info = new ArticleBodyHitInfo();
+            info.setUnderHeadOriginal(Objects.isNull(heading) ? "" : heading.getOriginal());
+            info.setUnderHead(Objects.isNull(heading) ? "" : heading.getAnchor());
+            info.setHitContext(partialLineNoPattern.matcher(ctx).replaceAll(""));
+            result.add(info);
+        });
+        return result;
+    }
+
+    /**
+     * @return 行号不大于 lineNo 的最后一个标题，没有时返回 null
+     */
+    private static HeadingEsDTO headingOf(List<HeadingEsDTO> headings, int lineNo) {
+        int low = 0;
+        int high = headings.size() - 1;
+        HeadingEsDTO found = null;
+        while (low <= high) {
+            int mid = (low + high) >>> 1;
+            HeadingEsDTO heading = headings.get(mid);
+            if (heading.getLine() <= lineNo) {
+                found = heading;
+                low = mid + 1;
+            } else {
+                high = mid - 1;
             }
         }
-        return hitWithLineNo.entrySet().stream().map(
-                entry -> {
-                    ArticleBodyHitInfo info = new ArticleBodyHitInfo();
-                    Integer lineNo = entry.getKey();
-                    // 默认升序排列,第一个差值最小
-                    Stream<Integer> sorted = headLines.keySet().stream()
-                            .filter(key -> key <= lineNo)
-                            .sorted(Comparator.comparingInt(key -> lineNo - key));
-                    Integer underHeadLineKey = sorted.findFirst().orElse(0);
-                    String headLineStr = Optional.ofNullable(headLines.get(underHeadLineKey)).orElse("");
-                    info.setUnderHeadOriginal(headLineStr);
-                    // 因为es命中上下文，可能存在 行号标记不全的情况，如 :1 或者 1:
-                    String regex = LineNoRegex + "|:\\d+|\\d+:";
-                    info.setHitContext(Optional.ofNullable(entry.getValue()).map(val -> val.replaceAll(regex, "")).orElse(""));
-                    info.setUnderHead(headLineStr.replaceAll("#|" + LineNoRegex, "").trim().replaceAll("\\s", "-"));
-                    return info;
-                }
-        ).collect(Collectors.toList());
+        return found;
     }
 }
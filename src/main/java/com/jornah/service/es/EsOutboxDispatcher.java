@@ -0,0 +1,119 @@
+package com.jornah.service.es;
+
+import com.jornah.dao.ArticleDao;
+import com.jornah.dao.EsOutboxDao;
+import com.jornah.model.entity.Article;
+import com.jornah.model.entity.EsOutbox;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.commons.lang3.StringUtils;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.elasticsearch.BulkFailureException;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.stream.Collectors;
+
+/**
+ * 投递 es 发件箱: 同一篇文章的多次修改合并成一次索引，所有文章合并成一个 bulk 请求，草稿和已删除的文章从索引中删掉。
+ * 失败的条目按指数退避重试。重复投递是幂等的，多节点同时运行也没有问题
+ *
+ * @author licong
+ * @date 2026/10/18 15:30
+ */
+@Component
+@Slf4j
+public class EsOutboxDispatcher {
+    private static final long MAX_BACKOFF_SECONDS = 600;
+
+    @Autowired
+    private EsOutboxDao esOutboxDao;
+    @Autowired
+    private ArticleDao articleDao;
+    @Autowired
+    private SearchEngines searchEngines;
+
+    @Value("${es.outbox.batch-size:50}")
+    private int batchSize;
+
+    @Scheduled(initialDelay = 5000, fixedDelayString = "${es.outbox.delay-ms:1000}")
+    public void dispatch() {
+        List<EsOutbox> due = esOutboxDao.findDue(Instant.now(), batchSize);
+        if (due.isEmpty()) {
+            return;
+        }
+        Map<Long, List<EsOutbox>> byArticle = due.stream().collect(Collectors.groupingBy(EsOutbox::getArticleId));
+        List<Article> articles = articleDao.selectBatchIds(byArticle.keySet());
+
+        Map<String, String> failed = bulkIndex(articles, byArticle.keySet());
+
+        // 文章已被物理删除的条目直接丢弃
+        List<Long> succeeded = due.stream()
+                .filter(outbox -> !failed.containsKey(outbox.getArticleId().toString()))
+                .map(EsOutbox::getId)
+                .collect(Collectors.toList());
+        if (!succeeded.isEmpty()) {
+            esOutboxDao.deleteBatchIds(succeeded);
+        }
+        for (Map.Entry<String, String> entry : failed.entrySet()) {
+            byArticle.getOrDefault(Long.valueOf(entry.getKey()), Collections.emptyList())
+                    .forEach(outbox -> backoff(outbox, entry.getValue()));
+        }
+        log.info("es outbox dispatched, rows:{}, articles:{}, failed:{}", due.size(), byArticle.size(), failed.size());
+    }
+
+    /**
+     * @return 失败的文章id与原因
+     */
+    private Map<String, String> bulkIndex(List<Article> articles, Collection<Long> articleIds) {
+        try {
+            searchEngines.bulkIndex(articles);
+            return Collections.emptyMap();
+        } catch (BulkFailureException e) {
+            return e.getFailedDocuments();
+        } catch (Exception e) {
+            String error = StringUtils.defaultString(e.getMessage(), e.getClass().getName());
+            return articleIds.stream().collect(Collectors.toMap(String::valueOf, id -> error));
+        }
+    }
+
+    private void backoff(EsOutbox outbox, String error) {
+        int attempts = Optional.ofNullable(outbox.getAttempts()).orElse(0) + 1;
+        long delaySeconds = Math.min(MAX_BACKOFF_SECONDS, 1L << Math.min(attempts, 20));
+        EsOutbox update = new EsOutbox();
+        update.setId(outbox.getId());
+        update.setAttempts(attempts);
+        update.setNextAttemptAt(Instant.now().plusSeconds(delaySeconds));
+        update.setLastError(StringUtils.abbreviate(error, 500));
+        update.setUpdated(Instant.now());
+        esOutboxDao.updateById(update);
+        log.warn("es outbox retry later, articleId:{}, attempts:{}, error:{}", outbox.getArticleId(), attempts, error);
+    }
+
+    /**
+     * 队列深度和最老一条的等待时间
+     */
+    public Stats stats() {
+        int depth = esOutboxDao.selectCount(null);
+        Duration lag = Optional.ofNullable(esOutboxDao.findOldestCreated())
+                .map(oldest -> Duration.between(oldest, Instant.now()))
+                .orElse(Duration.ZERO);
+        return new Stats(depth, lag.toMillis());
+    }
+
+    @Getter
+    @AllArgsConstructor
+    public static class Stats {
+        private final int depth;
+        private final long lagMillis;
+    }
+}
@@ -0,0 +1,47 @@
+package com.jornah.service.es;
+
+import com.jornah.cache.CacheService;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import org.apache.commons.lang3.StringUtils;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.time.Instant;
+import java.util.Optional;
+
+/**
+ * es 增量同步的高水位，记录最后一条已同步文章的 (updated, id)，存在 redis 中。
+ * 水位丢失时从头同步，相当于一次全量
+ *
+ * @author licong
+ * @date 2026/10/18 14:02
+ */
+@Component
+public class EsSyncCheckpoint {
+    private static final String CHECKPOINT_KEY = "es:sync:checkpoint";
+    private static final String SEPARATOR = ":";
+
+    @Autowired
+    private CacheService cacheService;
+
+    public Optional<Mark> load() {
+        String value = cacheService.getValue(CHECKPOINT_KEY, String.class);
+        if (StringUtils.isBlank(value)) {
+            return Optional.empty();
+        }
+        String[] parts = value.split(SEPARATOR);
+        return Optional.of(new Mark(Instant.ofEpochMilli(Long.parseLong(parts[0])), Long.parseLong(parts[1])));
+    }
+
+    public void save(Mark mark) {
+        cacheService.setValue(CHECKPOINT_KEY, mark.getUpdated().toEpochMilli() + SEPARATOR + mark.getId());
+    }
+
+    @Getter
+    @AllArgsConstructor
+    public static class Mark {
+        private final Instant updated;
+        private final Long id;
+    }
+}
@@ -0,0 +1,486 @@
+package com.jornah.service.es;
+
+import com.google.common.collect.Lists;
+import com.google.gson.Gson;
+import com.google.gson.reflect.TypeToken;
+import com.jornah.dao.ArticleDao;
+import com.jornah.model.dto.ArticleBodyHitInfo;
+import com.jornah.model.dto.ArticleHitInfo;
+import com.jornah.model.dto.ContentEsDTO;
+import com.jornah.model.dto.HeadingEsDTO;
+import com.jornah.model.dto.SearchResult;
+import com.jornah.model.entity.Article;
+import com.jornah.service.es.EsSyncCheckpoint.Mark;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.ibatis.cursor.Cursor;
+import org.apache.lucene.analysis.Analyzer;
+import org.apache.lucene.analysis.cjk.CJKAnalyzer;
+import org.apache.lucene.document.Document;
+import org.apache.lucene.document.Field;
+import org.apache.lucene.document.FieldType;
+import org.apache.lucene.document.StoredField;
+import org.apache.lucene.document.StringField;
+import org.apache.lucene.document.TextField;
+import org.apache.lucene.index.IndexOptions;
+import org.apache.lucene.index.IndexWriter;
+import org.apache.lucene.index.IndexWriterConfig;
+import org.apache.lucene.index.Term;
+import org.apache.lucene.search.BooleanClause;
+import org.apache.lucene.search.BooleanQuery;
+import org.apache.lucene.search.DisjunctionMaxQuery;
+import org.apache.lucene.search.IndexSearcher;
+import org.apache.lucene.search.MatchAllDocsQuery;
+import org.apache.lucene.search.Query;
+import org.apache.lucene.search.ScoreDoc;
+import org.apache.lucene.search.SearcherManager;
+import org.apache.lucene.search.TermInSetQuery;
+import org.apache.lucene.search.uhighlight.CustomSeparatorBreakIterator;
+import org.apache.lucene.search.uhighlight.Passage;
+import org.apache.lucene.search.uhighlight.PassageFormatter;
+import org.apache.lucene.search.uhighlight.UnifiedHighlighter;
+import org.apache.lucene.search.uhighlight.WholeBreakIterator;
+import org.apache.lucene.store.Directory;
+import org.apache.lucene.store.MMapDirectory;
+import org.apache.lucene.util.BytesRef;
+import org.apache.lucene.util.QueryBuilder;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnExpression;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.lang.reflect.Type;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.text.BreakIterator;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.Set;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import static com.jornah.utils.MyStringUtil.LineNoRegex;
+
+/**
+ * 本地 lucene 索引，不依赖 es。MMapDirectory 存在本机磁盘上，CJK 二元分词。
+ * 文档与 es 相同(带行号的正文 + 标题大纲)，高亮标签与 es 的 styled 一致，v2 搜索复用 {@link EsContentService#generateBodyHitInfo}。
+ * 增量同步的水位存在 lucene 提交的 user data 里，与索引一起持久化，每个节点各自维护。
+ * 与 es 一样以发件箱写入为主，增量同步补漏，只索引已发布的文章
+ *
+ * @author licong
+ * @date 2026/10/18 21:10
+ */
+@Service
+@Slf4j
+@ConditionalOnExpression("'${search.engine:es}' == 'lucene' or ${search.lucene.standby:false}")
+public class LuceneSearchEngine implements SearchEngine {
+    public static final String NAME = "lucene";
+
+    private static final String ID = "id";
+    private static final String URL = "url";
+    private static final String TITLE = "title";
+    private static final String CONTENT = "content";
+    private static final String HEADINGS = "headings";
+    private static final String CHECKPOINT_UPDATED = "sync.updated";
+    private static final String CHECKPOINT_ID = "sync.id";
+
+    private static final String PRE_TAG = "<em class=\"hlt1\">";
+    private static final String POST_TAG = "</em>";
+    /**
+     * 与 es 高亮默认值一致: 每个字段最多5个片段，片段约100字符
+     */
+    private static final int MAX_FRAGMENTS = 5;
+    private static final int FRAGMENT_SIZE = 100;
+    private static final Pattern lineNoPattern = Pattern.compile(LineNoRegex);
+
+    /**
+     * 存位置和偏移量，高亮时不用重新分词
+     */
+    private static final FieldType TEXT_WITH_OFFSETS = new FieldType(TextField.TYPE_STORED);
+
+    static {
+        TEXT_WITH_OFFSETS.setIndexOptions(IndexOptions.DOCS_AND_FREQS_AND_POSITIONS_AND_OFFSETS);
+        TEXT_WITH_OFFSETS.freeze();
+    }
+
+    private static final Gson GSON = new Gson();
+    private static final Type HEADINGS_TYPE = new TypeToken<List<HeadingEsDTO>>() {
+    }.getType();
+
+    @Autowired
+    private ArticleDao articleDao;
+    @Autowired
+    private SearchResultCache searchResultCache;
+
+    @Value("${search.lucene.path:/usr/jornah/lucene/article}")
+    private String indexPath;
+    @Value("${es.sync.page-size:100}")
+    private int syncPageSize;
+    @Value("${es.sync.overlap-seconds:5}")
+    private long syncOverlapSeconds;
+
+    private final Analyzer analyzer = new CJKAnalyzer();
+    /**
+     * 设置水位和提交要一起做，避免并发的同步和重建互相覆盖水位
+     */
+    private final Object commitLock = new Object();
+    private final SyncWindow syncWindow = new SyncWindow();
+    private Directory directory;
+    private IndexWriter writer;
+    private SearcherManager searcherManager;
+
+    @PostConstruct
+    public void init() throws IOException {
+        Path path = Paths.get(indexPath);
+        Files.createDirectories(path);
+        this.directory = new MMapDirectory(path);
+        this.writer = new IndexWriter(directory, new IndexWriterConfig(analyzer)
+                .setOpenMode(IndexWriterConfig.OpenMode.CREATE_OR_APPEND));
+        this.searcherManager = new SearcherManager(writer, null);
+        log.info("lucene index opened at {}, docs: {}", path, writer.getDocStats().numDocs);
+    }
+
+    @PreDestroy
+    public void close() throws IOException {
+        searcherManager.close();
+        writer.close();
+        directory.close();
+        analyzer.close();
+    }
+
+    @Override
+    public String name() {
+        return NAME;
+    }
+
+    @Override
+    public List<SearchResult> findByContentOrTitle(String input, int pageNum, int pageSize) {
+        List<SearchResult> resultList = Lists.newArrayList();
+        search(input, pageNum, pageSize, (doc, contentHits, titleHits) -> {
+            Map<String, List<String>> highlightFields = new LinkedHashMap<>();
+            if (!contentHits.isEmpty()) {
+                highlightFields.put(CONTENT, contentHits);
+            }
+            if (!titleHits.isEmpty()) {
+                highlightFields.put(TITLE, titleHits);
+            }
+            resultList.add(new SearchResult(doc.get(URL), doc.get(TITLE), highlightFields));
+        });
+        return resultList;
+    }
+
+    @Override
+    public List<ArticleHitInfo> findWithAnchorByContentOrTitle(String input, int pageNum, int pageSize) {
+        List<ArticleHitInfo> resultList = Lists.newArrayList();
+        search(input, pageNum, pageSize, (doc, contentHits, titleHits) -> {
+            List<HeadingEsDTO> headings = Optional.ofNullable(doc.get(HEADINGS))
+                    .<List<HeadingEsDTO>>map(json -> GSON.fromJson(json, HEADINGS_TYPE))
+                    .orElse(Collections.emptyList());
+            // 与 es 一致，正文没有高亮时为 null
+            List<ArticleBodyHitInfo> bodyHitInfos = EsContentService.generateBodyHitInfo(
+                    contentHits.isEmpty() ? null : contentHits, headings);
+            resultList.add(new ArticleHitInfo(doc.get(URL), doc.get(TITLE), bodyHitInfos));
+        });
+        return resultList;
+    }
+
+    private interface HitConsumer {
+        void accept(Document doc, List<String> contentHits, List<String> titleHits);
+    }
+
+    private void search(String input, int pageNum, int pageSize, HitConsumer consumer) {
+        Query query = parse(input);
+        if (Objects.isNull(query)) {
+            return;
+        }
+        try {
+            IndexSearcher searcher = searcherManager.acquire();
+            try {
+                ScoreDoc[] scoreDocs = searcher.search(query, pageNum * pageSize).scoreDocs;
+                int from = (pageNum - 1) * pageSize;
+                if (from >= scoreDocs.length) {
+                    return;
+                }
+                int[] docIds = Arrays.stream(scoreDocs, from, scoreDocs.length).mapToInt(scoreDoc -> scoreDoc.doc).toArray();
+                Map<String, Object[]> highlights = new Highlighter(searcher, analyzer).highlight(query, docIds);
+                Set<String> storedFields = new HashSet<>(Arrays.asList(URL, TITLE, HEADINGS));
+                for (int i = 0; i < docIds.length; i++) {
+                    consumer.accept(searcher.doc(docIds[i], storedFields),
+                            fragments(highlights.get(CONTENT)[i]), fragments(highlights.get(TITLE)[i]));
+                }
+            } finally {
+                searcherManager.release(searcher);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private static List<String> fragments(Object highlighted) {
+        return Objects.isNull(highlighted) ? Collections.emptyList() : (List<String>) highlighted;
+    }
+
+    /**
+     * 等价于 es 的 multi_match(best_fields): 每个字段分别匹配，取得分最高的字段
+     *
+     * @return 输入分词后没有任何词时返回 null
+     */
+    private Query parse(String input) {
+        QueryBuilder builder = new QueryBuilder(analyzer);
+        List<Query> perField = new ArrayList<>(2);
+        for (String field : new String[]{CONTENT, TITLE}) {
+            Query query = builder.createBooleanQuery(field, Objects.toString(input, ""));
+            if (Objects.nonNull(query)) {
+                perField.add(query);
+            }
+        }
+        return perField.isEmpty() ? null : new DisjunctionMaxQuery(perField, 0f);
+    }
+
+    @Override
+    public void bulkIndex(List<Article> articles) {
+        if (articles.isEmpty()) {
+            return;
+        }
+        try {
+            write(articles);
+            commit(null);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        syncWindow.record(articles);
+        searchResultCache.onIndexChanged();
+    }
+
+    /**
+     * 与 es 的增量同步相同: 从水位按 (updated, id) 键集分页，另外回看水位之前 overlap-seconds 内还没写入的文章。
+     * 没有写入时不提交，也不失效搜索缓存
+     */
+    @Override
+    public int syncIncrementally() {
+        Optional<Mark> saved = loadCheckpoint();
+        if (!saved.isPresent()) {
+            return -1;
+        }
+        Mark mark = saved.get();
+        int written = 0;
+        List<Article> page;
+        try {
+            List<Article> late = syncWindow.unwritten(articleDao.findUpdatedBetween(
+                    mark.getUpdated().minusSeconds(syncOverlapSeconds), mark.getUpdated(), mark.getId()));
+            if (!late.isEmpty()) {
+                write(late);
+                commit(null);
+                syncWindow.record(late);
+                written += late.size();
+            }
+            do {
+                page = articleDao.findUpdatedAfter(mark.getUpdated(), mark.getId(), syncPageSize);
+                if (page.isEmpty()) {
+                    break;
+                }
+                List<Article> changed = syncWindow.unwritten(page);
+                write(changed);
+                Article last = page.get(page.size() - 1);
+                mark = new Mark(last.getUpdated(), last.getId());
+                commit(mark);
+                syncWindow.record(changed);
+                written += changed.size();
+            } while (page.size() >= syncPageSize);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        syncWindow.retainFrom(mark.getUpdated().minusSeconds(syncOverlapSeconds));
+        if (written > 0) {
+            searchResultCache.onIndexChanged();
+        }
+        return written;
+    }
+
+    /**
+     * 已发布的覆盖写入，其余的删除
+     */
+    private void write(List<Article> articles) throws IOException {
+        for (Article article : articles) {
+            Term id = new Term(ID, article.getId().toString());
+            if (EsContentService.searchable(article)) {
+                writer.updateDocument(id, toDocument(article));
+            } else {
+                writer.deleteDocuments(id);
+            }
+        }
+    }
+
+    /**
+     * 游标流式覆盖写入已发布的文章，最后删掉其余的文档(未发布或数据库里已经没有的)。
+     * 中途失败时未提交的只有覆盖写入，不会留下被清空一半的索引
+     */
+    @Override
+    @Transactional(readOnly = true)
+    public int rebuild() {
+        List<BytesRef> ids = new ArrayList<>();
+        Mark max = new Mark(Instant.EPOCH, 0L);
+        SyncWindow recent = new SyncWindow();
+        int scanned = 0;
+        try (Cursor<Article> cursor = articleDao.scanAll()) {
+            for (Article article : cursor) {
+                if (EsContentService.searchable(article)) {
+                    String id = article.getId().toString();
+                    writer.updateDocument(new Term(ID, id), toDocument(article));
+                    ids.add(new BytesRef(id));
+                }
+                max = EsContentService.maxOf(max, article);
+                // 只记 (id, updated)，定期裁剪，不留文章本身
+                recent.record(article);
+                if (++scanned % syncPageSize == 0) {
+                    recent.retainFrom(max.getUpdated().minusSeconds(syncOverlapSeconds));
+                }
+            }
+            writer.deleteDocuments(new BooleanQuery.Builder()
+                    .add(new MatchAllDocsQuery(), BooleanClause.Occur.MUST)
+                    .add(new TermInSetQuery(ID, ids), BooleanClause.Occur.MUST_NOT)
+                    .build());
+            commit(max);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        syncWindow.record(recent);
+        syncWindow.retainFrom(max.getUpdated().minusSeconds(syncOverlapSeconds));
+        searchResultCache.onIndexChanged();
+        return ids.size();
+    }
+
+    /**
+     * @param mark 为 null 时沿用上一次提交的水位
+     */
+    private void commit(Mark mark) throws IOException {
+        synchronized (commitLock) {
+            if (Objects.nonNull(mark)) {
+                Map<String, String> commitData = new HashMap<>(4);
+                commitData.put(CHECKPOINT_UPDATED, String.valueOf(mark.getUpdated().toEpochMilli()));
+                commitData.put(CHECKPOINT_ID, String.valueOf(mark.getId()));
+                writer.setLiveCommitData(commitData.entrySet());
+            }
+            writer.commit();
+        }
+        // 等刷新完成再返回，之后才失效搜索缓存，不会把旧结果缓存在新的代数下
+        searcherManager.maybeRefreshBlocking();
+    }
+
+    private Optional<Mark> loadCheckpoint() {
+        Map<String, String> commitData = new HashMap<>(4);
+        Iterable<Map.Entry<String, String>> live = writer.getLiveCommitData();
+        if (Objects.nonNull(live)) {
+            live.forEach(entry -> commitData.put(entry.getKey(), entry.getValue()));
+        }
+        if (!commitData.containsKey(CHECKPOINT_UPDATED)) {
+            return Optional.empty();
+        }
+        return Optional.of(new Mark(Instant.ofEpochMilli(Long.parseLong(commitData.get(CHECKPOINT_UPDATED))),
+                Long.parseLong(commitData.get(CHECKPOINT_ID))));
+    }
+
+    private static Document toDocument(Article article) {
+        ContentEsDTO dto = EsContentService.toEsDTO(article);
+        Document doc = new Document();
+        doc.add(new StringField(ID, dto.getId(), Field.Store.YES));
+        doc.add(new StoredField(URL, dto.getUrl()));
+        doc.add(new Field(TITLE, Objects.toString(dto.getTitle(), ""), TEXT_WITH_OFFSETS));
+        doc.add(new Field(CONTENT, Objects.toString(dto.getContent(), ""), TEXT_WITH_OFFSETS));
+        doc.add(new StoredField(HEADINGS, GSON.toJson(dto.getHeadings())));
+        return doc;
+    }
+
+    /**
+     * 正文按行切片段，每个片段以行号开头，v2 搜索据此定位标题；标题整体高亮
+     */
+    private static final class Highlighter extends UnifiedHighlighter {
+        private static final String[] FIELDS = {CONTENT, TITLE};
+        private static final PassageFormatter FORMATTER = new FragmentFormatter();
+
+        private Highlighter(IndexSearcher searcher, Analyzer analyzer) {
+            super(searcher, analyzer);
+            // 默认只高亮前 10000 个字符
+            setMaxLength(Integer.MAX_VALUE - 1);
+            setMaxNoHighlightPassages(0);
+        }
+
+        Map<String, Object[]> highlight(Query query, int[] docIds) throws IOException {
+            return highlightFieldsAsObjects(FIELDS, query, docIds, new int[]{MAX_FRAGMENTS, 1});
+        }
+
+        @Override
+        protected BreakIterator getBreakIterator(String field) {
+            return CONTENT.equals(field) ? new CustomSeparatorBreakIterator('\n') : new WholeBreakIterator();
+        }
+
+        @Override
+        protected PassageFormatter getFormatter(String field) {
+            return FORMATTER;
+        }
+    }
+
+    /**
+     * 每个片段单独输出，超长的行保留行号，只截取第一个命中词附近的一段
+     */
+    static final class FragmentFormatter extends PassageFormatter {
+        @Override
+        public Object format(Passage[] passages, String content) {
+            List<String> fragments = new ArrayList<>(passages.length);
+            for (Passage passage : passages) {
+                int start = passage.getStartOffset();
+                int end = passage.getEndOffset();
+                while (end > start && (content.charAt(end - 1) == '\n' || content.charAt(end - 1) == '\r')) {
+                    end--;
+                }
+                StringBuilder sb = new StringBuilder(Math.min(end - start, FRAGMENT_SIZE * 2) + 32);
+                int bodyStart = start;
+                Matcher matcher = lineNoPattern.matcher(content).region(start, end);
+                if (matcher.lookingAt()) {
+                    bodyStart = matcher.end();
+                    sb.append(content, start, bodyStart);
+                }
+                int from = bodyStart;
+                int to = end;
+                if (to - from > FRAGMENT_SIZE && passage.getNumMatches() > 0) {
+                    from = Math.max(bodyStart, passage.getMatchStarts()[0] - FRAGMENT_SIZE / 2);
+                    to = Math.min(end, from + FRAGMENT_SIZE);
+                }
+                // 二元分词的命中词相互重叠，如 并发 和 发编，合并成一段高亮
+                int pos = from;
+                int i = 0;
+                while (i < passage.getNumMatches()) {
+                    int matchStart = passage.getMatchStarts()[i];
+                    int matchEnd = passage.getMatchEnds()[i];
+                    for (i++; i < passage.getNumMatches() && passage.getMatchStarts()[i] <= matchEnd; i++) {
+                        matchEnd = Math.max(matchEnd, passage.getMatchEnds()[i]);
+                    }
+                    matchStart = Math.max(matchStart, pos);
+                    matchEnd = Math.min(matchEnd, to);
+                    if (matchStart < matchEnd) {
+                        sb.append(content, pos, matchStart).append(PRE_TAG).append(content, matchStart, matchEnd).append(POST_TAG);
+                        pos = matchEnd;
+                    }
+                }
+                sb.append(content, pos, to);
+                fragments.add(sb.toString());
+            }
+            return fragments;
+        }
+    }
+}
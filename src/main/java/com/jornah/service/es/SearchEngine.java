@@ -0,0 +1,51 @@
+package com.jornah.service.es;
+
+import com.jornah.model.dto.ArticleHitInfo;
+import com.jornah.model.dto.SearchResult;
+import com.jornah.model.entity.Article;
+
+import java.util.List;
+
+/**
+ * 文章全文搜索引擎，es 和本地 lucene 两种实现，由 {@link SearchEngines} 按配置选择
+ *
+ * @author licong
+ * @date 2026/10/18 21:10
+ */
+public interface SearchEngine {
+
+    /**
+     * 配置中使用的名字: es / lucene
+     */
+    String name();
+
+    /**
+     * v1 搜索，返回各字段的高亮片段
+     */
+    List<SearchResult> findByContentOrTitle(String input, int pageNum, int pageSize);
+
+    /**
+     * v2 搜索，高亮片段定位到所在的标题锚点
+     */
+    List<ArticleHitInfo> findWithAnchorByContentOrTitle(String input, int pageNum, int pageSize);
+
+    /**
+     * 写入或覆盖一批已发布的文章，未发布的从索引中删除。部分失败时抛出异常，由发件箱重试。
+     * 发件箱是文章变更写入索引的主路径
+     */
+    void bulkIndex(List<Article> articles);
+
+    /**
+     * 从水位开始增量同步，补上发件箱之外的变更，已经由 {@link #bulkIndex} 写入过的不再重复写
+     *
+     * @return 本次同步的文档数，没有水位时返回 -1，需要先全量重建
+     */
+    int syncIncrementally();
+
+    /**
+     * 全量重建
+     *
+     * @return 写入的文档数
+     */
+    int rebuild();
+}
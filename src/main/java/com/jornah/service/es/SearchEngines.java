@@ -0,0 +1,135 @@
+package com.jornah.service.es;
+
+import com.jornah.model.dto.ArticleHitInfo;
+import com.jornah.model.dto.SearchResult;
+import com.jornah.model.entity.Article;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PostConstruct;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+/**
+ * 按配置选择搜索引擎:
+ * <ul>
+ *     <li>search.engine=es: 查询和写入都走 es，开启 search.lucene.standby 时同时维护本地 lucene 索引，es 查询失败时回退到 lucene</li>
+ *     <li>search.engine=lucene: 不依赖 es，只用本地 lucene 索引</li>
+ * </ul>
+ * 索引写入(发件箱、定时同步)都经过这里，所有启用的引擎使用同一套钩子。
+ * 每个引擎的查询和写入耗时记在 search.query、search.bulk.index 上
+ *
+ * @author licong
+ * @date 2026/10/18 21:10
+ */
+@Component
+@Slf4j
+public class SearchEngines {
+    @Autowired
+    private List<SearchEngine> engines;
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Value("${search.engine:es}")
+    private String primaryName;
+
+    private SearchEngine primary;
+    /**
+     * 备用引擎，没有时为 null
+     */
+    private SearchEngine standby;
+
+    @PostConstruct
+    public void init() {
+        for (SearchEngine engine : engines) {
+            if (engine.name().equalsIgnoreCase(primaryName)) {
+                primary = engine;
+            } else if (LuceneSearchEngine.NAME.equals(engine.name())) {
+                standby = engine;
+            }
+        }
+        if (Objects.isNull(primary)) {
+            throw new IllegalStateException("unknown search.engine: " + primaryName);
+        }
+        log.info("search engine: {}, standby: {}", primary.name(), Objects.isNull(standby) ? "none" : standby.name());
+    }
+
+    public List<SearchResult> findByContentOrTitle(String input, int pageNum, int pageSize) {
+        return query("content", engine -> engine.findByContentOrTitle(input, pageNum, pageSize));
+    }
+
+    public List<ArticleHitInfo> findWithAnchorByContentOrTitle(String input, int pageNum, int pageSize) {
+        return query("anchor", engine -> engine.findWithAnchorByContentOrTitle(input, pageNum, pageSize));
+    }
+
+    private <T> T query(String type, Function<SearchEngine, T> search) {
+        try {
+            return timed("search.query", primary, type, () -> search.apply(primary));
+        } catch (RuntimeException e) {
+            if (Objects.isNull(standby)) {
+                throw e;
+            }
+            log.warn("search with {} failed, fallback to {}: {}", primary.name(), standby.name(), e.getMessage());
+            return timed("search.query", standby, type, () -> search.apply(standby));
+        }
+    }
+
+    private <T> T timed(String name, SearchEngine engine, String type, Supplier<T> action) {
+        String outcome = "error";
+        long start = System.nanoTime();
+        try {
+            T result = action.get();
+            outcome = "success";
+            return result;
+        } finally {
+            Timer.builder(name)
+                    .tag("engine", engine.name())
+                    .tag("type", type)
+                    .tag("outcome", outcome)
+                    .register(meterRegistry)
+                    .record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        }
+    }
+
+    /**
+     * 备用引擎先写，失败只记日志，由它自己的增量同步补上；主引擎的异常抛给发件箱重试
+     */
+    public void bulkIndex(List<Article> articles) {
+        if (Objects.nonNull(standby)) {
+            try {
+                timed("search.bulk.index", standby, "bulk", () -> {
+                    standby.bulkIndex(articles);
+                    return null;
+                });
+            } catch (Exception e) {
+                log.warn("standby {} bulk index failed", standby.name(), e);
+            }
+        }
+        timed("search.bulk.index", primary, "bulk", () -> {
+            primary.bulkIndex(articles);
+            return null;
+        });
+    }
+
+    /**
+     * 所有启用的引擎，主引擎在前
+     */
+    public List<SearchEngine> enabled() {
+        if (Objects.isNull(standby)) {
+            return Collections.singletonList(primary);
+        }
+        List<SearchEngine> enabled = new ArrayList<>(2);
+        enabled.add(primary);
+        enabled.add(standby);
+        return enabled;
+    }
+}
@@ -0,0 +1,157 @@
+package com.jornah.service.es;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.EqualsAndHashCode;
+import lombok.ToString;
+import lombok.extern.slf4j.Slf4j;
+import org.redisson.api.RTopic;
+import org.redisson.api.RedissonClient;
+import org.redisson.client.codec.StringCodec;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PostConstruct;
+import java.text.Normalizer;
+import java.util.Locale;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+/**
+ * 搜索结果缓存。key 为 归一化的搜索词 + 分页 + 索引代数，索引有写入时代数加一，旧结果自然失效。
+ * 代数变化通过 redis 广播到所有节点；同一个 key 并发的请求只有一个去查 es，其余等它的结果。
+ * 命中、未命中、等待别人结果的次数记在 search.cache.gets 上
+ *
+ * @author licong
+ * @date 2026/10/18 20:20
+ */
+@Component
+@Slf4j
+public class SearchResultCache {
+    private static final String GENERATION_TOPIC = "SEARCH_INDEX_GENERATION";
+
+    @Autowired
+    private RedissonClient redissonClient;
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Value("${search.cache.maximum-size:1000}")
+    private long maximumSize;
+    @Value("${search.cache.expire-seconds:600}")
+    private long expireSeconds;
+
+    private final AtomicLong generation = new AtomicLong();
+    private final ConcurrentHashMap<Key, CompletableFuture<Object>> inflight = new ConcurrentHashMap<>();
+    private Cache<Key, Object> results;
+    private RTopic generationTopic;
+    private Counter hits;
+    private Counter misses;
+    private Counter joined;
+
+    @PostConstruct
+    public void init() {
+        this.results = Caffeine.newBuilder()
+                .maximumSize(maximumSize)
+                .expireAfterWrite(expireSeconds, TimeUnit.SECONDS)
+                .build();
+        this.generationTopic = redissonClient.getTopic(GENERATION_TOPIC, StringCodec.INSTANCE);
+        this.generationTopic.addListener(String.class, (channel, msg) -> generation.incrementAndGet());
+        this.hits = meterRegistry.counter("search.cache.gets", "result", "hit");
+        this.misses = meterRegistry.counter("search.cache.gets", "result", "miss");
+        this.joined = meterRegistry.counter("search.cache.gets", "result", "joined");
+    }
+
+    /**
+     * @param type   区分不同的搜索接口
+     * @param loader 未命中时执行的查询
+     */
+    @SuppressWarnings("unchecked")
+    public <T> T get(String type, String searchStr, int pageNum, int pageSize, Supplier<T> loader) {
+        Key key = new Key(type, normalize(searchStr), pageNum, pageSize, generation.get());
+        Object cached = results.getIfPresent(key);
+        if (cached != null) {
+            hits.increment();
+            return (T) cached;
+        }
+        CompletableFuture<Object> mine = new CompletableFuture<>();
+        CompletableFuture<Object> running = inflight.putIfAbsent(key, mine);
+        if (running != null) {
+            joined.increment();
+            return (T) join(running);
+        }
+        misses.increment();
+        try {
+            T loaded = loader.get();
+            if (loaded != null) {
+                results.put(key, loaded);
+            }
+            mine.complete(loaded);
+            return loaded;
+        } catch (RuntimeException e) {
+            mine.completeExceptionally(e);
+            throw e;
+        } finally {
+            inflight.remove(key, mine);
+        }
+    }
+
+    /**
+     * 索引有写入后调用
+     */
+    public void onIndexChanged() {
+        generation.incrementAndGet();
+        try {
+            generationTopic.publish("");
+        } catch (Exception e) {
+            // 其他节点只能等缓存过期
+            log.warn("publish search index generation failed", e);
+        }
+    }
+
+    /**
+     * 全角转半角、英文小写、连续空白合并
+     */
+    static String normalize(String searchStr) {
+        if (searchStr == null) {
+            return "";
+        }
+        String normalized = Normalizer.normalize(searchStr, Normalizer.Form.NFKC).toLowerCase(Locale.ROOT);
+        return normalized.trim().replaceAll("\\s+", " ");
+    }
+
+    private static Object join(CompletableFuture<Object> running) {
+        try {
+            return running.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            throw e;
+        }
+    }
+
+    @EqualsAndHashCode
+    @ToString
+    private static final class Key {
+        private final String type;
+        private final String searchStr;
+        private final int pageNum;
+        private final int pageSize;
+        private final long generation;
+
+        private Key(String type, String searchStr, int pageNum, int pageSize, long generation) {
+            this.type = type;
+            this.searchStr = searchStr;
+            this.pageNum = pageNum;
+            this.pageSize = pageSize;
+            this.generation = generation;
+        }
+    }
+}
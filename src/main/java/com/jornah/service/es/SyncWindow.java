@@ -0,0 +1,59 @@
+package com.jornah.service.es;
+
+import com.jornah.model.entity.Article;
+
+import java.time.Instant;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.stream.Collectors;
+
+/**
+ * 最近写入过索引的文章 (id, updated)，只保留水位之前 overlap 秒以内的。
+ * 提交顺序与 updated 顺序不一致时，晚提交的文章 updated 会落在水位之前，增量同步每次重扫这段窗口，
+ * 只补写不在这里面(或 updated 已经变了)的文章，已经写入过的不再重复写，没有变更时也不会刷新索引、失效搜索缓存。
+ * 只在内存里，重启后第一次同步会把窗口内的文章重写一遍
+ *
+ * @author licong
+ * @date 2026/10/19 01:20
+ */
+final class SyncWindow {
+    private final Map<Long, Instant> written = new HashMap<>();
+
+    /**
+     * @return 还没有以当前 updated 写入过的文章
+     */
+    synchronized List<Article> unwritten(List<Article> articles) {
+        return articles.stream()
+                .filter(article -> !Objects.equals(written.get(article.getId()), article.getUpdated()))
+                .collect(Collectors.toList());
+    }
+
+    synchronized void record(Collection<Article> articles) {
+        articles.forEach(this::record);
+    }
+
+    synchronized void record(Article article) {
+        if (Objects.nonNull(article.getUpdated())) {
+            written.put(article.getId(), article.getUpdated());
+        }
+    }
+
+    /**
+     * 合并另一个窗口的记录，全量重建时先记在局部窗口里，写完再合并
+     */
+    synchronized void record(SyncWindow other) {
+        synchronized (other) {
+            written.putAll(other.written);
+        }
+    }
+
+    /**
+     * 去掉 updated 早于 from 的记录
+     */
+    synchronized void retainFrom(Instant from) {
+        written.values().removeIf(updated -> updated.isBefore(from));
+    }
+}
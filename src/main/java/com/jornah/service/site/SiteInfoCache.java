@@ -0,0 +1,172 @@
+package com.jornah.service.site;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import com.jornah.model.converter.UserConverter;
+import com.jornah.model.entity.Category;
+import com.jornah.model.entity.Config;
+import com.jornah.model.entity.Tag;
+import com.jornah.model.vo.SiteInfo;
+import com.jornah.model.vo.UserVo;
+import com.jornah.service.ConfigService;
+import com.jornah.service.MetaInfoService;
+import com.jornah.service.article.ArticleChangeNotifier;
+import com.jornah.service.user.UserService;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.SneakyThrows;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.util.DigestUtils;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * 博客信息(博主、分类、标签、首页统计)整体缓存在内存里，ETag 在重建时算好。
+ * 重建时四部分并发加载；标签分类变更({@link ArticleChangeNotifier})后立即在后台重建，另外每隔 refresh-seconds 重建一次。
+ * 重建期间和重建失败时继续返回旧值，只有启动后第一次请求要等待加载完成
+ *
+ * @author licong
+ * @date 2026/10/19 01:00
+ */
+@Component
+@Slf4j
+public class SiteInfoCache {
+    public static final String INDEX_STATS = "index_stats";
+    private static final long OWNER_ID = 1L;
+
+    @Autowired
+    private UserService userService;
+    @Autowired
+    private MetaInfoService metaInfoService;
+    @Autowired
+    private ConfigService configService;
+    @Autowired
+    private ArticleChangeNotifier articleChangeNotifier;
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Value("${site-info.refresh-seconds:300}")
+    private long refreshSeconds;
+
+    private final AtomicBoolean dirty = new AtomicBoolean();
+    private final AtomicReference<CompletableFuture<Snapshot>> rebuilding = new AtomicReference<>();
+    private volatile Snapshot snapshot;
+    private ThreadPoolExecutor rebuildExecutor;
+
+    @PostConstruct
+    public void init() {
+        // 同一时间只有一次重建，每次四个任务
+        this.rebuildExecutor = new ThreadPoolExecutor(4, 4, 60, TimeUnit.SECONDS, new ArrayBlockingQueue<>(16),
+                new ThreadFactoryBuilder().setNameFormat("site-info-%d").setDaemon(true).build());
+        this.rebuildExecutor.allowCoreThreadTimeOut(true);
+        articleChangeNotifier.addListener(() -> {
+            dirty.set(true);
+            rebuild();
+        });
+    }
+
+    @PreDestroy
+    public void destroy() {
+        rebuildExecutor.shutdown();
+    }
+
+    /**
+     * 有缓存时立即返回，过期了顺带触发后台重建
+     */
+    public CompletableFuture<Snapshot> get() {
+        Snapshot current = this.snapshot;
+        if (current == null) {
+            return rebuild();
+        }
+        if (dirty.get() || System.currentTimeMillis() - current.builtAt > TimeUnit.SECONDS.toMillis(refreshSeconds)) {
+            rebuild();
+        }
+        return CompletableFuture.completedFuture(current);
+    }
+
+    /**
+     * 已经在重建时返回正在进行的那次
+     */
+    private CompletableFuture<Snapshot> rebuild() {
+        while (true) {
+            CompletableFuture<Snapshot> inflight = rebuilding.get();
+            if (inflight != null) {
+                return inflight;
+            }
+            CompletableFuture<Snapshot> fresh = new CompletableFuture<>();
+            if (!rebuilding.compareAndSet(null, fresh)) {
+                continue;
+            }
+            dirty.set(false);
+            CompletableFuture<Snapshot> build;
+            try {
+                build = build();
+            } catch (RuntimeException e) {
+                build = new CompletableFuture<>();
+                build.completeExceptionally(e);
+            }
+            build.whenComplete((built, e) -> {
+                if (e == null) {
+                    this.snapshot = built;
+                } else {
+                    dirty.set(true);
+                    log.error("rebuild site info failed", e);
+                }
+                rebuilding.set(null);
+                if (e == null) {
+                    fresh.complete(built);
+                } else {
+                    fresh.completeExceptionally(e);
+                }
+            });
+            return fresh;
+        }
+    }
+
+    private CompletableFuture<Snapshot> build() {
+        CompletableFuture<UserVo> owner = CompletableFuture.supplyAsync(
+                () -> UserConverter.INSTANCE.toVo(userService.getById(OWNER_ID)), rebuildExecutor);
+        CompletableFuture<List<Category>> categories = CompletableFuture.supplyAsync(
+                metaInfoService::getAllCategory, rebuildExecutor);
+        CompletableFuture<List<Tag>> tags = CompletableFuture.supplyAsync(metaInfoService::getAllTag, rebuildExecutor);
+        CompletableFuture<List<String>> stats = CompletableFuture.supplyAsync(() -> {
+            Config config = configService.getConfigByKey(INDEX_STATS);
+            return Collections.unmodifiableList(Arrays.asList(config.getValue1(), config.getValue2(),
+                    config.getValue3(), config.getValue4()));
+        }, rebuildExecutor);
+        return CompletableFuture.allOf(owner, categories, tags, stats).thenApply(ignored -> {
+            SiteInfo siteInfo = SiteInfo.from(owner.join(), Collections.unmodifiableList(categories.join()),
+                    Collections.unmodifiableList(tags.join()), stats.join());
+            return new Snapshot(siteInfo, etagOf(siteInfo), System.currentTimeMillis());
+        });
+    }
+
+    @SneakyThrows
+    private String etagOf(SiteInfo siteInfo) {
+        return "\"s" + DigestUtils.md5DigestAsHex(objectMapper.writeValueAsBytes(siteInfo)) + "\"";
+    }
+
+    /**
+     * 不要修改其中的 SiteInfo
+     */
+    @Getter
+    @AllArgsConstructor
+    public static class Snapshot {
+        private final SiteInfo siteInfo;
+        private final String etag;
+        private final long builtAt;
+    }
+}
@@ -1,72 +1,156 @@
 package com.jornah.utils;
 
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.google.common.hash.HashCode;
+import com.google.common.hash.Hashing;
 import org.springframework.util.Base64Utils;
 
 import javax.crypto.Cipher;
 import javax.crypto.KeyGenerator;
 import javax.crypto.SecretKey;
+import javax.crypto.SecretKeyFactory;
+import javax.crypto.spec.GCMParameterSpec;
+import javax.crypto.spec.PBEKeySpec;
+import javax.crypto.spec.SecretKeySpec;
+import java.nio.ByteBuffer;
 import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
 import java.security.SecureRandom;
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
 
 /**
  * AES加解密工具类，使用base64编码
+ * <p>
+ * 新写入的密文: "$v2$" + base64(salt | iv | AES-GCM 密文)，密钥由 PBKDF2 从 passphrase 派生。
+ * 没有版本头的是旧密文(SHA1PRNG 派生密钥 + AES/ECB)，仍可解密，文章下次保存时自动改用新格式。
+ * <p>
+ * 派生出的密钥按 passphrase 的 sha256 缓存(容量有限、一段时间不用即过期，只缓存解密成功的)，
+ * Cipher 每个线程一个，同一篇加密文章反复被访问时不再重复派生密钥
  *
  * @author licong
  * @date 2022/8/16 11:10
  */
 public class EncryptUtil {
+    private static final String V2_HEADER = "$v2$";
+    private static final int SALT_LENGTH = 16;
+    private static final int IV_LENGTH = 12;
+    private static final int GCM_TAG_BITS = 128;
+    private static final int PBKDF2_ITERATIONS = 65536;
+    private static final int KEY_BITS = 128;
 
-    /**
-     * 生成密钥对象
-     */
+    private static final SecureRandom RANDOM = new SecureRandom();
 
+    private static final Cache<HashCode, SecretKey> KEY_CACHE = Caffeine.newBuilder()
+            .maximumSize(256)
+            .expireAfterAccess(30, TimeUnit.MINUTES)
+            .build();
+
+    private static final ThreadLocal<Cipher> GCM_CIPHER = ThreadLocal.withInitial(() -> newCipher("AES/GCM/NoPadding"));
+    private static final ThreadLocal<Cipher> LEGACY_CIPHER = ThreadLocal.withInitial(() -> newCipher("AES"));
 
     /**
      * 数据加密: 明文 -> 密文
      */
     public static String encrypt(String plainText, String key) throws Exception {
-        // 生成密钥对象
-        SecretKey secKey = generateKey(key.getBytes());
+        byte[] salt = new byte[SALT_LENGTH];
+        byte[] iv = new byte[IV_LENGTH];
+        RANDOM.nextBytes(salt);
+        RANDOM.nextBytes(iv);
 
-        // 获取 AES 密码器
-        Cipher cipher = Cipher.getInstance("AES");
-        // 初始化密码器（加密模型）
-        cipher.init(Cipher.ENCRYPT_MODE, secKey);
+        HashCode cacheKey = v2CacheKey(key, salt);
+        SecretKey secKey = deriveKey(key, salt);
+        Cipher cipher = GCM_CIPHER.get();
+        cipher.init(Cipher.ENCRYPT_MODE, secKey, new GCMParameterSpec(GCM_TAG_BITS, iv));
+        byte[] cipherBytes = cipher.doFinal(plainText.getBytes(StandardCharsets.UTF_8));
+        // 保存后紧接着的访问可以直接用
+        KEY_CACHE.put(cacheKey, secKey);
 
-        // 加密数据, 返回密文
-        return Base64Utils.encodeToString(cipher.doFinal(plainText.getBytes()));
+        ByteBuffer out = ByteBuffer.allocate(SALT_LENGTH + IV_LENGTH + cipherBytes.length);
+        out.put(salt).put(iv).put(cipherBytes);
+        return V2_HEADER + Base64Utils.encodeToString(out.array());
     }
 
     /**
      * 数据解密: 密文 -> 明文
      */
     public static String decrypt(String encryptText, String key) throws Exception {
-        // 生成密钥对象
-        SecretKey secKey = generateKey(key.getBytes());
-        byte[] cipherBytes = Base64Utils.decodeFromString(encryptText);
+        if (!encryptText.startsWith(V2_HEADER)) {
+            return decryptLegacy(encryptText, key);
+        }
+        byte[] bytes = Base64Utils.decodeFromString(encryptText.substring(V2_HEADER.length()));
+        if (bytes.length < SALT_LENGTH + IV_LENGTH) {
+            throw new GeneralSecurityException("密文长度不正确");
+        }
+        byte[] salt = Arrays.copyOfRange(bytes, 0, SALT_LENGTH);
+        HashCode cacheKey = v2CacheKey(key, salt);
+        SecretKey cached = KEY_CACHE.getIfPresent(cacheKey);
+        SecretKey secKey = cached != null ? cached : deriveKey(key, salt);
 
-        // 获取 AES 密码器
-        Cipher cipher = Cipher.getInstance("AES");
-        // 初始化密码器（解密模型）
+        Cipher cipher = GCM_CIPHER.get();
+        cipher.init(Cipher.DECRYPT_MODE, secKey, new GCMParameterSpec(GCM_TAG_BITS, bytes, SALT_LENGTH, IV_LENGTH));
+        int offset = SALT_LENGTH + IV_LENGTH;
+        // 校验不通过(passphrase 错误)时抛异常，错误的密钥不会进缓存
+        String plainText = new String(cipher.doFinal(bytes, offset, bytes.length - offset), StandardCharsets.UTF_8);
+        if (cached == null) {
+            KEY_CACHE.put(cacheKey, secKey);
+        }
+        return plainText;
+    }
+
+    private static String decryptLegacy(String encryptText, String key) throws Exception {
+        byte[] keyBytes = key.getBytes();
+        HashCode cacheKey = Hashing.sha256().newHasher()
+                .putByte((byte) 1)
+                .putBytes(keyBytes)
+                .hash();
+        SecretKey cached = KEY_CACHE.getIfPresent(cacheKey);
+        SecretKey secKey = cached != null ? cached : legacyKey(keyBytes);
+
+        byte[] cipherBytes = Base64Utils.decodeFromString(encryptText);
+        Cipher cipher = LEGACY_CIPHER.get();
         cipher.init(Cipher.DECRYPT_MODE, secKey);
+        String plainText = new String(cipher.doFinal(cipherBytes), StandardCharsets.UTF_8);
+        if (cached == null) {
+            KEY_CACHE.put(cacheKey, secKey);
+        }
+        return plainText;
+    }
 
-        // 解密数据, 返回明文
-        return new String(cipher.doFinal(cipherBytes), StandardCharsets.UTF_8);
+    private static HashCode v2CacheKey(String key, byte[] salt) {
+        return Hashing.sha256().newHasher()
+                .putByte((byte) 2)
+                .putBytes(salt)
+                .putString(key, StandardCharsets.UTF_8)
+                .hash();
     }
 
-    private static SecretKey generateKey(byte[] key) throws Exception {
-        // 根据指定的 RNG 算法, 创建安全随机数生成器
-        SecureRandom random = SecureRandom.getInstance("SHA1PRNG");
-        // 设置 密钥key的字节数组 作为安全随机数生成器的种子
-        random.setSeed(key);
+    private static SecretKey deriveKey(String key, byte[] salt) throws GeneralSecurityException {
+        PBEKeySpec spec = new PBEKeySpec(key.toCharArray(), salt, PBKDF2_ITERATIONS, KEY_BITS);
+        try {
+            byte[] encoded = SecretKeyFactory.getInstance("PBKDF2WithHmacSHA256").generateSecret(spec).getEncoded();
+            return new SecretKeySpec(encoded, "AES");
+        } finally {
+            spec.clearPassword();
+        }
+    }
 
-        // 创建 AES算法生成器
+    private static SecretKey legacyKey(byte[] keyBytes) throws GeneralSecurityException {
+        // 根据指定的 RNG 算法, 创建安全随机数生成器, 密钥key的字节数组作为种子
+        SecureRandom random = SecureRandom.getInstance("SHA1PRNG");
+        random.setSeed(keyBytes);
         KeyGenerator gen = KeyGenerator.getInstance("AES");
-        // 初始化算法生成器
         gen.init(128, random);
-
-        // 生成 AES密钥对象, 也可以直接创建密钥对象: return new SecretKeySpec(key, ALGORITHM);
         return gen.generateKey();
     }
 
+    private static Cipher newCipher(String transformation) {
+        try {
+            return Cipher.getInstance(transformation);
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
 }
@@ -0,0 +1,85 @@
+package com.jornah.utils;
+
+import org.apache.commons.lang3.StringUtils;
+import org.apache.commons.lang3.math.NumberUtils;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.web.context.request.ServletWebRequest;
+
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+
+/**
+ * 条件请求: 写 ETag / Last-Modified，请求头 If-None-Match / If-Modified-Since 匹配时把响应置为 304。
+ * 响应要求客户端和 CDN 每次都回源校验(no-cache)，登录用户看到的内容不同，按 Authorization 区分缓存
+ *
+ * @author licong
+ * @date 2026/10/18 21:40
+ */
+public final class HttpCacheHelper {
+
+    private HttpCacheHelper() {
+    }
+
+    /**
+     * @param lastModified 毫秒时间戳，没有时传 -1
+     * @return true 时响应已是 304，controller 直接返回 null
+     */
+    public static boolean checkNotModified(HttpServletRequest request, HttpServletResponse response,
+                                           String etag, long lastModified) {
+        response.setHeader(HttpHeaders.CACHE_CONTROL, CacheControl.noCache().getHeaderValue());
+        response.addHeader(HttpHeaders.VARY, HttpHeaders.AUTHORIZATION);
+        ServletWebRequest webRequest = new ServletWebRequest(request, response);
+        return lastModified < 0 ? webRequest.checkNotModified(etag) : webRequest.checkNotModified(etag, lastModified);
+    }
+
+    /**
+     * Accept-Encoding 中是否有 gzip(或 *)且 q 不为 0
+     */
+    public static boolean acceptsGzip(HttpServletRequest request) {
+        String acceptEncoding = request.getHeader(HttpHeaders.ACCEPT_ENCODING);
+        if (StringUtils.isBlank(acceptEncoding)) {
+            return false;
+        }
+        for (String coding : acceptEncoding.split(",")) {
+            String[] parts = coding.trim().split(";");
+            String name = parts[0].trim();
+            if (!"gzip".equalsIgnoreCase(name) && !"*".equals(name)) {
+                continue;
+            }
+            boolean refused = false;
+            for (int i = 1; i < parts.length; i++) {
+                String param = parts[i].trim();
+                if (param.startsWith("q=")) {
+                    refused = NumberUtils.toDouble(param.substring(2), 1) <= 0;
+                }
+            }
+            return !refused;
+        }
+        return false;
+    }
+
+    /**
+     * 直接输出已经序列化好的 json
+     *
+     * @param gzipped body 是否已经 gzip
+     */
+    public static void writeJson(HttpServletResponse response, byte[] body, boolean gzipped) throws IOException {
+        response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+        if (gzipped) {
+            response.setHeader(HttpHeaders.CONTENT_ENCODING, "gzip");
+        }
+        response.addHeader(HttpHeaders.VARY, HttpHeaders.ACCEPT_ENCODING);
+        response.setContentLength(body.length);
+        response.getOutputStream().write(body);
+    }
+
+    /**
+     * 不能被缓存的响应，如加密文章
+     */
+    public static void noStore(HttpServletResponse response) {
+        response.setHeader(HttpHeaders.CACHE_CONTROL, CacheControl.noStore().getHeaderValue());
+    }
+}
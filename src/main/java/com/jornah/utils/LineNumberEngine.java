@@ -0,0 +1,234 @@
+package com.jornah.utils;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+
+/**
+ * 给文本逐行加/去行号，一次遍历直接写入输出，不拆分字符串、不用 String.format。
+ * 行号格式形如 ":%d:"，只支持一个 %d。
+ * <p>
+ * 行为与原来的 split + String.format 实现一致: \r\n 视为 \n，末尾的空行会被丢弃，每行后补 \n
+ *
+ * @author licong
+ * @date 2026/10/18 19:20
+ */
+public final class LineNumberEngine {
+    /**
+     * 行号最多6位，与 {@link MyStringUtil#LineNoRegex} 一致
+     */
+    private static final int MAX_DIGITS = 6;
+
+    public static final LineNumberEngine DEFAULT = of(MyStringUtil.LineNoFormat);
+
+    private final String prefix;
+    private final String suffix;
+
+    private LineNumberEngine(String prefix, String suffix) {
+        this.prefix = prefix;
+        this.suffix = suffix;
+    }
+
+    public static LineNumberEngine of(String lineNoFormat) {
+        int index = lineNoFormat.indexOf("%d");
+        if (index <= 0 || lineNoFormat.indexOf("%d", index + 2) >= 0) {
+            throw new IllegalArgumentException("行号格式需要非空前缀且只有一个 %d: " + lineNoFormat);
+        }
+        return new LineNumberEngine(lineNoFormat.substring(0, index), lineNoFormat.substring(index + 2));
+    }
+
+    /**
+     * 加行号
+     *
+     * @param atHead 行号放在行首还是行尾
+     */
+    public String number(CharSequence input, boolean atHead) {
+        CharSequence text = input == null ? "" : input;
+        int end = contentEnd(text);
+        int lines = 1;
+        for (int i = 0; i < end; i++) {
+            if (text.charAt(i) == '\n') {
+                lines++;
+            }
+        }
+        if (end == 0 && text.length() > 0) {
+            lines = 0;
+        }
+        StringBuilder sb = new StringBuilder(end + lines * (prefix.length() + suffix.length() + MAX_DIGITS + 1));
+        try {
+            number(text, atHead, sb);
+        } catch (IOException e) {
+            // StringBuilder 不会抛 IOException
+            throw new UncheckedIOException(e);
+        }
+        return sb.toString();
+    }
+
+    /**
+     * 加行号，边遍历边写入 out，适合直接写到流里
+     */
+    public void number(CharSequence input, boolean atHead, Appendable out) throws IOException {
+        CharSequence text = input == null ? "" : input;
+        int end = contentEnd(text);
+        if (end == 0 && text.length() > 0) {
+            // 全是换行，没有内容行
+            return;
+        }
+        char[] digits = new char[10];
+        int lineNo = 1;
+        int lineStart = 0;
+        for (int i = 0; i <= end; i++) {
+            if (i < end && text.charAt(i) != '\n') {
+                continue;
+            }
+            // \r\n 中的 \r 不属于内容
+            int lineEnd = i < end && i > lineStart && text.charAt(i - 1) == '\r' ? i - 1 : i;
+            if (atHead) {
+                appendLineNo(out, lineNo, digits);
+                out.append(text, lineStart, lineEnd);
+            } else {
+                out.append(text, lineStart, lineEnd);
+                appendLineNo(out, lineNo, digits);
+            }
+            out.append('\n');
+            lineNo++;
+            lineStart = i + 1;
+        }
+    }
+
+    /**
+     * 去掉所有 前缀+1~6位数字+后缀 形式的行号
+     */
+    public String strip(CharSequence input) {
+        StringBuilder sb = new StringBuilder(input.length());
+        try {
+            strip(input, sb);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return sb.toString();
+    }
+
+    public void strip(CharSequence input, Appendable out) throws IOException {
+        int length = input.length();
+        int copyFrom = 0;
+        int i = nextPrefix(input, 0);
+        while (i >= 0) {
+            int matchEnd = matchLineNo(input, i);
+            if (matchEnd < 0) {
+                i = nextPrefix(input, i + 1);
+                continue;
+            }
+            out.append(input, copyFrom, i);
+            copyFrom = matchEnd;
+            i = nextPrefix(input, matchEnd);
+        }
+        out.append(input, copyFrom, length);
+    }
+
+    /**
+     * 找出文本中最后一个行号，es 高亮片段中可能有多个行号，最后一个即片段结束所在的行
+     *
+     * @return 没有行号时返回 -1
+     */
+    public int lastLineNo(CharSequence input) {
+        int last = -1;
+        for (int i = nextPrefix(input, 0); i >= 0; i = nextPrefix(input, i + 1)) {
+            if (!regionMatches(input, i, prefix)) {
+                continue;
+            }
+            int digitStart = i + prefix.length();
+            int digitEnd = digitStart;
+            while (digitEnd < input.length() && isDigit(input.charAt(digitEnd))) {
+                digitEnd++;
+            }
+            // 超过9位不会是行号，也避免 int 溢出
+            if (digitEnd > digitStart && digitEnd - digitStart <= 9 && regionMatches(input, digitEnd, suffix)) {
+                last = Integer.parseInt(input.subSequence(digitStart, digitEnd).toString());
+            }
+        }
+        return last;
+    }
+
+    /**
+     * @return from 之后下一个前缀首字符的位置，没有时返回 -1
+     */
+    private int nextPrefix(CharSequence input, int from) {
+        char first = prefix.charAt(0);
+        if (input instanceof String) {
+            return ((String) input).indexOf(first, from);
+        }
+        for (int i = from; i < input.length(); i++) {
+            if (input.charAt(i) == first) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * @return 在 start 处匹配到行号时返回行号之后的位置，否则返回 -1
+     */
+    private int matchLineNo(CharSequence input, int start) {
+        if (!regionMatches(input, start, prefix)) {
+            return -1;
+        }
+        int i = start + prefix.length();
+        int digitStart = i;
+        while (i < input.length() && i - digitStart < MAX_DIGITS && isDigit(input.charAt(i))) {
+            i++;
+        }
+        // 数字超过6位也不算行号
+        if (i == digitStart || (i < input.length() && isDigit(input.charAt(i)))) {
+            return -1;
+        }
+        return regionMatches(input, i, suffix) ? i + suffix.length() : -1;
+    }
+
+    private static boolean isDigit(char c) {
+        return c >= '0' && c <= '9';
+    }
+
+    private static boolean regionMatches(CharSequence input, int start, String part) {
+        if (start + part.length() > input.length()) {
+            return false;
+        }
+        for (int i = 0; i < part.length(); i++) {
+            if (input.charAt(start + i) != part.charAt(i)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * 去掉末尾所有的 \n 和 \r\n 后的长度
+     */
+    private static int contentEnd(CharSequence text) {
+        int end = text.length();
+        while (end > 0 && text.charAt(end - 1) == '\n') {
+            end--;
+            if (end > 0 && text.charAt(end - 1) == '\r') {
+                end--;
+            }
+        }
+        return end;
+    }
+
+    private void appendLineNo(Appendable out, int lineNo, char[] digits) throws IOException {
+        out.append(prefix);
+        if (out instanceof StringBuilder) {
+            ((StringBuilder) out).append(lineNo);
+        } else {
+            int pos = digits.length;
+            int n = lineNo;
+            do {
+                digits[--pos] = (char) ('0' + n % 10);
+                n /= 10;
+            } while (n > 0);
+            for (; pos < digits.length; pos++) {
+                out.append(digits[pos]);
+            }
+        }
+        out.append(suffix);
+    }
+}
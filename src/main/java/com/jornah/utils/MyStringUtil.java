@@ -1,10 +1,5 @@
 package com.jornah.utils;
 
-import org.apache.commons.lang3.StringUtils;
-
-import java.util.Objects;
-import static org.apache.commons.lang3.StringUtils.EMPTY;
-
 public class MyStringUtil {
     public static String LineNoFormat = ":%d:";
     public static String LineNoRegex = ":\\d{1,6}:";
@@ -17,24 +12,18 @@ public class MyStringUtil {
         System.out.println(rmStr);
     }
 
+    /**
+     * 逐行加行号，\r\n 统一替换为 \n
+     */
     public static String generateLineNumberForText(String input, String lineNoFormat, boolean atHead) {
-        String macStyle = StringUtils.replace(Objects.isNull(input) ? EMPTY : input, "\r\n", "\n");
-        // 统一一下，换行符，如果是windows \r\n，存入的时候，自动替换为 \n
-        String[] source = macStyle.split("\n");
-        String[] target = new String[source.length];
-        if (atHead) {
-            for (int index = 0; index < source.length; index++) {
-                target[index] = String.format(lineNoFormat, index + 1) + source[index] + "\n";
-            }
-        } else {
-            for (int index = 0; index < source.length; index++) {
-                target[index] = source[index] + String.format(lineNoFormat, index + 1) + "\n";
-            }
-        }
-        return String.join("", target);
+        LineNumberEngine engine = LineNoFormat.equals(lineNoFormat) ? LineNumberEngine.DEFAULT : LineNumberEngine.of(lineNoFormat);
+        return engine.number(input, atHead);
     }
 
     public static String rmLineNumberForText(String input, String regex) {
+        if (LineNoRegex.equals(regex)) {
+            return LineNumberEngine.DEFAULT.strip(input);
+        }
         return input.replaceAll(regex, "");
     }
 }
@@ -0,0 +1,194 @@
+package com.jornah.utils;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+import java.nio.ByteBuffer;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * 堆外的字节缓存: 数据放在 direct ByteBuffer 中，按固定大小的块分配，一个值占若干个不必连续的块；
+ * 堆上只保存 key -> 块号 的索引。总字节数有上限，空间不足时按 LRU 淘汰。
+ * 每个值带一个版本号，读取时版本不一致视为未命中。
+ * <p>
+ * 所有操作在同一把锁内完成，读取时把数据复制到新的 byte[] 中返回，锁外不会再访问堆外内存
+ *
+ * @author licong
+ * @date 2026/10/18 22:20
+ */
+public class OffHeapLruCache<K> {
+    /**
+     * 每个 direct ByteBuffer 的大小，第一次用到时才分配
+     */
+    private static final int SLAB_BYTES = 16 * 1024 * 1024;
+
+    private final int blockSize;
+    private final int blocksPerSlab;
+    private final ByteBuffer[] slabs;
+    /**
+     * 空闲块号的栈，小的块号在栈顶，尽量先用已经分配的 slab
+     */
+    private final int[] freeBlocks;
+    private int freeCount;
+    private final long expireAfterWriteMillis;
+    private final LinkedHashMap<K, Entry> index = new LinkedHashMap<>(64, 0.75f, true);
+
+    private long usedBytes;
+    private long hits;
+    private long misses;
+    private long evictions;
+
+    /**
+     * @param capacityBytes          堆外内存上限
+     * @param blockSize              块大小，值的最后一个块平均浪费一半
+     * @param expireAfterWriteMillis 写入后多久过期，小于等于0表示不过期
+     */
+    public OffHeapLruCache(long capacityBytes, int blockSize, long expireAfterWriteMillis) {
+        if (blockSize <= 0 || blockSize > SLAB_BYTES || capacityBytes < blockSize) {
+            throw new IllegalArgumentException("bad capacity or block size: " + capacityBytes + ", " + blockSize);
+        }
+        int blocks = (int) Math.min(Integer.MAX_VALUE, capacityBytes / blockSize);
+        this.blockSize = blockSize;
+        this.blocksPerSlab = SLAB_BYTES / blockSize;
+        this.slabs = new ByteBuffer[(blocks + blocksPerSlab - 1) / blocksPerSlab];
+        this.freeBlocks = new int[blocks];
+        for (int i = 0; i < blocks; i++) {
+            freeBlocks[i] = blocks - 1 - i;
+        }
+        this.freeCount = blocks;
+        this.expireAfterWriteMillis = expireAfterWriteMillis;
+    }
+
+    /**
+     * @return 没有、已过期或版本不一致时返回 null
+     */
+    public synchronized byte[] get(K key, String version) {
+        Entry entry = index.get(key);
+        if (Objects.isNull(entry) || !entry.version.equals(version)) {
+            misses++;
+            return null;
+        }
+        if (expireAfterWriteMillis > 0 && System.currentTimeMillis() - entry.writtenAt > expireAfterWriteMillis) {
+            release(index.remove(key));
+            misses++;
+            return null;
+        }
+        hits++;
+        byte[] value = new byte[entry.length];
+        int copied = 0;
+        for (int block : entry.blocks) {
+            int length = Math.min(blockSize, entry.length - copied);
+            ByteBuffer slab = slabs[block / blocksPerSlab];
+            slab.position((block % blocksPerSlab) * blockSize);
+            slab.get(value, copied, length);
+            copied += length;
+        }
+        return value;
+    }
+
+    /**
+     * 写入，空间不足时淘汰最久未访问的值
+     *
+     * @return 值比整个缓存还大时不写入，返回 false
+     */
+    public synchronized boolean put(K key, String version, byte[] value) {
+        int needed = (value.length + blockSize - 1) / blockSize;
+        if (needed > freeBlocks.length) {
+            return false;
+        }
+        Entry old = index.remove(key);
+        if (Objects.nonNull(old)) {
+            release(old);
+        }
+        Iterator<Entry> eldest = index.values().iterator();
+        while (freeCount < needed) {
+            release(eldest.next());
+            eldest.remove();
+            evictions++;
+        }
+        int[] blocks = new int[needed];
+        int written = 0;
+        for (int i = 0; i < needed; i++) {
+            int block = freeBlocks[--freeCount];
+            blocks[i] = block;
+            int length = Math.min(blockSize, value.length - written);
+            ByteBuffer slab = slabOf(block);
+            slab.position((block % blocksPerSlab) * blockSize);
+            slab.put(value, written, length);
+            written += length;
+        }
+        index.put(key, new Entry(version, blocks, value.length, System.currentTimeMillis()));
+        usedBytes += value.length;
+        return true;
+    }
+
+    public synchronized void invalidate(K key) {
+        Entry entry = index.remove(key);
+        if (Objects.nonNull(entry)) {
+            release(entry);
+        }
+    }
+
+    public synchronized void invalidateAll() {
+        index.values().forEach(this::release);
+        index.clear();
+    }
+
+    public synchronized Stats stats() {
+        long requests = hits + misses;
+        return new Stats(index.size(), usedBytes, (long) (freeBlocks.length - freeCount) * blockSize,
+                (long) freeBlocks.length * blockSize, hits, misses, requests == 0 ? 0 : (double) hits / requests, evictions);
+    }
+
+    private void release(Entry entry) {
+        for (int block : entry.blocks) {
+            freeBlocks[freeCount++] = block;
+        }
+        usedBytes -= entry.length;
+    }
+
+    private ByteBuffer slabOf(int block) {
+        int slab = block / blocksPerSlab;
+        if (Objects.isNull(slabs[slab])) {
+            int blocks = Math.min(blocksPerSlab, freeBlocks.length - slab * blocksPerSlab);
+            slabs[slab] = ByteBuffer.allocateDirect(blocks * blockSize);
+        }
+        return slabs[slab];
+    }
+
+    private static final class Entry {
+        private final String version;
+        private final int[] blocks;
+        private final int length;
+        private final long writtenAt;
+
+        private Entry(String version, int[] blocks, int length, long writtenAt) {
+            this.version = version;
+            this.blocks = blocks;
+            this.length = length;
+            this.writtenAt = writtenAt;
+        }
+    }
+
+    @Getter
+    @AllArgsConstructor
+    public static class Stats {
+        private final int entries;
+        /**
+         * 值的总字节数
+         */
+        private final long usedBytes;
+        /**
+         * 占用的块的总字节数，与 usedBytes 的差为块内浪费
+         */
+        private final long allocatedBytes;
+        private final long capacityBytes;
+        private final long hits;
+        private final long misses;
+        private final double hitRate;
+        private final long evictions;
+    }
+}
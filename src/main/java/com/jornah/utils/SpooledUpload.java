@@ -0,0 +1,158 @@
+package com.jornah.utils;
+
+import org.apache.tomcat.util.buf.HexUtils;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.security.DigestInputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+
+/**
+ * 上传文件只读一遍: 边写临时文件边算 md5，文件类型看开头几个字节判断，不解码图片；
+ * 最后原子地移动到目标位置或直接从临时文件上传。每个上传只占用几 KB 堆内存，与文件大小无关。
+ * <p>
+ * 临时文件和目标位置要在同一个文件系统上才能原子移动。close 时删除没有被移走的临时文件
+ *
+ * @author licong
+ * @date 2026/10/19 00:10
+ */
+public class SpooledUpload implements AutoCloseable {
+    /**
+     * 每次 transferFrom 的最大字节数，实际按 8KB 的缓冲区分批读
+     */
+    private static final long TRANSFER_CHUNK = 1024 * 1024;
+    private static final int HEAD_BYTES = 16;
+
+    private final Path file;
+    private final String md5;
+    private final long size;
+    private final String imageType;
+    private boolean moved;
+
+    private SpooledUpload(Path file, String md5, long size, String imageType) {
+        this.file = file;
+        this.md5 = md5;
+        this.size = size;
+        this.imageType = imageType;
+    }
+
+    /**
+     * 把输入流写到 tempDir 下的临时文件，同时算出 md5 和文件类型，输入流由调用方关闭
+     */
+    public static SpooledUpload spool(InputStream in, Path tempDir) throws IOException {
+        Files.createDirectories(tempDir);
+        Path file = Files.createTempFile(tempDir, "upload-", ".tmp");
+        try {
+            MessageDigest digest = md5Digest();
+            long size = 0;
+            try (FileChannel out = FileChannel.open(file, StandardOpenOption.WRITE);
+                 ReadableByteChannel source = Channels.newChannel(new DigestInputStream(in, digest))) {
+                long transferred;
+                while ((transferred = out.transferFrom(source, size, TRANSFER_CHUNK)) > 0) {
+                    size += transferred;
+                }
+            }
+            return new SpooledUpload(file, HexUtils.toHexString(digest.digest()), size, sniffImageType(file));
+        } catch (IOException | RuntimeException e) {
+            Files.deleteIfExists(file);
+            throw e;
+        }
+    }
+
+    public Path getFile() {
+        return file;
+    }
+
+    public String getMd5() {
+        return md5;
+    }
+
+    public long getSize() {
+        return size;
+    }
+
+    /**
+     * png、jpeg、gif、webp、bmp、ico，不是图片时为 null
+     */
+    public String getImageType() {
+        return imageType;
+    }
+
+    public boolean isImage() {
+        return imageType != null;
+    }
+
+    /**
+     * 原子地移动到目标位置，已存在时覆盖
+     */
+    public void moveTo(Path target) throws IOException {
+        Files.createDirectories(target.toAbsolutePath().getParent());
+        Files.move(file, target, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        moved = true;
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (!moved) {
+            Files.deleteIfExists(file);
+        }
+    }
+
+    static String sniffImageType(Path file) throws IOException {
+        ByteBuffer head = ByteBuffer.allocate(HEAD_BYTES);
+        try (FileChannel in = FileChannel.open(file, StandardOpenOption.READ)) {
+            while (head.hasRemaining() && in.read(head) > 0) {
+                // 读满开头的几个字节
+            }
+        }
+        return imageTypeOf(head.array(), head.position());
+    }
+
+    static String imageTypeOf(byte[] head, int length) {
+        if (startsWith(head, length, 0x89, 'P', 'N', 'G', 0x0D, 0x0A, 0x1A, 0x0A)) {
+            return "png";
+        } else if (startsWith(head, length, 0xFF, 0xD8, 0xFF)) {
+            return "jpeg";
+        } else if (startsWith(head, length, 'G', 'I', 'F', '8')) {
+            return "gif";
+        } else if (length >= 12 && startsWith(head, length, 'R', 'I', 'F', 'F')
+                && head[8] == 'W' && head[9] == 'E' && head[10] == 'B' && head[11] == 'P') {
+            return "webp";
+        } else if (startsWith(head, length, 'B', 'M')) {
+            return "bmp";
+        } else if (startsWith(head, length, 0x00, 0x00, 0x01, 0x00)) {
+            return "ico";
+        }
+        return null;
+    }
+
+    private static boolean startsWith(byte[] head, int length, int... magic) {
+        if (length < magic.length) {
+            return false;
+        }
+        for (int i = 0; i < magic.length; i++) {
+            if ((head[i] & 0xFF) != magic[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static MessageDigest md5Digest() {
+        try {
+            return MessageDigest.getInstance("MD5");
+        } catch (NoSuchAlgorithmException e) {
+            // 所有 jdk 都带 md5
+            throw new IllegalStateException(e);
+        }
+    }
+}
@@ -1,4 +1,4 @@
-drop TABLE if EXISTS `article`;
+-- 基线: 已有库由 baseline-on-migrate 标记为版本 1 后跳过，空库从这里建表
 CREATE TABLE `article`
 (
     `id`           bigint unsigned NOT NULL AUTO_INCREMENT,
@@ -17,16 +17,17 @@ CREATE TABLE `article`
     `allow_ping`    tinyint(1)       DEFAULT '1',
     `allow_feed`    tinyint(1)       DEFAULT '1',
     `order_weight`  int(10)          DEFAULT NULL,
+    `recommend_level` int(10)        DEFAULT '0',
+    `version`      int(10)          DEFAULT '0',
+    `encrypt_enable` tinyint(1)     DEFAULT '0',
     PRIMARY KEY (`id`) USING BTREE,
     UNIQUE KEY `slug` (`slug`) USING BTREE,
     KEY `created` (`created`) USING BTREE
 ) ENGINE = InnoDB
-  AUTO_INCREMENT = 164
   DEFAULT CHARSET = utf8
   ROW_FORMAT = COMPACT;
 
 
-drop TABLE if EXISTS `category`;
 CREATE TABLE `category`
 (
     `id`           bigint unsigned NOT NULL AUTO_INCREMENT,
@@ -34,7 +35,6 @@ CREATE TABLE `category`
     PRIMARY KEY (`id`) USING BTREE
 );
 
-drop TABLE if EXISTS `tag`;
 CREATE TABLE `tag`
 (
     `id`           bigint unsigned NOT NULL AUTO_INCREMENT,
@@ -42,7 +42,6 @@ CREATE TABLE `tag`
     PRIMARY KEY (`id`) USING BTREE
 );
 
-drop TABLE if EXISTS `article_category`;
 CREATE TABLE `article_category`
 (
     `id`           bigint unsigned NOT NULL AUTO_INCREMENT,
@@ -51,7 +50,6 @@ CREATE TABLE `article_category`
     PRIMARY KEY (`id`) USING BTREE
 );
 
-drop TABLE if EXISTS `article_tag`;
 CREATE TABLE `article_tag`
 (
     `id`           bigint unsigned NOT NULL AUTO_INCREMENT,
@@ -61,8 +59,6 @@ CREATE TABLE `article_tag`
 );
 
 
-drop table if EXISTS `music`;
-
 CREATE TABLE `music` (
                          `id` bigint(20) unsigned NOT NULL AUTO_INCREMENT,
                          `src` varchar(200) DEFAULT NULL COMMENT '资源地址',
@@ -75,4 +71,29 @@ CREATE TABLE `music` (
                          PRIMARY KEY (`id`) USING BTREE,
                          UNIQUE KEY `md5` (`md5`) USING BTREE,
                          KEY `created` (`created`) USING BTREE
-) ENGINE=InnoDB AUTO_INCREMENT=170 DEFAULT CHARSET=utf8 ROW_FORMAT=COMPACT;
+) ENGINE=InnoDB DEFAULT CHARSET=utf8 ROW_FORMAT=COMPACT;
+
+CREATE TABLE `attach` (
+                         `id` bigint(20) unsigned NOT NULL AUTO_INCREMENT,
+                         `fname` varchar(200) DEFAULT NULL COMMENT '文件名称',
+                         `ftype` varchar(32) DEFAULT NULL COMMENT '文件类型',
+                         `fkey` varchar(512) DEFAULT NULL COMMENT '文件的地址',
+                         `author_id` int(10) DEFAULT NULL,
+                         `md5` char(64) DEFAULT NULL,
+                         `created` datetime DEFAULT CURRENT_TIMESTAMP,
+                         `updated` datetime DEFAULT CURRENT_TIMESTAMP,
+                         PRIMARY KEY (`id`) USING BTREE
+) ENGINE=InnoDB DEFAULT CHARSET=utf8 ROW_FORMAT=COMPACT;
+
+CREATE TABLE `read_record` (
+                         `id` bigint(20) unsigned NOT NULL AUTO_INCREMENT,
+                         `article_id` bigint not null,
+                         `user_id` bigint DEFAULT NULL,
+                         `title` varchar(200) DEFAULT NULL,
+                         `read_duration` bigint DEFAULT NULL COMMENT '阅读时长',
+                         `start_read_time` datetime DEFAULT NULL,
+                         `created` datetime DEFAULT CURRENT_TIMESTAMP,
+                         `updated` datetime DEFAULT CURRENT_TIMESTAMP,
+                         PRIMARY KEY (`id`) USING BTREE,
+                         UNIQUE KEY `article_id` (`article_id`) USING BTREE
+) ENGINE=InnoDB DEFAULT CHARSET=utf8 ROW_FORMAT=COMPACT;
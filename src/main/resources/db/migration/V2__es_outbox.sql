@@ -0,0 +1,13 @@
+-- 文章写入和索引任务在同一个事务里提交，由发件箱投递到搜索引擎。
+-- 不放在 V1 里: 已有库被标记为版本 1 后会跳过 V1；按旧版 new.sql 建过这张表的库不重复创建
+CREATE TABLE IF NOT EXISTS `es_outbox` (
+                         `id` bigint(20) unsigned NOT NULL AUTO_INCREMENT,
+                         `article_id` bigint not null,
+                         `attempts` int(10) unsigned DEFAULT '0' COMMENT '已失败次数',
+                         `next_attempt_at` datetime(3) not null COMMENT '下次投递时间',
+                         `last_error` varchar(512) DEFAULT NULL,
+                         `created` datetime(3) DEFAULT CURRENT_TIMESTAMP(3),
+                         `updated` datetime(3) DEFAULT CURRENT_TIMESTAMP(3),
+                         PRIMARY KEY (`id`) USING BTREE,
+                         KEY `next_attempt_at` (`next_attempt_at`) USING BTREE
+) ENGINE=InnoDB DEFAULT CHARSET=utf8 ROW_FORMAT=COMPACT;
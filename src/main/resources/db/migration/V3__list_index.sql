@@ -0,0 +1,9 @@
+-- 列表分页: 按状态过滤后按 (updated, id) 倒序，按标签、分类过滤时从关联表的 (tag_id/category_id, article_id) 开始
+alter table `article`
+    add KEY `status_encrypt_updated` (`status`, `encrypt_enable`, `updated`, `id`) USING BTREE;
+
+alter table `article_category`
+    add KEY `category_article` (`category_id`, `article_id`) USING BTREE;
+
+alter table `article_tag`
+    add KEY `tag_article` (`tag_id`, `article_id`) USING BTREE;
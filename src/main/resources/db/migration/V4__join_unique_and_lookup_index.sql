@@ -0,0 +1,20 @@
+-- 关联表按 article_id 查询、删除都走 (article_id, xxx_id) 唯一索引，唯一约束也挡住重复关联。先删掉已有的重复行，保留 id 最小的
+delete from `article_tag`
+where id not in (select id from (select min(id) as id from `article_tag` group by article_id, tag_id) keep_rows);
+
+delete from `article_category`
+where id not in (select id from (select min(id) as id from `article_category` group by article_id, category_id) keep_rows);
+
+alter table `article_tag`
+    add UNIQUE KEY `article_tag` (`article_id`, `tag_id`) USING BTREE;
+
+alter table `article_category`
+    add UNIQUE KEY `article_category` (`article_id`, `category_id`) USING BTREE;
+
+-- 上传时按 md5 查重
+alter table `attach`
+    add KEY `md5` (`md5`) USING BTREE;
+
+-- 最近阅读按开始时间倒序取前几条
+alter table `read_record`
+    add KEY `start_read_time` (`start_read_time`) USING BTREE;
@@ -0,0 +1,13 @@
+-- 相同内容(md5)的附件共用一个文件，只保留 id 最小的一行，ref_count 记引用数，减到 0 才删除记录和七牛上的文件
+alter table `attach`
+    add column `ref_count` int(10) NOT NULL DEFAULT 1 COMMENT '引用数' after `md5`;
+
+update `attach` a join (select min(id) as id, count(*) as refs from `attach` where md5 is not null group by md5) d
+    on a.id = d.id
+set a.ref_count = d.refs;
+
+delete a from `attach` a join `attach` keep_row on a.md5 = keep_row.md5 and a.id > keep_row.id;
+
+alter table `attach`
+    drop KEY `md5`,
+    add UNIQUE KEY `md5` (`md5`) USING BTREE;
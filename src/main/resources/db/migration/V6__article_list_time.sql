@@ -0,0 +1,5 @@
+-- 列表按 coalesce(updated, created) 倒序分页，updated 为空的文章也能翻到。
+-- 用虚拟生成列建索引，键集分页的条件和排序都直接用这一列，翻到多深都只扫一页
+alter table `article`
+    add column `list_time` datetime generated always as (coalesce(`updated`, `created`)) virtual,
+    add KEY `status_encrypt_list_time` (`status`, `encrypt_enable`, `list_time`, `id`) USING BTREE;
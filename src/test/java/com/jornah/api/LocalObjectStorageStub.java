@@ -0,0 +1,197 @@
+package com.jornah.api;
+
+import com.qiniu.util.Crc32;
+import com.qiniu.util.UrlSafeBase64;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 本地的七牛上传接口桩，只实现表单上传和分块上传(mkblk、mkfile)，不校验上传凭证，对象存在内存里。
+ * 可以让分块上传在成功若干块之后一直失败，用来测试断点续传
+ *
+ * @author licong
+ * @date 2026/10/19 00:30
+ */
+public class LocalObjectStorageStub implements AutoCloseable {
+    private final HttpServer server;
+    private final ExecutorService executor = Executors.newFixedThreadPool(8);
+    private final Map<String, byte[]> blocks = new ConcurrentHashMap<>();
+    private final Map<String, byte[]> objects = new ConcurrentHashMap<>();
+    private final AtomicInteger formUploads = new AtomicInteger();
+    private final AtomicInteger madeBlocks = new AtomicInteger();
+    /**
+     * 还允许成功的块数，小于 0 时不限制
+     */
+    private final AtomicInteger blocksBeforeFailure = new AtomicInteger(-1);
+
+    public LocalObjectStorageStub() throws IOException {
+        server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        server.createContext("/", this::handle);
+        server.setExecutor(executor);
+        server.start();
+    }
+
+    public String url() {
+        return "http://127.0.0.1:" + server.getAddress().getPort();
+    }
+
+    public byte[] object(String key) {
+        return objects.get(key);
+    }
+
+    public int formUploads() {
+        return formUploads.get();
+    }
+
+    /**
+     * 成功创建的块数
+     */
+    public int madeBlocks() {
+        return madeBlocks.get();
+    }
+
+    public void failBlocksAfter(int successes) {
+        blocksBeforeFailure.set(successes);
+    }
+
+    public void recover() {
+        blocksBeforeFailure.set(-1);
+    }
+
+    @Override
+    public void close() {
+        server.stop(0);
+        executor.shutdownNow();
+    }
+
+    private void handle(HttpExchange exchange) throws IOException {
+        try {
+            String path = exchange.getRequestURI().getPath();
+            byte[] body = readAll(exchange.getRequestBody());
+            if (path.startsWith("/mkblk/")) {
+                makeBlock(exchange, body);
+            } else if (path.startsWith("/mkfile/")) {
+                makeFile(exchange, path, body);
+            } else {
+                formUpload(exchange, body);
+            }
+        } finally {
+            exchange.close();
+        }
+    }
+
+    private void makeBlock(HttpExchange exchange, byte[] body) throws IOException {
+        if (blocksBeforeFailure.get() >= 0 && blocksBeforeFailure.getAndDecrement() <= 0) {
+            blocksBeforeFailure.set(0);
+            respond(exchange, 503, "{\"error\":\"service unavailable\"}");
+            return;
+        }
+        String ctx = UUID.randomUUID().toString();
+        blocks.put(ctx, body);
+        madeBlocks.incrementAndGet();
+        respond(exchange, 200, "{\"ctx\":\"" + ctx + "\",\"checksum\":\"\",\"crc32\":" + Crc32.bytes(body)
+                + ",\"offset\":" + body.length + ",\"host\":\"" + url() + "\",\"expired_at\":0}");
+    }
+
+    private void makeFile(HttpExchange exchange, String path, byte[] body) throws IOException {
+        // /mkfile/{size}/mimeType/{b64}/fname/{b64}/key/{b64}
+        String[] segments = path.split("/");
+        String key = null;
+        for (int i = 3; i + 1 < segments.length; i += 2) {
+            if ("key".equals(segments[i])) {
+                key = new String(UrlSafeBase64.decode(segments[i + 1]), StandardCharsets.UTF_8);
+            }
+        }
+        ByteArrayOutputStream object = new ByteArrayOutputStream();
+        for (String ctx : new String(body, StandardCharsets.UTF_8).split(",")) {
+            byte[] block = blocks.remove(ctx);
+            if (block == null) {
+                respond(exchange, 400, "{\"error\":\"invalid ctx\"}");
+                return;
+            }
+            object.write(block);
+        }
+        objects.put(key, object.toByteArray());
+        respond(exchange, 200, "{\"key\":\"" + key + "\",\"hash\":\"" + hashOf(object.toByteArray()) + "\"}");
+    }
+
+    private void formUpload(HttpExchange exchange, byte[] body) throws IOException {
+        String contentType = exchange.getRequestHeaders().getFirst("Content-Type");
+        byte[] delimiter = ("--" + contentType.substring(contentType.indexOf("boundary=") + "boundary=".length()))
+                .getBytes(StandardCharsets.ISO_8859_1);
+        String key = null;
+        byte[] file = null;
+        int start = indexOf(body, delimiter, 0);
+        while (start >= 0) {
+            int partStart = start + delimiter.length + 2;
+            int next = indexOf(body, delimiter, partStart);
+            if (next < 0) {
+                break;
+            }
+            int headerEnd = indexOf(body, "\r\n\r\n".getBytes(StandardCharsets.ISO_8859_1), partStart);
+            String headers = new String(body, partStart, headerEnd - partStart, StandardCharsets.UTF_8);
+            // 去掉内容末尾的 \r\n
+            byte[] content = Arrays.copyOfRange(body, headerEnd + 4, next - 2);
+            if (headers.contains("name=\"key\"")) {
+                key = new String(content, StandardCharsets.UTF_8);
+            } else if (headers.contains("name=\"file\"")) {
+                file = content;
+            }
+            start = next;
+        }
+        objects.put(key, file);
+        formUploads.incrementAndGet();
+        respond(exchange, 200, "{\"key\":\"" + key + "\",\"hash\":\"" + hashOf(file) + "\"}");
+    }
+
+    private static String hashOf(byte[] object) {
+        return Long.toHexString(Crc32.bytes(object));
+    }
+
+    private static void respond(HttpExchange exchange, int status, String json) throws IOException {
+        byte[] body = json.getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().set("Content-Type", "application/json");
+        exchange.getResponseHeaders().set("X-Reqid", UUID.randomUUID().toString());
+        exchange.sendResponseHeaders(status, body.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(body);
+        }
+    }
+
+    private static byte[] readAll(InputStream in) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        byte[] buffer = new byte[8192];
+        int read;
+        while ((read = in.read(buffer)) > 0) {
+            out.write(buffer, 0, read);
+        }
+        return out.toByteArray();
+    }
+
+    private static int indexOf(byte[] data, byte[] target, int from) {
+        outer:
+        for (int i = from; i <= data.length - target.length; i++) {
+            for (int j = 0; j < target.length; j++) {
+                if (data[i + j] != target[j]) {
+                    continue outer;
+                }
+            }
+            return i;
+        }
+        return -1;
+    }
+}
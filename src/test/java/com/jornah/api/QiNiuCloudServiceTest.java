@@ -0,0 +1,130 @@
+package com.jornah.api;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.util.DigestUtils;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.CompletableFuture;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * 对着本地的上传接口桩跑，不访问七牛
+ *
+ * @author licong
+ * @date 2026/10/19 00:30
+ */
+public class QiNiuCloudServiceTest {
+    private static final int BLOCK_SIZE = 4 * 1024 * 1024;
+
+    @TempDir
+    Path tempDir;
+
+    private LocalObjectStorageStub stub;
+    private QiNiuCloudService service;
+    private SimpleMeterRegistry meterRegistry;
+
+    @BeforeEach
+    public void setUp() throws IOException {
+        stub = new LocalObjectStorageStub();
+        service = new QiNiuCloudService();
+        ReflectionTestUtils.setField(service, "upHost", stub.url());
+        ReflectionTestUtils.setField(service, "parallelism", 4);
+        ReflectionTestUtils.setField(service, "queueCapacity", 16);
+        ReflectionTestUtils.setField(service, "putThreshold", BLOCK_SIZE);
+        ReflectionTestUtils.setField(service, "recorderPath", tempDir.resolve("recorder").toString());
+        ReflectionTestUtils.setField(service, "recorderExpireHours", 24L);
+        ReflectionTestUtils.setField(service, "tokenExpireSeconds", 3600L);
+        ReflectionTestUtils.setField(service, "tokenRenewSeconds", 300L);
+        meterRegistry = new SimpleMeterRegistry();
+        ReflectionTestUtils.setField(service, "meterRegistry", meterRegistry);
+        service.init();
+    }
+
+    @AfterEach
+    public void tearDown() {
+        service.destroy();
+        stub.close();
+    }
+
+    private static String md5(File file) throws IOException {
+        return DigestUtils.md5DigestAsHex(Files.readAllBytes(file.toPath()));
+    }
+
+    private File file(String name, int length) throws IOException {
+        byte[] content = new byte[length];
+        new Random(length).nextBytes(content);
+        return Files.write(tempDir.resolve(name), content).toFile();
+    }
+
+    @Test
+    public void formUpload() throws IOException {
+        File file = file("small.png", 100 * 1024);
+        assertEquals(QiNiuCloudService.QINIU_UPLOAD_SITE + "small.png", service.upload(file, "small.png", md5(file)));
+        assertEquals(1, stub.formUploads());
+        assertArrayEquals(Files.readAllBytes(file.toPath()), stub.object("small.png"));
+    }
+
+    @Test
+    public void resumeFromRecordedBlocks() throws IOException {
+        // 3 块，第 2 块开始失败
+        File file = file("large.zip", 2 * BLOCK_SIZE + 1024 * 1024);
+        stub.failBlocksAfter(1);
+        assertNull(service.upload(file, "large.zip", md5(file)));
+        assertEquals(1, stub.madeBlocks());
+
+        // 重试时是新的临时文件和新的文件名，内容相同
+        File retry = Files.copy(file.toPath(), tempDir.resolve("retry.zip")).toFile();
+        stub.recover();
+        assertEquals(QiNiuCloudService.QINIU_UPLOAD_SITE + "retry-key.zip", service.upload(retry, "retry-key.zip", md5(retry)));
+        // 已完成的第 1 块不再上传，只补传缺的 2 块
+        assertEquals(3, stub.madeBlocks());
+        assertArrayEquals(Files.readAllBytes(file.toPath()), stub.object("retry-key.zip"));
+        // 成功后记录已删除
+        assertEquals(0, tempDir.resolve("recorder").toFile().list().length);
+
+        assertEquals(1, meterRegistry.get("upload").tag("outcome", "error").timer().count());
+        assertEquals(1, meterRegistry.get("upload").tag("outcome", "success").timer().count());
+        assertEquals(2.0 * file.length(), meterRegistry.get("upload.size").summary().totalAmount());
+    }
+
+    @Test
+    public void concurrentBatch() throws IOException {
+        List<File> files = new ArrayList<>();
+        List<CompletableFuture<String>> urls = new ArrayList<>();
+        for (int i = 0; i < 8; i++) {
+            File file = file("batch-" + i, (i + 1) * 64 * 1024);
+            files.add(file);
+            urls.add(service.uploadAsync(file, file.getName(), md5(file)));
+        }
+        for (int i = 0; i < files.size(); i++) {
+            File file = files.get(i);
+            assertEquals(QiNiuCloudService.QINIU_UPLOAD_SITE + file.getName(), urls.get(i).join());
+            assertArrayEquals(Files.readAllBytes(file.toPath()), stub.object(file.getName()));
+        }
+        assertEquals(8, stub.formUploads());
+    }
+
+    @Test
+    public void rejectAfterShutdown() throws IOException {
+        File file = file("late.png", 1024);
+        service.destroy();
+        CompletableFuture<String> url = service.uploadAsync(file, file.getName(), md5(file));
+        assertTrue(url.isCompletedExceptionally());
+        assertEquals(0, service.executorStats().getRejected());
+    }
+}
@@ -0,0 +1,86 @@
+package com.jornah.configuration;
+
+import com.jornah.configuration.DownstreamExecutors.Downstream;
+import com.jornah.constant.ExceptionType;
+import com.jornah.exception.BusinessException;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * @author licong
+ * @date 2026/10/19 00:50
+ */
+public class DownstreamExecutorsTest {
+    private DownstreamExecutors executors;
+
+    private DownstreamExecutors executors(boolean enabled) {
+        executors = new DownstreamExecutors();
+        ReflectionTestUtils.setField(executors, "enabled", enabled);
+        ReflectionTestUtils.setField(executors, "databaseThreads", 1);
+        ReflectionTestUtils.setField(executors, "databaseQueueCapacity", 1);
+        ReflectionTestUtils.setField(executors, "searchThreads", 1);
+        ReflectionTestUtils.setField(executors, "searchQueueCapacity", 1);
+        executors.init();
+        return executors;
+    }
+
+    @AfterEach
+    public void tearDown() {
+        executors.destroy();
+    }
+
+    @Test
+    public void runInRequestThreadWhenDisabled() {
+        DownstreamExecutors executors = executors(false);
+        String caller = Thread.currentThread().getName();
+        CompletableFuture<String> future = executors.supply(Downstream.SEARCH, () -> Thread.currentThread().getName());
+        assertTrue(future.isDone());
+        assertEquals(caller, future.join());
+
+        CompletableFuture<String> failed = new CompletableFuture<>();
+        failed.completeExceptionally(BusinessException.of(ExceptionType.BAD_CURSOR, "bad"));
+        assertThrows(BusinessException.class, () -> executors.settle(failed));
+    }
+
+    @Test
+    public void rejectWhenSaturated() throws InterruptedException {
+        DownstreamExecutors executors = executors(true);
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        CompletableFuture<String> running = executors.supply(Downstream.SEARCH, () -> {
+            started.countDown();
+            awaitQuietly(release);
+            return Thread.currentThread().getName();
+        });
+        started.await();
+        CompletableFuture<String> queued = executors.supply(Downstream.SEARCH, () -> "queued");
+
+        BusinessException busy = assertThrows(BusinessException.class,
+                () -> executors.supply(Downstream.SEARCH, () -> "rejected"));
+        assertEquals(ExceptionType.SERVER_BUSY, busy.getExceptionType());
+        // 另一个下游不受影响
+        assertEquals("database", executors.supply(Downstream.DATABASE, () -> "database").join());
+
+        release.countDown();
+        assertTrue(running.join().startsWith("downstream-search-"));
+        assertEquals("queued", queued.join());
+        assertEquals(1, executors.stats().get("search").getRejected());
+        assertEquals(0, executors.stats().get("database").getRejected());
+    }
+
+    private static void awaitQuietly(CountDownLatch latch) {
+        try {
+            latch.await();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
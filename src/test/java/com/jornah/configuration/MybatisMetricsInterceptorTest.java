@@ -0,0 +1,46 @@
+package com.jornah.configuration;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.apache.ibatis.executor.Executor;
+import org.apache.ibatis.mapping.MappedStatement;
+import org.apache.ibatis.mapping.SqlCommandType;
+import org.apache.ibatis.plugin.Invocation;
+import org.apache.ibatis.session.Configuration;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+
+import java.lang.reflect.InvocationTargetException;
+import java.sql.SQLException;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.when;
+
+/**
+ * @author licong
+ * @date 2026/10/19 01:10
+ */
+public class MybatisMetricsInterceptorTest {
+
+    @Test
+    public void timeStatementsByMapperMethod() throws Throwable {
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        MybatisMetricsInterceptor interceptor = new MybatisMetricsInterceptor(registry);
+        MappedStatement ms = new MappedStatement.Builder(new Configuration(), "com.jornah.dao.AttachDao.retain",
+                parameterObject -> null, SqlCommandType.UPDATE).build();
+        Executor executor = Mockito.mock(Executor.class);
+        when(executor.update(any(), any())).thenReturn(1).thenThrow(new SQLException("lock wait timeout"));
+        Object[] args = {ms, 1L};
+
+        assertEquals(1, interceptor.intercept(new Invocation(executor,
+                Executor.class.getMethod("update", MappedStatement.class, Object.class), args)));
+        assertThrows(InvocationTargetException.class, () -> interceptor.intercept(new Invocation(executor,
+                Executor.class.getMethod("update", MappedStatement.class, Object.class), args)));
+
+        assertEquals(1, registry.get("mybatis.statement")
+                .tags("statement", "AttachDao.retain", "command", "update", "exception", "none").timer().count());
+        assertEquals(1, registry.get("mybatis.statement")
+                .tags("statement", "AttachDao.retain", "exception", "SQLException").timer().count());
+    }
+}
@@ -0,0 +1,150 @@
+package com.jornah.controller;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.jornah.advice.Advice;
+import com.jornah.constant.ExceptionType;
+import com.jornah.exception.BusinessException;
+import com.jornah.model.entity.Article;
+import com.jornah.model.vo.ArticleVo;
+import com.jornah.service.article.ArticleService;
+import com.jornah.service.article.PassphraseAttemptLimiter;
+import com.jornah.service.article.render.RenderedArticleCache;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+import org.springframework.http.HttpHeaders;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+import org.springframework.util.StreamUtils;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.util.zip.GZIPInputStream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * @author licong
+ * @date 2026/10/18 21:40
+ */
+public class ArticleControllerTest {
+    private ArticleService articleService;
+    private PassphraseAttemptLimiter passphraseAttemptLimiter;
+    private MockMvc mockMvc;
+
+    @BeforeEach
+    public void setUp() {
+        articleService = Mockito.mock(ArticleService.class);
+        ArticleController controller = new ArticleController();
+        ReflectionTestUtils.setField(controller, "articleService", articleService);
+        RenderedArticleCache renderedArticleCache = new RenderedArticleCache();
+        ReflectionTestUtils.setField(renderedArticleCache, "jsonMaxBytes", 1024 * 1024L);
+        ReflectionTestUtils.setField(renderedArticleCache, "gzipMaxBytes", 1024 * 1024L);
+        ReflectionTestUtils.setField(renderedArticleCache, "blockSize", 1024);
+        ReflectionTestUtils.setField(renderedArticleCache, "expireSeconds", 60L);
+        renderedArticleCache.init();
+        ReflectionTestUtils.setField(controller, "renderedArticleCache", renderedArticleCache);
+        ReflectionTestUtils.setField(controller, "objectMapper", new ObjectMapper());
+        passphraseAttemptLimiter = Mockito.mock(PassphraseAttemptLimiter.class);
+        ReflectionTestUtils.setField(controller, "passphraseAttemptLimiter", passphraseAttemptLimiter);
+        mockMvc = MockMvcBuilders.standaloneSetup(controller).setControllerAdvice(new Advice()).build();
+
+        Article version = Article.builder().version(3).status("publish").build();
+        version.setId(7L);
+        version.setUpdated(Instant.ofEpochSecond(1_700_000_000L));
+        when(articleService.getArticleVersion(7L)).thenReturn(version);
+        ArticleVo vo = new ArticleVo();
+        vo.setId(7L);
+        when(articleService.getArticleBy(eq(7L), any())).thenReturn(vo);
+    }
+
+    @Test
+    public void notModifiedSkipsContent() throws Exception {
+        MvcResult first = mockMvc.perform(get("/blog/article/7"))
+                .andExpect(status().isOk())
+                .andExpect(header().string(HttpHeaders.CACHE_CONTROL, "no-cache"))
+                .andReturn();
+        String etag = first.getResponse().getHeader(HttpHeaders.ETAG);
+        assertEquals("\"a7-3-1700000000000-publish\"", etag);
+
+        Mockito.clearInvocations(articleService);
+        mockMvc.perform(get("/blog/article/7").header(HttpHeaders.IF_NONE_MATCH, etag))
+                .andExpect(status().isNotModified());
+        mockMvc.perform(get("/blog/article/7")
+                .header(HttpHeaders.IF_MODIFIED_SINCE, first.getResponse().getHeader(HttpHeaders.LAST_MODIFIED)))
+                .andExpect(status().isNotModified());
+        verify(articleService, never()).getArticleBy(any(), any());
+    }
+
+    @Test
+    public void renderedBody() throws Exception {
+        for (int i = 0; i < 2; i++) {
+            MvcResult result = mockMvc.perform(get("/blog/article/7").header(HttpHeaders.ACCEPT_ENCODING, "br, gzip;q=0.8"))
+                    .andExpect(status().isOk())
+                    .andExpect(header().string(HttpHeaders.CONTENT_ENCODING, "gzip"))
+                    .andReturn();
+            byte[] json = StreamUtils.copyToByteArray(new GZIPInputStream(
+                    new ByteArrayInputStream(result.getResponse().getContentAsByteArray())));
+            assertTrue(new String(json, StandardCharsets.UTF_8).contains("\"id\":7"));
+        }
+        // 第二次直接输出缓存的字节
+        verify(articleService, times(1)).getArticleBy(any(), any());
+
+        // 不接受 gzip 时输出缓存的原始 json
+        mockMvc.perform(get("/blog/article/7").header(HttpHeaders.ACCEPT_ENCODING, "gzip;q=0"))
+                .andExpect(header().doesNotExist(HttpHeaders.CONTENT_ENCODING))
+                .andExpect(content().json("{\"code\":\"success\",\"data\":{\"id\":7}}"));
+        verify(articleService, times(1)).getArticleBy(any(), any());
+    }
+
+    @Test
+    public void encryptedIsNotCached() throws Exception {
+        articleService.getArticleVersion(7L).setEncryptEnable(true);
+        mockMvc.perform(get("/blog/article/7").header(HttpHeaders.IF_NONE_MATCH, "\"a7-3-1700000000000-publish\""))
+                .andExpect(status().isOk())
+                .andExpect(header().string(HttpHeaders.CACHE_CONTROL, "no-store"))
+                .andExpect(header().doesNotExist(HttpHeaders.ETAG));
+    }
+
+    @Test
+    public void draftIsHiddenFromTourist() throws Exception {
+        articleService.getArticleVersion(7L).setStatus("draft");
+        mockMvc.perform(get("/blog/article/7").header(HttpHeaders.IF_NONE_MATCH, "\"a7-3-1700000000000-draft\""))
+                .andExpect(status().isOk())
+                .andExpect(header().doesNotExist(HttpHeaders.ETAG))
+                .andExpect(header().doesNotExist(HttpHeaders.LAST_MODIFIED))
+                .andExpect(content().json("{\"code\":\"success\",\"data\":null}"));
+        verify(articleService, never()).getArticleBy(any(), any());
+        verify(articleService, never()).updateArticleHits(any());
+    }
+
+    @Test
+    public void passphraseFailuresAreLimited() throws Exception {
+        articleService.getArticleVersion(7L).setEncryptEnable(true);
+        mockMvc.perform(get("/blog/article/7").param("passphrase", "wrong"))
+                .andExpect(status().isOk());
+        verify(passphraseAttemptLimiter).recordFailure(any());
+
+        // 失败次数用完后不再解密
+        Mockito.doThrow(BusinessException.of(ExceptionType.TOO_MANY_REQUESTS, "口令错误次数过多"))
+                .when(passphraseAttemptLimiter).check(any());
+        Mockito.clearInvocations(articleService);
+        mockMvc.perform(get("/blog/article/7").param("passphrase", "wrong"))
+                .andExpect(status().isForbidden());
+        verify(articleService, never()).getArticleBy(any(), any());
+    }
+}
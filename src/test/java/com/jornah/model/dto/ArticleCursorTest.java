@@ -0,0 +1,50 @@
+package com.jornah.model.dto;
+
+import com.jornah.constant.ExceptionType;
+import com.jornah.exception.BusinessException;
+import com.jornah.model.entity.Article;
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.util.Base64;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+/**
+ * @author licong
+ * @date 2026/10/18 23:10
+ */
+public class ArticleCursorTest {
+
+    @Test
+    public void roundTrip() {
+        ArticleCursor cursor = new ArticleCursor(Instant.ofEpochMilli(1700000000000L), 42L);
+        String encoded = cursor.encode();
+        // 对外不透明，也不需要 url 转义
+        assertFalse(encoded.contains(":"));
+        assertFalse(encoded.contains("="));
+        assertEquals(cursor, ArticleCursor.decode(encoded));
+    }
+
+    @Test
+    public void fallBackToCreated() {
+        Article article = new Article();
+        article.setId(7L);
+        article.setCreated(Instant.ofEpochMilli(1600000000000L));
+        ArticleCursor cursor = ArticleCursor.decode(ArticleCursor.of(article).encode());
+        assertEquals(new ArticleCursor(Instant.ofEpochMilli(1600000000000L), 7L), cursor);
+    }
+
+    @Test
+    public void badCursor() {
+        String notNumber = Base64.getUrlEncoder().encodeToString("abc:1".getBytes(StandardCharsets.UTF_8));
+        String overflow = Base64.getUrlEncoder().encodeToString("99999999999999999999:1".getBytes(StandardCharsets.UTF_8));
+        for (String cursor : new String[]{"!!!", notNumber, overflow, "MTIz"}) {
+            BusinessException e = assertThrows(BusinessException.class, () -> ArticleCursor.decode(cursor));
+            assertEquals(ExceptionType.BAD_CURSOR, e.getExceptionType());
+        }
+    }
+}
@@ -0,0 +1,34 @@
+package com.jornah.service.article.hits;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * @author licong
+ * @date 2026/10/19 01:30
+ */
+public class UniqueVisitFilterTest {
+
+    @Test
+    public void rotateWhenFull() {
+        UniqueVisitFilter filter = new UniqueVisitFilter();
+        ReflectionTestUtils.setField(filter, "expectedInsertions", 100);
+        ReflectionTestUtils.setField(filter, "fpp", 0.01);
+
+        assertTrue(filter.markVisited("10.0.0.1", 1L));
+        assertFalse(filter.markVisited("10.0.0.1", 1L));
+        // 爬虫流量远超容量，写满后换新的过滤器，新 ip 的第一次访问仍然能记上
+        int missed = 0;
+        for (int i = 0; i < 5000; i++) {
+            if (!filter.markVisited("crawler-" + i, 1L)) {
+                missed++;
+            }
+        }
+        assertTrue(missed < 5000 * 0.05, "missed first visits: " + missed);
+        assertTrue(filter.markVisited("10.0.0.2", 1L));
+        assertFalse(filter.markVisited("10.0.0.2", 1L));
+    }
+}
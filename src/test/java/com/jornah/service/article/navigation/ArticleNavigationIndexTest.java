@@ -0,0 +1,71 @@
+package com.jornah.service.article.navigation;
+
+import com.google.common.collect.Lists;
+import com.jornah.model.dto.ArticleCategoryDto;
+import com.jornah.model.dto.ArticleTagDto;
+import com.jornah.model.entity.Article;
+import org.junit.jupiter.api.Test;
+
+import java.time.Instant;
+import java.util.Collections;
+
+import static com.jornah.service.article.navigation.ArticleNavigationIndex.By.ALL;
+import static com.jornah.service.article.navigation.ArticleNavigationIndex.By.CATEGORY;
+import static com.jornah.service.article.navigation.ArticleNavigationIndex.By.TAG;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+/**
+ * @author licong
+ * @date 2026/10/18 17:40
+ */
+public class ArticleNavigationIndexTest {
+
+    private static Article article(long id, long createdSecond) {
+        return Article.builder().id(id).created(Instant.ofEpochSecond(createdSecond)).build();
+    }
+
+    private static ArticleCategoryDto categoryMap(long articleId, long categoryId) {
+        ArticleCategoryDto map = new ArticleCategoryDto();
+        map.setArticleId(articleId);
+        map.setId(categoryId);
+        return map;
+    }
+
+    private static ArticleTagDto tagMap(long articleId, long tagId) {
+        ArticleTagDto map = new ArticleTagDto();
+        map.setArticleId(articleId);
+        map.setId(tagId);
+        return map;
+    }
+
+    @Test
+    public void neighbourByCreated() {
+        // 3 和 4 创建时间相同，按 id 排
+        ArticleNavigationIndex.Snapshot snapshot = ArticleNavigationIndex.Snapshot.build(
+                Lists.newArrayList(article(3, 200), article(1, 100), article(4, 200), article(2, 300)),
+                Collections.emptyList(), Collections.emptyList());
+
+        assertEquals(3L, snapshot.neighbour(1L, true, ALL, null));
+        assertNull(snapshot.neighbour(1L, false, ALL, null));
+        assertEquals(4L, snapshot.neighbour(3L, true, ALL, null));
+        assertEquals(4L, snapshot.neighbour(2L, false, ALL, null));
+        assertNull(snapshot.neighbour(2L, true, ALL, null));
+        assertNull(snapshot.neighbour(99L, true, ALL, null));
+    }
+
+    @Test
+    public void neighbourByCategoryAndTag() {
+        ArticleNavigationIndex.Snapshot snapshot = ArticleNavigationIndex.Snapshot.build(
+                Lists.newArrayList(article(1, 100), article(2, 200), article(3, 300), article(4, 400)),
+                Lists.newArrayList(categoryMap(1, 10), categoryMap(2, 20), categoryMap(3, 10), categoryMap(4, 10)),
+                Lists.newArrayList(tagMap(1, 7), tagMap(4, 7), tagMap(4, 8), tagMap(2, 8)));
+
+        assertEquals(3L, snapshot.neighbour(1L, true, CATEGORY, null));
+        assertNull(snapshot.neighbour(2L, true, CATEGORY, null));
+        assertEquals(4L, snapshot.neighbour(1L, true, TAG, null));
+        assertEquals(2L, snapshot.neighbour(4L, false, TAG, 8L));
+        // 文章不在指定分类时按创建时间取插入位置
+        assertEquals(3L, snapshot.neighbour(2L, true, CATEGORY, 10L));
+    }
+}
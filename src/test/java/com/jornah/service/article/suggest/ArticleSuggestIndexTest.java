@@ -0,0 +1,65 @@
+package com.jornah.service.article.suggest;
+
+import com.google.common.collect.Lists;
+import com.jornah.model.dto.Suggestion;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static com.jornah.model.dto.Suggestion.Type.ARTICLE;
+import static com.jornah.model.dto.Suggestion.Type.CATEGORY;
+import static com.jornah.model.dto.Suggestion.Type.TAG;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * @author licong
+ * @date 2026/10/18 20:40
+ */
+public class ArticleSuggestIndexTest {
+
+    private final ArticleSuggestIndex.Snapshot snapshot = ArticleSuggestIndex.Snapshot.build(Lists.newArrayList(
+            new Suggestion(ARTICLE, 1L, "Java 并发编程实战"),
+            new Suggestion(ARTICLE, 2L, "Redis 缓存穿透"),
+            new Suggestion(ARTICLE, 3L, "深入理解 JVM"),
+            new Suggestion(TAG, 10L, "java"),
+            new Suggestion(CATEGORY, 20L, "数据库"),
+            new Suggestion(ARTICLE, 4L, null)));
+
+    private List<Long> ids(String prefix) {
+        return snapshot.suggest(prefix, 10).stream().map(Suggestion::getId).collect(Collectors.toList());
+    }
+
+    @Test
+    public void prefixOfText() {
+        // 同为开头匹配时文章排在标签前面
+        assertEquals(Lists.newArrayList(1L, 10L), ids("JA"));
+        assertEquals(Lists.newArrayList(2L), ids("redis 缓"));
+        assertEquals(Lists.newArrayList(20L), ids("数据"));
+    }
+
+    @Test
+    public void pinyinKeys() {
+        assertEquals(Lists.newArrayList(20L), ids("sjk"));
+        assertEquals(Lists.newArrayList(20L), ids("shuju"));
+        assertEquals(Lists.newArrayList(3L), ids("srlj"));
+        assertEquals(Lists.newArrayList(2L), ids("redishc"));
+    }
+
+    @Test
+    public void wordInTheMiddle() {
+        assertEquals(Lists.newArrayList(1L), ids("并发"));
+        assertEquals(Lists.newArrayList(1L), ids("bfbc"));
+        // 开头匹配的排在中间匹配的前面
+        assertEquals(Lists.newArrayList(3L), ids("jv"));
+        // 数据库 的 据 拼音为 ju
+        assertEquals(Lists.newArrayList(1L, 10L, 3L, 20L), ids("j"));
+    }
+
+    @Test
+    public void emptyPrefixAndLimit() {
+        assertTrue(snapshot.suggest(" ", 10).isEmpty());
+        assertEquals(1, snapshot.suggest("j", 1).size());
+    }
+}
@@ -0,0 +1,108 @@
+package com.jornah.service.attach.impl;
+
+import com.jornah.api.QiNiuCloudService;
+import com.jornah.dao.AttachDao;
+import com.jornah.model.entity.Attach;
+import com.jornah.service.attach.AttachDigestFilter;
+import org.apache.ibatis.executor.result.DefaultResultContext;
+import org.apache.ibatis.session.ResultHandler;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * @author licong
+ * @date 2026/10/19 00:40
+ */
+public class AttachServiceImplTest {
+    private static final String SHARED_MD5 = "0cc175b9c0f1b6a831c399e269772661";
+
+    private AttachDao attachDao;
+    private QiNiuCloudService qiNiuCloudService;
+    private AttachServiceImpl service;
+
+    private static Attach attach(long id, String fname, String md5) {
+        Attach attach = new Attach();
+        attach.setId(id);
+        attach.setFname(fname);
+        attach.setFkey(QiNiuCloudService.QINIU_UPLOAD_SITE + fname);
+        attach.setMd5(md5);
+        return attach;
+    }
+
+    @BeforeEach
+    @SuppressWarnings("unchecked")
+    public void setUp() {
+        attachDao = Mockito.mock(AttachDao.class);
+        qiNiuCloudService = Mockito.mock(QiNiuCloudService.class);
+        doAnswer(invocation -> {
+            DefaultResultContext<String> context = new DefaultResultContext<>();
+            context.nextResultObject(SHARED_MD5);
+            invocation.getArgument(0, ResultHandler.class).handleResult(context);
+            return null;
+        }).when(attachDao).scanMd5(any());
+
+        AttachDigestFilter filter = new AttachDigestFilter();
+        ReflectionTestUtils.setField(filter, "attachDao", attachDao);
+        ReflectionTestUtils.setField(filter, "expectedInsertions", 1000);
+        ReflectionTestUtils.setField(filter, "fpp", 0.001);
+        filter.load();
+
+        service = new AttachServiceImpl();
+        ReflectionTestUtils.setField(service, "attAchDao", attachDao);
+        ReflectionTestUtils.setField(service, "digestFilter", filter);
+        ReflectionTestUtils.setField(service, "qiNiuCloudService", qiNiuCloudService);
+    }
+
+    @Test
+    public void filterSkipsProbeOfNewContent() {
+        assertNull(service.retainByMd5("92eb5ffee6ae2fec3ad71c777531578f"));
+        verify(attachDao, never()).findByMd5(anyString());
+
+        Attach shared = attach(1L, "a.png", SHARED_MD5);
+        when(attachDao.findByMd5(SHARED_MD5)).thenReturn(shared);
+        when(attachDao.retain(1L)).thenReturn(1);
+        assertSame(shared, service.retainByMd5(SHARED_MD5));
+        verify(attachDao).retain(1L);
+    }
+
+    @Test
+    public void concurrentUploadOfSameContentSharesFirstBlob() {
+        Attach first = attach(1L, "a.png", SHARED_MD5);
+        Attach second = attach(2L, "b.png", SHARED_MD5);
+        when(attachDao.insert(second)).thenThrow(new DuplicateKeyException("md5"));
+        when(attachDao.findByMd5(SHARED_MD5)).thenReturn(first);
+        when(attachDao.retain(1L)).thenReturn(1);
+
+        assertEquals(first.getFkey(), service.addAttach(second).getFkey());
+        verify(qiNiuCloudService).delete("b.png");
+    }
+
+    @Test
+    public void deleteBlobWithLastReference() {
+        Attach shared = attach(1L, "a.png", SHARED_MD5);
+        when(attachDao.selectById(1)).thenReturn(shared);
+        when(attachDao.release(1L)).thenReturn(1);
+        // 还有其他引用
+        when(attachDao.deleteUnreferenced(1L)).thenReturn(0);
+        service.deleteAttach(1);
+        verify(qiNiuCloudService, never()).delete(anyString());
+
+        when(attachDao.deleteUnreferenced(1L)).thenReturn(1);
+        service.deleteAttach(1);
+        verify(qiNiuCloudService, times(1)).delete("a.png");
+    }
+}
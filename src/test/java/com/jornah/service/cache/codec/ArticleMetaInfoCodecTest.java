@@ -0,0 +1,69 @@
+package com.jornah.service.cache.codec;
+
+import com.google.common.collect.Lists;
+import com.jornah.model.entity.Category;
+import com.jornah.model.entity.Tag;
+import com.jornah.model.vo.ArticleMetaInfo;
+import io.netty.buffer.ByteBuf;
+import org.junit.jupiter.api.Test;
+
+import java.time.Instant;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+/**
+ * @author licong
+ * @date 2026/10/18 11:20
+ */
+public class ArticleMetaInfoCodecTest {
+
+    @Test
+    public void roundTrip() throws Exception {
+        Tag tag = new Tag();
+        tag.setId(1L);
+        tag.setName("JVM");
+        tag.setCreated(Instant.ofEpochSecond(1660000000L, 123456789));
+        Category category = new Category();
+        category.setId(2L);
+        category.setName("数据结构&算法");
+        category.setUpdated(Instant.now());
+        ArticleMetaInfo metaInfo = ArticleMetaInfo.builder()
+                .articleId(44L)
+                .tags(Lists.newArrayList(tag, null))
+                .category(category)
+                .build();
+
+        ByteBuf buf = ArticleMetaInfoCodec.INSTANCE.getValueEncoder().encode(metaInfo);
+        try {
+            ArticleMetaInfo decoded = (ArticleMetaInfo) ArticleMetaInfoCodec.INSTANCE.getValueDecoder().decode(buf, null);
+            assertEquals(metaInfo, decoded);
+            // Tag、Category 的 equals 不比较父类的 id、created、updated，单独校验
+            Tag decodedTag = decoded.getTags().get(0);
+            assertEquals(1L, decodedTag.getId());
+            assertEquals(tag.getCreated(), decodedTag.getCreated());
+            assertNull(decodedTag.getUpdated());
+            assertNull(decoded.getTags().get(1));
+            Category decodedCategory = decoded.getCategory();
+            assertEquals(2L, decodedCategory.getId());
+            assertNull(decodedCategory.getCreated());
+            assertEquals(category.getUpdated(), decodedCategory.getUpdated());
+        } finally {
+            buf.release();
+        }
+    }
+
+    @Test
+    public void nullFields() throws Exception {
+        ArticleMetaInfo metaInfo = ArticleMetaInfo.builder().articleId(1L).build();
+        ByteBuf buf = ArticleMetaInfoCodec.INSTANCE.getValueEncoder().encode(metaInfo);
+        try {
+            ArticleMetaInfo decoded = (ArticleMetaInfo) ArticleMetaInfoCodec.INSTANCE.getValueDecoder().decode(buf, null);
+            assertEquals(1L, decoded.getArticleId());
+            assertNull(decoded.getTags());
+            assertNull(decoded.getCategory());
+        } finally {
+            buf.release();
+        }
+    }
+}
@@ -4,11 +4,13 @@ import com.google.gson.GsonBuilder;
 import com.jornah.dao.ArticleDao;
 import com.jornah.model.entity.Article;
 import com.jornah.model.dto.SearchResult;
+import com.jornah.model.enums.ArticleStatus;
 import org.junit.jupiter.api.Disabled;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.context.SpringBootTest;
 
+import java.util.Collections;
 import java.util.List;
 
 
@@ -20,7 +22,7 @@ class EsArticleServiceTest {
 
     @Test
     void testExportData() {
-        service.exportDataToEs();
+        service.rebuild();
     }
 
     @Test
@@ -35,11 +37,15 @@ class EsArticleServiceTest {
         Article article = new Article();
         article.setId(40L);
         article.setTitle("1235123");
-        service.update(article);
+        article.setStatus(ArticleStatus.PUBLISHED.getValue());
+        service.bulkIndex(Collections.singletonList(article));
     }
     @Test
     void testDelete() {
-        service.delete(40+"");
+        Article article = new Article();
+        article.setId(40L);
+        article.setStatus(ArticleStatus.DELETED.getValue());
+        service.bulkIndex(Collections.singletonList(article));
     }
 
     @Test
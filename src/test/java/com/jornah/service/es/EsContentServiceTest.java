@@ -0,0 +1,103 @@
+package com.jornah.service.es;
+
+import com.jornah.dao.ArticleDao;
+import com.jornah.model.dto.ContentEsDTO;
+import com.jornah.model.entity.Article;
+import com.jornah.model.enums.ArticleStatus;
+import org.apache.ibatis.cursor.Cursor;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.InOrder;
+import org.mockito.Mockito;
+import org.springframework.data.elasticsearch.BulkFailureException;
+import org.springframework.data.elasticsearch.core.ElasticsearchRestTemplate;
+import org.springframework.data.elasticsearch.core.IndexOperations;
+import org.springframework.data.elasticsearch.core.mapping.IndexCoordinates;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.inOrder;
+import static org.mockito.Mockito.when;
+
+/**
+ * @author licong
+ * @date 2026/10/19 01:40
+ */
+public class EsContentServiceTest {
+    private ElasticsearchRestTemplate template;
+    private IndexOperations indexOps;
+    private SearchResultCache searchResultCache;
+    private ArticleDao articleDao;
+    private EsSyncCheckpoint syncCheckpoint;
+    private EsContentService service;
+
+    private static Article published(long id) {
+        Article article = Article.builder().title("标题").content("正文").status(ArticleStatus.PUBLISHED.getValue()).build();
+        article.setId(id);
+        article.setUpdated(Instant.ofEpochSecond(id));
+        return article;
+    }
+
+    @BeforeEach
+    public void setUp() {
+        template = Mockito.mock(ElasticsearchRestTemplate.class);
+        indexOps = Mockito.mock(IndexOperations.class);
+        when(template.indexOps(ContentEsDTO.class)).thenReturn(indexOps);
+        searchResultCache = Mockito.mock(SearchResultCache.class);
+        articleDao = Mockito.mock(ArticleDao.class);
+        syncCheckpoint = Mockito.mock(EsSyncCheckpoint.class);
+        service = new EsContentService(template);
+        ReflectionTestUtils.setField(service, "searchResultCache", searchResultCache);
+        ReflectionTestUtils.setField(service, "articleDao", articleDao);
+        ReflectionTestUtils.setField(service, "syncCheckpoint", syncCheckpoint);
+        ReflectionTestUtils.setField(service, "syncPageSize", 100);
+        ReflectionTestUtils.setField(service, "syncOverlapSeconds", 5L);
+        ReflectionTestUtils.setField(service, "bulkMaxActions", 200);
+        ReflectionTestUtils.setField(service, "bulkMaxBytes", 5242880L);
+    }
+
+    @Test
+    public void refreshBeforeInvalidatingCache() {
+        service.bulkIndex(Collections.singletonList(published(1L)));
+        InOrder order = inOrder(template, indexOps, searchResultCache);
+        order.verify(template).bulkIndex(anyList(), any(IndexCoordinates.class));
+        order.verify(indexOps).refresh();
+        order.verify(searchResultCache).onIndexChanged();
+    }
+
+    @Test
+    public void partialFailureStillRefreshesWrittenDocuments() {
+        when(template.bulkIndex(anyList(), any(IndexCoordinates.class)))
+                .thenThrow(new BulkFailureException("failed", Collections.singletonMap("1", "mapping")));
+        assertThrows(BulkFailureException.class, () -> service.bulkIndex(Collections.singletonList(published(1L))));
+        InOrder order = inOrder(indexOps, searchResultCache);
+        order.verify(indexOps).refresh();
+        order.verify(searchResultCache).onIndexChanged();
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void rebuildOnlyKeepsRecentPairsInWindow() {
+        List<Article> articles = new ArrayList<>();
+        for (long id = 1; id <= 1000; id++) {
+            articles.add(published(id));
+        }
+        Cursor<Article> cursor = Mockito.mock(Cursor.class);
+        when(cursor.iterator()).thenReturn(articles.iterator());
+        when(articleDao.scanAll()).thenReturn(cursor);
+
+        assertEquals(1000, service.rebuild());
+        // 水位 1000 秒，窗口只剩 [995, 1000]
+        SyncWindow window = (SyncWindow) ReflectionTestUtils.getField(service, "syncWindow");
+        assertEquals(6, ((Map<Long, Instant>) ReflectionTestUtils.getField(window, "written")).size());
+    }
+}
@@ -0,0 +1,37 @@
+package com.jornah.service.es;
+
+import com.google.common.collect.Lists;
+import com.jornah.model.dto.ArticleBodyHitInfo;
+import com.jornah.model.dto.HeadingEsDTO;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static com.jornah.utils.MyStringUtil.LineNoFormat;
+import static com.jornah.utils.MyStringUtil.generateLineNumberForText;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * @author licong
+ * @date 2026/10/18 19:50
+ */
+class EsHitInfoTest {
+
+    @Test
+    void outlineAndHitInfo() {
+        String content = generateLineNumberForText("前言\n# 第一章 JVM\n内容\n## 1.1 垃圾 回收\n缓存\n正文\n# 第二章\n结尾", LineNoFormat, true);
+        List<HeadingEsDTO> headings = EsContentService.outline(content);
+        assertEquals(3, headings.size());
+        assertEquals(new HeadingEsDTO(4, 2, ":4:## 1.1 垃圾 回收", "1.1-垃圾-回收"), headings.get(1));
+
+        List<ArticleBodyHitInfo> infos = EsContentService.generateBodyHitInfo(
+                Lists.newArrayList("<em>缓存</em>:5:\n:6:正", ":8:结尾", "前言"), headings);
+        assertEquals(2, infos.size());
+        assertEquals("1.1-垃圾-回收", infos.get(0).getUnderHead());
+        assertEquals("<em>缓存</em>\n正", infos.get(0).getHitContext());
+        assertEquals(":7:# 第二章", infos.get(1).getUnderHeadOriginal());
+
+        infos = EsContentService.generateBodyHitInfo(Lists.newArrayList(":1:前言"), headings);
+        assertEquals("", infos.get(0).getUnderHead());
+    }
+}
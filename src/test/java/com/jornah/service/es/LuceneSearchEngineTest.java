@@ -0,0 +1,154 @@
+package com.jornah.service.es;
+
+import com.google.common.collect.Lists;
+import com.jornah.dao.ArticleDao;
+import com.jornah.model.dto.ArticleBodyHitInfo;
+import com.jornah.model.dto.ArticleHitInfo;
+import com.jornah.model.dto.SearchResult;
+import com.jornah.model.entity.Article;
+import com.jornah.model.enums.ArticleStatus;
+import org.apache.ibatis.cursor.Cursor;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.Mockito;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * @author licong
+ * @date 2026/10/18 21:10
+ */
+public class LuceneSearchEngineTest {
+    @TempDir
+    Path indexDir;
+
+    private LuceneSearchEngine engine;
+    private ArticleDao articleDao;
+    private SearchResultCache searchResultCache;
+
+    private static Article article(long id, String title, String content) {
+        Article article = Article.builder().title(title).content(content).status(ArticleStatus.PUBLISHED.getValue()).build();
+        article.setId(id);
+        article.setUpdated(Instant.ofEpochSecond(id));
+        return article;
+    }
+
+    @BeforeEach
+    public void setUp() throws IOException {
+        engine = new LuceneSearchEngine();
+        articleDao = Mockito.mock(ArticleDao.class);
+        searchResultCache = Mockito.mock(SearchResultCache.class);
+        ReflectionTestUtils.setField(engine, "articleDao", articleDao);
+        ReflectionTestUtils.setField(engine, "searchResultCache", searchResultCache);
+        ReflectionTestUtils.setField(engine, "indexPath", indexDir.toString());
+        ReflectionTestUtils.setField(engine, "syncPageSize", 100);
+        ReflectionTestUtils.setField(engine, "syncOverlapSeconds", 5L);
+        engine.init();
+        engine.bulkIndex(Lists.newArrayList(
+                article(1L, "并发编程", "# 线程池\n核心线程数的设置\n## 阻塞队列\n队列满了以后会创建非核心线程\n"),
+                article(2L, "Redis 笔记", "# 缓存\n缓存穿透与布隆过滤器\n")));
+    }
+
+    @AfterEach
+    public void tearDown() throws IOException {
+        engine.close();
+    }
+
+    @Test
+    public void anchorOfBodyHit() {
+        List<ArticleHitInfo> hits = engine.findWithAnchorByContentOrTitle("非核心线程", 1, 5);
+        assertEquals(1, hits.size());
+        assertEquals("/detail/1", hits.get(0).getUrl());
+        List<ArticleBodyHitInfo> body = hits.get(0).getBodyHitInfoList();
+        // 二元分词按词项 OR 匹配，与 es 的 multi_match 一样，只命中 线程 的行也会返回
+        assertEquals(3, body.size());
+        assertEquals("线程池", body.get(0).getUnderHead());
+        assertEquals("# <em class=\"hlt1\">线程</em>池", body.get(0).getHitContext());
+        assertEquals("线程池", body.get(1).getUnderHead());
+        assertEquals("阻塞队列", body.get(2).getUnderHead());
+        assertEquals("队列满了以后会创建<em class=\"hlt1\">非核心线程</em>", body.get(2).getHitContext());
+    }
+
+    @Test
+    public void titleOnlyHit() {
+        List<SearchResult> hits = engine.findByContentOrTitle("redis", 1, 5);
+        assertEquals(1, hits.size());
+        assertEquals("<em class=\"hlt1\">Redis</em> 笔记", hits.get(0).getHitsWithHighLight().get("title").get(0));
+        assertNull(hits.get(0).getHitsWithHighLight().get("content"));
+        assertNull(engine.findWithAnchorByContentOrTitle("redis", 1, 5).get(0).getBodyHitInfoList());
+    }
+
+    @Test
+    public void paging() {
+        assertEquals(2, engine.findByContentOrTitle("缓存 线程", 1, 5).size());
+        assertEquals(1, engine.findByContentOrTitle("缓存 线程", 2, 1).size());
+        assertTrue(engine.findByContentOrTitle("缓存 线程", 3, 1).isEmpty());
+        assertTrue(engine.findByContentOrTitle(" ", 1, 5).isEmpty());
+    }
+
+    @Test
+    public void noCheckpointBeforeRebuild() {
+        assertEquals(-1, engine.syncIncrementally());
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void syncOnlyWritesUnindexedArticles() {
+        List<Article> articles = Lists.newArrayList(article(1L, "并发编程", "线程池"), article(2L, "Redis 笔记", "缓存"));
+        Cursor<Article> cursor = Mockito.mock(Cursor.class);
+        when(cursor.iterator()).thenReturn(articles.iterator());
+        when(articleDao.scanAll()).thenReturn(cursor);
+        assertEquals(2, engine.rebuild());
+
+        when(articleDao.findUpdatedAfter(any(), any(), anyInt())).thenReturn(Collections.emptyList());
+        when(articleDao.findUpdatedBetween(any(), any(), any())).thenReturn(articles);
+        // 水位和回看窗口里的文章都已写入过
+        assertEquals(0, engine.syncIncrementally());
+        verify(articleDao).findUpdatedAfter(Instant.ofEpochSecond(2), 2L, 100);
+
+        // 晚提交的文章 updated 落在水位之前
+        Article late = article(3L, "JVM", "垃圾回收");
+        late.setUpdated(Instant.ofEpochSecond(1));
+        when(articleDao.findUpdatedBetween(any(), any(), any())).thenReturn(Lists.newArrayList(articles.get(0), late, articles.get(1)));
+        assertEquals(1, engine.syncIncrementally());
+        assertEquals(1, engine.findByContentOrTitle("垃圾回收", 1, 5).size());
+        assertEquals(0, engine.syncIncrementally());
+
+        // setUp 的写入、重建、补写晚提交的文章各一次
+        verify(searchResultCache, times(3)).onIndexChanged();
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void unpublishedArticlesAreRemoved() {
+        Article deleted = article(1L, "并发编程", "线程池");
+        deleted.setStatus(ArticleStatus.DELETED.getValue());
+        engine.bulkIndex(Collections.singletonList(deleted));
+        assertEquals(0, engine.findByContentOrTitle("并发编程", 1, 5).size());
+
+        Article draft = article(3L, "JVM", "垃圾回收");
+        draft.setStatus(ArticleStatus.DRAFT.getValue());
+        Cursor<Article> cursor = Mockito.mock(Cursor.class);
+        when(cursor.iterator()).thenReturn(Lists.newArrayList(deleted, article(2L, "Redis 笔记", "缓存"), draft).iterator());
+        when(articleDao.scanAll()).thenReturn(cursor);
+        assertEquals(1, engine.rebuild());
+        assertEquals(0, engine.findByContentOrTitle("垃圾回收", 1, 5).size());
+        assertEquals(1, engine.findByContentOrTitle("缓存", 1, 5).size());
+    }
+}
@@ -0,0 +1,132 @@
+package com.jornah.service.site;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.google.common.collect.Lists;
+import com.jornah.model.entity.Config;
+import com.jornah.model.entity.Tag;
+import com.jornah.model.entity.User;
+import com.jornah.service.ConfigService;
+import com.jornah.service.MetaInfoService;
+import com.jornah.service.article.ArticleChangeNotifier;
+import com.jornah.service.user.UserService;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mockito;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.Collections;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * @author licong
+ * @date 2026/10/19 01:00
+ */
+public class SiteInfoCacheTest {
+    private UserService userService;
+    private MetaInfoService metaInfoService;
+    private ConfigService configService;
+    private Runnable changeListener;
+    private SiteInfoCache cache;
+
+    @BeforeEach
+    public void setUp() {
+        userService = Mockito.mock(UserService.class);
+        metaInfoService = Mockito.mock(MetaInfoService.class);
+        configService = Mockito.mock(ConfigService.class);
+        ArticleChangeNotifier notifier = Mockito.mock(ArticleChangeNotifier.class);
+
+        User owner = new User();
+        owner.setId(1L);
+        when(userService.getById(1L)).thenReturn(owner);
+        when(configService.getConfigByKey(SiteInfoCache.INDEX_STATS)).thenReturn(new Config());
+        when(metaInfoService.getAllCategory()).thenReturn(Collections.emptyList());
+
+        cache = new SiteInfoCache();
+        ReflectionTestUtils.setField(cache, "userService", userService);
+        ReflectionTestUtils.setField(cache, "metaInfoService", metaInfoService);
+        ReflectionTestUtils.setField(cache, "configService", configService);
+        ReflectionTestUtils.setField(cache, "articleChangeNotifier", notifier);
+        ReflectionTestUtils.setField(cache, "objectMapper", new ObjectMapper().findAndRegisterModules());
+        ReflectionTestUtils.setField(cache, "refreshSeconds", 300L);
+        cache.init();
+
+        ArgumentCaptor<Runnable> listener = ArgumentCaptor.forClass(Runnable.class);
+        verify(notifier).addListener(listener.capture());
+        changeListener = listener.getValue();
+    }
+
+    @AfterEach
+    public void tearDown() {
+        cache.destroy();
+    }
+
+    private static Tag tag(long id) {
+        Tag tag = new Tag();
+        tag.setId(id);
+        return tag;
+    }
+
+    @Test
+    public void coldBuildLoadsPartsConcurrently() {
+        // 四部分都开始加载后标签才返回，串行加载会超时
+        CountDownLatch allStarted = new CountDownLatch(4);
+        when(userService.getById(1L)).thenAnswer(invocation -> {
+            allStarted.countDown();
+            return new User();
+        });
+        when(metaInfoService.getAllCategory()).thenAnswer(invocation -> {
+            allStarted.countDown();
+            return Collections.emptyList();
+        });
+        when(configService.getConfigByKey(SiteInfoCache.INDEX_STATS)).thenAnswer(invocation -> {
+            allStarted.countDown();
+            return new Config();
+        });
+        when(metaInfoService.getAllTag()).thenAnswer(invocation -> {
+            allStarted.countDown();
+            assertTrue(allStarted.await(5, TimeUnit.SECONDS));
+            return Lists.newArrayList(tag(1L));
+        });
+
+        SiteInfoCache.Snapshot snapshot = cache.get().join();
+        assertEquals(1, snapshot.getSiteInfo().getTagList().size());
+        // 之后直接返回内存里的快照
+        assertSame(snapshot, cache.get().join());
+        verify(metaInfoService, times(1)).getAllTag();
+    }
+
+    @Test
+    public void serveStaleWhileRebuilding() throws InterruptedException {
+        when(metaInfoService.getAllTag()).thenReturn(Lists.newArrayList(tag(1L)));
+        SiteInfoCache.Snapshot first = cache.get().join();
+
+        CountDownLatch release = new CountDownLatch(1);
+        when(metaInfoService.getAllTag()).thenAnswer(invocation -> {
+            release.await(5, TimeUnit.SECONDS);
+            return Lists.newArrayList(tag(1L), tag(2L));
+        });
+        changeListener.run();
+        // 重建还没完成，返回旧值
+        assertSame(first, cache.get().join());
+
+        release.countDown();
+        SiteInfoCache.Snapshot second = first;
+        for (int i = 0; i < 100 && second == first; i++) {
+            Thread.sleep(50);
+            second = cache.get().join();
+        }
+        assertEquals(2, second.getSiteInfo().getTagList().size());
+        assertNotEquals(first.getEtag(), second.getEtag());
+    }
+}
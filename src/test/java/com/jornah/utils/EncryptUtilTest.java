@@ -0,0 +1,51 @@
+package com.jornah.utils;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.util.Base64Utils;
+
+import javax.crypto.Cipher;
+import javax.crypto.KeyGenerator;
+import java.nio.charset.StandardCharsets;
+import java.security.SecureRandom;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * @author licong
+ * @date 2026/10/18 18:20
+ */
+public class EncryptUtilTest {
+
+    /**
+     * 旧版本的加密方式，用来生成历史密文
+     */
+    private static String legacyEncrypt(String plainText, String key) throws Exception {
+        SecureRandom random = SecureRandom.getInstance("SHA1PRNG");
+        random.setSeed(key.getBytes());
+        KeyGenerator gen = KeyGenerator.getInstance("AES");
+        gen.init(128, random);
+        Cipher cipher = Cipher.getInstance("AES");
+        cipher.init(Cipher.ENCRYPT_MODE, gen.generateKey());
+        return Base64Utils.encodeToString(cipher.doFinal(plainText.getBytes(StandardCharsets.UTF_8)));
+    }
+
+    @Test
+    public void roundTrip() throws Exception {
+        String plain = "# 标题\nsome content";
+        String encrypted = EncryptUtil.encrypt(plain, "pass");
+        assertTrue(encrypted.startsWith("$v2$"));
+        assertNotEquals(encrypted, EncryptUtil.encrypt(plain, "pass"));
+        assertEquals(plain, EncryptUtil.decrypt(encrypted, "pass"));
+        assertEquals(plain, EncryptUtil.decrypt(encrypted, "pass"));
+        assertThrows(Exception.class, () -> EncryptUtil.decrypt(encrypted, "wrong"));
+    }
+
+    @Test
+    public void decryptLegacy() throws Exception {
+        String plain = "# 旧文章\nold content";
+        assertEquals(plain, EncryptUtil.decrypt(legacyEncrypt(plain, "pass"), "pass"));
+    }
+}
@@ -0,0 +1,66 @@
+package com.jornah.utils;
+
+import org.apache.commons.lang3.StringUtils;
+import org.junit.jupiter.api.Test;
+
+import java.util.Random;
+
+import static com.jornah.utils.MyStringUtil.LineNoFormat;
+import static com.jornah.utils.MyStringUtil.LineNoRegex;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * @author licong
+ * @date 2026/10/18 19:20
+ */
+public class LineNumberEngineTest {
+
+    /**
+     * 原来的实现，作为对照
+     */
+    private static String legacyNumber(String input, boolean atHead) {
+        String[] source = StringUtils.replace(input, "\r\n", "\n").split("\n");
+        StringBuilder sb = new StringBuilder();
+        for (int index = 0; index < source.length; index++) {
+            String lineNo = String.format(LineNoFormat, index + 1);
+            sb.append(atHead ? lineNo + source[index] : source[index] + lineNo).append("\n");
+        }
+        return sb.toString();
+    }
+
+    @Test
+    public void sameAsLegacy() {
+        String[] inputs = {"", "\n", "\n\n", "a", "a\n", "a\r\n", "a\r", "a\r\r\n", "\n\na\n\n", "a\n\r\nb\r\n\r\n",
+                "woshiadjasljdas\r\n sfsdf\n奥术大师\n sdfsdf\n\n\n\n啊撒大声地\n啊撒大声地\n"};
+        for (String input : inputs) {
+            assertEquals(legacyNumber(input, true), LineNumberEngine.DEFAULT.number(input, true), input);
+            assertEquals(legacyNumber(input, false), LineNumberEngine.DEFAULT.number(input, false), input);
+        }
+        Random random = new Random(1);
+        char[] alphabet = {'a', '中', '\n', '\r', ':', '1', '#', ' '};
+        for (int round = 0; round < 500; round++) {
+            StringBuilder sb = new StringBuilder();
+            for (int i = random.nextInt(60); i > 0; i--) {
+                sb.append(alphabet[random.nextInt(alphabet.length)]);
+            }
+            String input = sb.toString();
+            assertEquals(legacyNumber(input, true), LineNumberEngine.DEFAULT.number(input, true), input);
+            String numbered = LineNumberEngine.DEFAULT.number(input, true);
+            assertEquals(numbered.replaceAll(LineNoRegex, ""), LineNumberEngine.DEFAULT.strip(numbered), numbered);
+            assertEquals(input.replaceAll(LineNoRegex, ""), LineNumberEngine.DEFAULT.strip(input), input);
+        }
+    }
+
+    @Test
+    public void strip() {
+        assertEquals("2:a:1234567:b", LineNumberEngine.DEFAULT.strip(":1:2:a:1234567:b:123456:"));
+        assertEquals(":", LineNumberEngine.DEFAULT.strip(":"));
+    }
+
+    @Test
+    public void streaming() throws Exception {
+        StringBuffer out = new StringBuffer();
+        LineNumberEngine.DEFAULT.number("a\nb\n", false, out);
+        assertEquals("a:1:\nb:2:\n", out.toString());
+    }
+}
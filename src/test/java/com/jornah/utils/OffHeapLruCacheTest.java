@@ -0,0 +1,99 @@
+package com.jornah.utils;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * @author licong
+ * @date 2026/10/18 22:40
+ */
+public class OffHeapLruCacheTest {
+
+    private static byte[] bytes(int length, int seed) {
+        byte[] value = new byte[length];
+        for (int i = 0; i < length; i++) {
+            value[i] = (byte) (i * 31 + seed);
+        }
+        return value;
+    }
+
+    @Test
+    public void roundTripAcrossBlocks() {
+        OffHeapLruCache<Long> cache = new OffHeapLruCache<>(1024, 100, 0);
+        byte[] value = bytes(250, 1);
+        assertTrue(cache.put(1L, "v1", value));
+        assertArrayEquals(value, cache.get(1L, "v1"));
+        // 版本不一致视为未命中
+        assertNull(cache.get(1L, "v2"));
+
+        cache.put(1L, "v2", bytes(10, 2));
+        assertArrayEquals(bytes(10, 2), cache.get(1L, "v2"));
+        assertEquals(10, cache.stats().getUsedBytes());
+        assertEquals(100, cache.stats().getAllocatedBytes());
+
+        cache.put(2L, "v1", new byte[0]);
+        assertArrayEquals(new byte[0], cache.get(2L, "v1"));
+    }
+
+    @Test
+    public void evictLeastRecentlyUsedByBytes() {
+        // 10 个块
+        OffHeapLruCache<Long> cache = new OffHeapLruCache<>(1000, 100, 0);
+        cache.put(1L, "v", bytes(400, 1));
+        cache.put(2L, "v", bytes(400, 2));
+        // 访问 1 后 2 成为最久未访问的
+        cache.get(1L, "v");
+        cache.put(3L, "v", bytes(300, 3));
+
+        assertNull(cache.get(2L, "v"));
+        assertArrayEquals(bytes(400, 1), cache.get(1L, "v"));
+        assertArrayEquals(bytes(300, 3), cache.get(3L, "v"));
+
+        OffHeapLruCache.Stats stats = cache.stats();
+        assertEquals(2, stats.getEntries());
+        assertEquals(700, stats.getUsedBytes());
+        assertEquals(1, stats.getEvictions());
+        assertEquals(3, stats.getHits());
+        assertEquals(1, stats.getMisses());
+        assertEquals(0.75, stats.getHitRate(), 1e-9);
+
+        // 比整个缓存还大的不写入
+        assertFalse(cache.put(4L, "v", new byte[1001]));
+        assertEquals(2, cache.stats().getEntries());
+    }
+
+    @Test
+    public void invalidateReleasesBlocks() {
+        OffHeapLruCache<Long> cache = new OffHeapLruCache<>(1000, 100, 0);
+        cache.put(1L, "v", bytes(1000, 1));
+        cache.invalidate(1L);
+        assertNull(cache.get(1L, "v"));
+        assertEquals(0, cache.stats().getAllocatedBytes());
+
+        for (long key = 0; key < 10; key++) {
+            cache.put(key, "v", bytes(100, (int) key));
+        }
+        assertEquals(0, cache.stats().getEvictions());
+        cache.invalidateAll();
+        assertEquals(0, cache.stats().getEntries());
+        assertEquals(0, cache.stats().getUsedBytes());
+
+        byte[] value = bytes(1000, 7);
+        cache.put(1L, "v", value);
+        assertArrayEquals(value, cache.get(1L, "v"));
+    }
+
+    @Test
+    public void expireAfterWrite() throws InterruptedException {
+        OffHeapLruCache<Long> cache = new OffHeapLruCache<>(1000, 100, 20);
+        cache.put(1L, "v", bytes(10, 1));
+        Thread.sleep(50);
+        assertNull(cache.get(1L, "v"));
+        assertEquals(0, cache.stats().getEntries());
+    }
+}
@@ -0,0 +1,71 @@
+package com.jornah.utils;
+
+import org.apache.commons.codec.digest.DigestUtils;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.ByteArrayInputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * @author licong
+ * @date 2026/10/19 00:20
+ */
+public class SpooledUploadTest {
+    @TempDir
+    Path dir;
+
+    @Test
+    public void spoolAndMove() throws Exception {
+        byte[] content = new byte[3 * 1024 * 1024 + 17];
+        new Random(1).nextBytes(content);
+        content[0] = (byte) 0xFF;
+        content[1] = (byte) 0xD8;
+        content[2] = (byte) 0xFF;
+
+        Path target = dir.resolve("music/a.mp3");
+        Path temp;
+        try (SpooledUpload upload = SpooledUpload.spool(new ByteArrayInputStream(content), dir.resolve("tmp"))) {
+            temp = upload.getFile();
+            assertEquals(DigestUtils.md5Hex(content), upload.getMd5());
+            assertEquals(content.length, upload.getSize());
+            assertEquals("jpeg", upload.getImageType());
+            upload.moveTo(target);
+        }
+        assertFalse(Files.exists(temp));
+        assertArrayEquals(content, Files.readAllBytes(target));
+    }
+
+    @Test
+    public void closeDeletesTempFile() throws Exception {
+        Path temp;
+        try (SpooledUpload upload = SpooledUpload.spool(new ByteArrayInputStream(new byte[0]), dir)) {
+            temp = upload.getFile();
+            assertTrue(Files.exists(temp));
+            assertEquals(DigestUtils.md5Hex(new byte[0]), upload.getMd5());
+            assertFalse(upload.isImage());
+        }
+        assertFalse(Files.exists(temp));
+    }
+
+    @Test
+    public void imageTypeOf() {
+        byte[] png = {(byte) 0x89, 'P', 'N', 'G', 0x0D, 0x0A, 0x1A, 0x0A, 0, 0, 0, 0};
+        assertEquals("png", SpooledUpload.imageTypeOf(png, png.length));
+        byte[] webp = {'R', 'I', 'F', 'F', 1, 2, 3, 4, 'W', 'E', 'B', 'P'};
+        assertEquals("webp", SpooledUpload.imageTypeOf(webp, webp.length));
+        byte[] wav = {'R', 'I', 'F', 'F', 1, 2, 3, 4, 'W', 'A', 'V', 'E'};
+        assertNull(SpooledUpload.imageTypeOf(wav, wav.length));
+        assertEquals("gif", SpooledUpload.imageTypeOf("GIF89a".getBytes(), 6));
+        // 文件比魔数还短
+        assertNull(SpooledUpload.imageTypeOf(new byte[]{(byte) 0xFF, (byte) 0xD8}, 2));
+    }
+}